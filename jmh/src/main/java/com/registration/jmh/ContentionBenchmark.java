@@ -0,0 +1,108 @@
+package com.registration.jmh;
+
+import com.registration.model.Course;
+import com.registration.model.Student;
+import com.registration.system.RegistrationSystem;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.BenchmarkParams;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * JMH versions of the HotPathBenchmark hotCourse and addStudent scenarios,
+ * run on four threads: all of them registering in one course, or adding
+ * students to one system.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@Threads(4)
+@State(Scope.Benchmark)
+public class ContentionBenchmark {
+    private static final String HOT_COURSE = "HOT1000";
+    private static final int ADDED_PER_INVOCATION = 1000;
+    
+    @Param({"1000", "100000"})
+    int population;
+    
+    RegistrationSystem system;
+    String[] studentIds;
+    // Fresh target for addStudent, replaced every iteration so it does not grow without bound
+    volatile RegistrationSystem target;
+    final AtomicInteger nextThread = new AtomicInteger();
+    
+    @Setup(Level.Trial)
+    public void setUp() {
+        system = new RegistrationSystem();
+        studentIds = new String[population];
+        List<Student> students = new ArrayList<>(population);
+        for (int i = 0; i < population; i++) {
+            studentIds[i] = "S" + i;
+            students.add(new Student("Student " + i, "student" + i + "@example.edu", studentIds[i]));
+        }
+        system.addStudents(students);
+        system.addCourse(new Course(HOT_COURSE, "Hot course", Integer.MAX_VALUE / 2));
+    }
+    
+    @Setup(Level.Iteration)
+    public void newTarget() {
+        target = new RegistrationSystem();
+    }
+    
+    // Each thread works on its own slice of the students, as in HotPathBenchmark
+    @State(Scope.Thread)
+    public static class Slice {
+        private final SplittableRandom random = new SplittableRandom(42);
+        int thread;
+        int sliceSize;
+        int next;
+        
+        @Setup(Level.Trial)
+        public void setUp(ContentionBenchmark b, BenchmarkParams params) {
+            thread = b.nextThread.getAndIncrement();
+            sliceSize = Math.max(1, b.population / params.getThreads());
+        }
+        
+        String student(ContentionBenchmark b) {
+            return b.studentIds[Math.min(b.population - 1, thread * sliceSize + random.nextInt(sliceSize))];
+        }
+    }
+    
+    // One register and one drop in the shared course, so the roster stays put
+    @Benchmark
+    public void hotCourse(Slice slice, Blackhole blackhole) {
+        String student = slice.student(this);
+        blackhole.consume(system.registerStudentToCourse(student, HOT_COURSE));
+        blackhole.consume(system.dropStudentFromCourse(student, HOT_COURSE));
+    }
+    
+    // Unlike HotPathBenchmark this also times creating the students, which it does up front
+    @Benchmark
+    @OperationsPerInvocation(ADDED_PER_INVOCATION)
+    public void addStudent(Slice slice, Blackhole blackhole) {
+        RegistrationSystem into = target;
+        for (int i = 0; i < ADDED_PER_INVOCATION; i++) {
+            String id = "N" + slice.thread + "-" + slice.next++;
+            blackhole.consume(into.addStudent(new Student("New " + id, id + "@example.edu", id)));
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package com.registration.jmh;
+
+import com.registration.model.Course;
+import com.registration.model.Student;
+import com.registration.system.RegistrationSystem;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * JMH versions of the HotPathBenchmark lookup, register/drop and summary
+ * scenarios, over the same population of students with one course per
+ * hundred students.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Benchmark)
+public class LookupBenchmark {
+    private static final int STUDENTS_PER_COURSE = 100;
+    
+    @Param({"1000", "100000"})
+    int population;
+    
+    RegistrationSystem system;
+    String[] studentIds;
+    String[] courseCodes;
+    private PrintStream originalOut;
+    
+    @Setup(Level.Trial)
+    public void setUp() {
+        system = new RegistrationSystem();
+        int courses = Math.max(1, population / STUDENTS_PER_COURSE);
+        studentIds = new String[population];
+        courseCodes = new String[courses];
+        List<Student> students = new ArrayList<>(population);
+        for (int i = 0; i < population; i++) {
+            studentIds[i] = "S" + i;
+            students.add(new Student("Student " + i, "student" + i + "@example.edu", studentIds[i]));
+        }
+        system.addStudents(students);
+        List<Course> courseList = new ArrayList<>(courses);
+        for (int i = 0; i < courses; i++) {
+            courseCodes[i] = String.format("BM%04d", i);
+            courseList.add(new Course(courseCodes[i], "Course " + i, Integer.MAX_VALUE / 2));
+        }
+        system.addCourses(courseList);
+        // displaySystemSummary prints; keep the console out of the measurement
+        originalOut = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream(), false, StandardCharsets.UTF_8));
+    }
+    
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        System.setOut(originalOut);
+    }
+    
+    // Per-thread random picks, so threads do not share a generator
+    @State(Scope.Thread)
+    public static class Picks {
+        private final SplittableRandom random = new SplittableRandom(42);
+        
+        String student(LookupBenchmark b) {
+            return b.studentIds[random.nextInt(b.studentIds.length)];
+        }
+        
+        String course(LookupBenchmark b) {
+            return b.courseCodes[random.nextInt(b.courseCodes.length)];
+        }
+    }
+    
+    @Benchmark
+    public Student findStudentById(Picks picks) {
+        return system.findStudentById(picks.student(this));
+    }
+    
+    @Benchmark
+    public Course findCourseByCode(Picks picks) {
+        return system.findCourseByCode(picks.course(this));
+    }
+    
+    // One register and one drop, so the state stays put
+    @Benchmark
+    public void registerAndDrop(Picks picks, Blackhole blackhole) {
+        String student = picks.student(this);
+        String course = picks.course(this);
+        blackhole.consume(system.registerStudentToCourse(student, course));
+        blackhole.consume(system.dropStudentFromCourse(student, course));
+    }
+    
+    @Benchmark
+    @Measurement(iterations = 5, time = 2)
+    public void displaySystemSummary() {
+        system.displaySystemSummary();
+    }
+}
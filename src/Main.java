@@ -1,3 +1,4 @@
+import com.registration.event.ConsoleListener;
 import com.registration.model.*;
 import com.registration.system.RegistrationSystem;
 
@@ -17,6 +18,7 @@ public class Main {
         
         // Create the registration system
         RegistrationSystem system = new RegistrationSystem();
+        system.setEventListener(new ConsoleListener()); // Print every operation outcome
         
         try {
             // Demonstrate object creation and encapsulation
@@ -0,0 +1,357 @@
+package com.registration.bench;
+
+import com.registration.model.Course;
+import com.registration.model.Student;
+import com.registration.system.RegistrationSystem;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Throughput benchmarks for the RegistrationSystem hot paths, parameterized
+ * by population size and thread count. Each scenario runs timed warm-up
+ * iterations followed by measured ones, and reports the mean and the
+ * spread of the measured iterations.
+ *
+ * Results can be saved as CSV and compared against a saved baseline, so a
+ * change can be judged by the difference it makes on the same machine.
+ *
+ * Usage: java com.registration.bench.HotPathBenchmark [options]
+ *   --population 1000,100000    students in the system (courses: population / 100)
+ *   --threads 1,4               threads running each scenario
+ *   --scenarios all             comma-separated names from the list below
+ *   --warmup 2 --iterations 5   iteration counts
+ *   --time 1                    seconds per iteration
+ *   --save results.csv          write the results
+ *   --baseline baseline.csv     compare against earlier results
+ *   --metrics 0                 enable the system's metrics, timing one in this many operations;
+ *                               0 leaves them disabled
+ *
+ * Scenarios: findStudentById, findCourseByCode, registerAndDrop,
+ * hotCourse, displaySystemSummary, addStudent
+ */
+public class HotPathBenchmark {
+    private static final int STUDENTS_PER_COURSE = 100;
+    
+    private final int warmup;
+    private final int iterations;
+    private final long iterationNanos;
+    
+    // Keeps results alive so lookups cannot be optimized away
+    private static volatile Object sink;
+    
+    HotPathBenchmark(int warmup, int iterations, double seconds) {
+        this.warmup = warmup;
+        this.iterations = iterations;
+        this.iterationNanos = (long) (seconds * 1e9);
+    }
+    
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = parseOptions(args);
+        int[] populations = parseInts(options.getOrDefault("population", "1000,100000"));
+        int[] threadCounts = parseInts(options.getOrDefault("threads", "1," + Runtime.getRuntime().availableProcessors()));
+        List<String> scenarios = Arrays.asList(options.getOrDefault("scenarios", "all").split(","));
+        HotPathBenchmark benchmark = new HotPathBenchmark(
+                Integer.parseInt(options.getOrDefault("warmup", "2")),
+                Integer.parseInt(options.getOrDefault("iterations", "5")),
+                Double.parseDouble(options.getOrDefault("time", "1")));
+        int metrics = Integer.parseInt(options.getOrDefault("metrics", "0"));
+        Map<String, double[]> baseline = options.containsKey("baseline")
+                ? readResults(Paths.get(options.get("baseline"))) : new HashMap<>();
+        
+        Map<String, double[]> results = new LinkedHashMap<>();
+        System.out.printf("%-22s %10s %7s %16s %10s %10s%n",
+                "scenario", "population", "threads", "ops/s", "error %", "vs base");
+        for (int population : populations) {
+            Fixture fixture = new Fixture(population, metrics);
+            for (int threads : threadCounts) {
+                for (Scenario scenario : Scenario.values()) {
+                    if (!scenarios.contains("all") && !scenarios.contains(scenario.name)) {
+                        continue;
+                    }
+                    double[] score = benchmark.measure(scenario, fixture, threads);
+                    String key = scenario.name + "," + population + "," + threads;
+                    results.put(key, score);
+                    double[] base = baseline.get(key);
+                    String change = base == null ? "" : String.format(Locale.ROOT, "%+.1f%%", (score[0] / base[0] - 1) * 100);
+                    System.out.printf(Locale.ROOT, "%-22s %10d %7d %,16.0f %10.1f %10s%n",
+                            scenario.name, population, threads, score[0], score[1] / score[0] * 100, change);
+                }
+            }
+        }
+        if (options.containsKey("save")) {
+            writeResults(Paths.get(options.get("save")), results);
+        }
+    }
+    
+    /**
+     * Run one scenario
+     * @return Mean ops per second over the measured iterations, and their standard deviation
+     */
+    double[] measure(Scenario scenario, Fixture fixture, int threads) throws Exception {
+        for (int i = 0; i < warmup; i++) {
+            runIteration(scenario, fixture, threads);
+        }
+        double[] scores = new double[iterations];
+        for (int i = 0; i < iterations; i++) {
+            scores[i] = runIteration(scenario, fixture, threads);
+        }
+        double mean = 0;
+        for (double score : scores) {
+            mean += score;
+        }
+        mean /= scores.length;
+        double variance = 0;
+        for (double score : scores) {
+            variance += (score - mean) * (score - mean);
+        }
+        return new double[] {mean, Math.sqrt(variance / scores.length)};
+    }
+    
+    // Runs the scenario on every thread for one iteration and returns ops per second
+    private double runIteration(Scenario scenario, Fixture fixture, int threads) throws Exception {
+        scenario.setUp(fixture, threads);
+        AtomicBoolean running = new AtomicBoolean(true);
+        CyclicBarrier start = new CyclicBarrier(threads + 1);
+        long[] counts = new long[threads];
+        Thread[] workers = new Thread[threads];
+        for (int t = 0; t < threads; t++) {
+            int thread = t;
+            workers[t] = new Thread(() -> {
+                SplittableRandom random = new SplittableRandom(thread * 31L + 7);
+                try {
+                    start.await();
+                } catch (Exception e) {
+                    return;
+                }
+                long ops = 0;
+                if (scenario.isFixedWork()) {
+                    ops = scenario.run(fixture, thread, threads, random);
+                } else {
+                    while (running.get()) {
+                        ops += scenario.run(fixture, thread, threads, random);
+                    }
+                }
+                counts[thread] = ops;
+            }, "bench-" + t);
+            workers[t].start();
+        }
+        long begin = System.nanoTime(); // Before the release, so short fixed work is not missed
+        start.await();
+        if (!scenario.isFixedWork()) {
+            Thread.sleep(iterationNanos / 1_000_000);
+            running.set(false);
+        }
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        long elapsed = System.nanoTime() - begin;
+        scenario.tearDown(fixture);
+        long total = 0;
+        for (long count : counts) {
+            total += count;
+        }
+        return total / (elapsed / 1e9);
+    }
+    
+    // Shared population for every scenario of one size
+    static final class Fixture {
+        final int population;
+        final RegistrationSystem system;
+        final String[] studentIds;
+        final String[] courseCodes;
+        final PrintStream discard = new PrintStream(OutputStream.nullOutputStream(), false, StandardCharsets.UTF_8);
+        volatile Student[][] freshStudents;
+        
+        Fixture(int population, int metricsSampling) {
+            this.population = population;
+            this.system = new RegistrationSystem();
+            if (metricsSampling > 0) {
+                system.getMetrics().setLatencySampling(metricsSampling);
+                system.getMetrics().setEnabled(true);
+            }
+            int courses = Math.max(1, population / STUDENTS_PER_COURSE);
+            this.studentIds = new String[population];
+            this.courseCodes = new String[courses];
+            List<Student> students = new ArrayList<>(population);
+            for (int i = 0; i < population; i++) {
+                studentIds[i] = "S" + i;
+                students.add(new Student("Student " + i, "student" + i + "@example.edu", studentIds[i]));
+            }
+            system.addStudents(students);
+            List<Course> courseList = new ArrayList<>(courses + 1);
+            for (int i = 0; i < courses; i++) {
+                courseCodes[i] = String.format("BM%04d", i);
+                courseList.add(new Course(courseCodes[i], "Course " + i, Integer.MAX_VALUE / 2));
+            }
+            courseList.add(new Course("HOT1000", "Hot course", Integer.MAX_VALUE / 2));
+            system.addCourses(courseList);
+        }
+    }
+    
+    enum Scenario {
+        FIND_STUDENT("findStudentById") {
+            @Override
+            int run(Fixture f, int thread, int threads, SplittableRandom random) {
+                sink = f.system.findStudentById(f.studentIds[random.nextInt(f.population)]);
+                return 1;
+            }
+        },
+        FIND_COURSE("findCourseByCode") {
+            @Override
+            int run(Fixture f, int thread, int threads, SplittableRandom random) {
+                sink = f.system.findCourseByCode(f.courseCodes[random.nextInt(f.courseCodes.length)]);
+                return 1;
+            }
+        },
+        REGISTER_AND_DROP("registerAndDrop") {
+            // One registerStudentToCourse and one dropStudentFromCourse, so the state stays put
+            @Override
+            int run(Fixture f, int thread, int threads, SplittableRandom random) {
+                String student = f.studentIds[random.nextInt(f.population)];
+                String course = f.courseCodes[random.nextInt(f.courseCodes.length)];
+                f.system.registerStudentToCourse(student, course);
+                f.system.dropStudentFromCourse(student, course);
+                return 2;
+            }
+        },
+        HOT_COURSE("hotCourse") {
+            // Every thread registers and drops its own students in one course
+            @Override
+            int run(Fixture f, int thread, int threads, SplittableRandom random) {
+                int slice = Math.max(1, f.population / threads);
+                String student = f.studentIds[Math.min(f.population - 1, thread * slice + random.nextInt(slice))];
+                f.system.registerStudentToCourse(student, "HOT1000");
+                f.system.dropStudentFromCourse(student, "HOT1000");
+                return 2;
+            }
+        },
+        SUMMARY("displaySystemSummary") {
+            private PrintStream original;
+            
+            @Override
+            void setUp(Fixture f, int threads) {
+                original = System.out;
+                System.setOut(f.discard);
+            }
+            
+            @Override
+            int run(Fixture f, int thread, int threads, SplittableRandom random) {
+                f.system.displaySystemSummary();
+                return 1;
+            }
+            
+            @Override
+            void tearDown(Fixture f) {
+                System.setOut(original);
+            }
+        },
+        ADD_STUDENT("addStudent") {
+            // Fixed work: the threads add a whole population of new students to an empty system
+            private volatile RegistrationSystem target;
+            
+            @Override
+            boolean isFixedWork() {
+                return true;
+            }
+            
+            @Override
+            void setUp(Fixture f, int threads) {
+                target = new RegistrationSystem();
+                Student[][] fresh = new Student[threads][];
+                for (int t = 0; t < threads; t++) {
+                    int from = (int) ((long) f.population * t / threads);
+                    int to = (int) ((long) f.population * (t + 1) / threads);
+                    fresh[t] = new Student[to - from];
+                    for (int i = from; i < to; i++) {
+                        fresh[t][i - from] = new Student("New " + i, "new" + i + "@example.edu", "N" + i);
+                    }
+                }
+                f.freshStudents = fresh;
+            }
+            
+            @Override
+            int run(Fixture f, int thread, int threads, SplittableRandom random) {
+                Student[] students = f.freshStudents[thread];
+                for (Student student : students) {
+                    target.addStudent(student);
+                }
+                return students.length;
+            }
+            
+            @Override
+            void tearDown(Fixture f) {
+                target = null;
+                f.freshStudents = null;
+            }
+        };
+        
+        final String name;
+        
+        Scenario(String name) {
+            this.name = name;
+        }
+        
+        // Fixed-work scenarios run once per thread and are timed until all threads finish
+        boolean isFixedWork() {
+            return false;
+        }
+        
+        void setUp(Fixture f, int threads) {
+        }
+        
+        abstract int run(Fixture f, int thread, int threads, SplittableRandom random);
+        
+        void tearDown(Fixture f) {
+        }
+    }
+    
+    private static Map<String, String> parseOptions(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            if (!args[i].startsWith("--")) {
+                throw new IllegalArgumentException("Expected an option but got " + args[i]);
+            }
+            options.put(args[i].substring(2), args[i + 1]);
+        }
+        return options;
+    }
+    
+    private static int[] parseInts(String list) {
+        return Arrays.stream(list.split(",")).mapToInt(Integer::parseInt).toArray();
+    }
+    
+    private static void writeResults(Path path, Map<String, double[]> results) throws IOException {
+        List<String> lines = new ArrayList<>();
+        lines.add("scenario,population,threads,opsPerSecond,error");
+        for (Map.Entry<String, double[]> result : results.entrySet()) {
+            lines.add(String.format(Locale.ROOT, "%s,%.1f,%.1f", result.getKey(), result.getValue()[0], result.getValue()[1]));
+        }
+        Files.write(path, lines, StandardCharsets.UTF_8);
+    }
+    
+    private static Map<String, double[]> readResults(Path path) throws IOException {
+        Map<String, double[]> results = new HashMap<>();
+        List<String> lines = Files.readAllLines(path, StandardCharsets.UTF_8);
+        for (String line : lines.subList(1, lines.size())) {
+            String[] fields = line.split(",");
+            results.put(fields[0] + "," + fields[1] + "," + fields[2],
+                    new double[] {Double.parseDouble(fields[3]), Double.parseDouble(fields[4])});
+        }
+        return results;
+    }
+}
@@ -0,0 +1,217 @@
+package com.registration.bench;
+
+import com.registration.http.RegistrationServer;
+import com.registration.model.Course;
+import com.registration.model.Student;
+import com.registration.system.RegistrationSystem;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Closed-loop load generator for the HTTP API. Each client thread sends a
+ * request, waits for the response and immediately sends the next one, so
+ * the offered load adapts to the server instead of overrunning it.
+ *
+ * The request mix imitates registration day: mostly registrations, heavily
+ * skewed towards a few popular courses, plus drops, course and student
+ * lookups and the occasional summary.
+ *
+ * Without a URL an embedded server with generated data is started on a
+ * free local port, with metrics enabled, and its own latencies are
+ * printed after the client-side ones. The embedded server is started with
+ * sun.net.httpserver.nodelay set, as a deployment would set it.
+ *
+ * Usage: java com.registration.bench.LoadGenerator [clients] [seconds] [url]
+ */
+public class LoadGenerator {
+    private static final int STUDENTS = 20_000;
+    private static final int COURSES = 400;
+    private static final int POPULAR_COURSES = 20;
+    
+    public static void main(String[] args) throws Exception {
+        int clients = args.length > 0 ? Integer.parseInt(args[0]) : 32;
+        int seconds = args.length > 1 ? Integer.parseInt(args[1]) : 20;
+        RegistrationServer embedded = null;
+        RegistrationSystem system = null;
+        String base;
+        if (args.length > 2) {
+            base = args[2].endsWith("/") ? args[2].substring(0, args[2].length() - 1) : args[2];
+        } else {
+            if (System.getProperty("sun.net.httpserver.nodelay") == null) {
+                System.setProperty("sun.net.httpserver.nodelay", "true"); // Before the first server
+            }
+            system = seed();
+            embedded = new RegistrationServer(system, new InetSocketAddress("127.0.0.1", 0));
+            embedded.start();
+            base = "http://127.0.0.1:" + embedded.getPort();
+        }
+        try {
+            HttpClient client = HttpClient.newBuilder()
+                    .version(HttpClient.Version.HTTP_1_1)
+                    .connectTimeout(Duration.ofSeconds(5))
+                    .build();
+            System.out.println("Warming up against " + base);
+            run(client, base, clients, Math.max(1, seconds / 5));
+            if (system != null) {
+                system.getMetrics().setEnabled(true); // After warm-up, so only the measured run counts
+            }
+            Result result = run(client, base, clients, seconds);
+            result.print(seconds);
+            if (system != null) {
+                System.out.println("Server-side metrics:");
+                System.out.print(system.getMetrics().snapshot());
+            }
+        } finally {
+            if (embedded != null) {
+                embedded.close();
+            }
+        }
+    }
+    
+    private static Result run(HttpClient client, String base, int clients, int seconds)
+            throws InterruptedException {
+        long deadline = System.nanoTime() + seconds * 1_000_000_000L;
+        Worker[] workers = new Worker[clients];
+        Thread[] threads = new Thread[clients];
+        for (int i = 0; i < clients; i++) {
+            workers[i] = new Worker(client, base, deadline);
+            threads[i] = new Thread(workers[i], "load-client-" + i);
+            threads[i].start();
+        }
+        Result result = new Result();
+        for (int i = 0; i < clients; i++) {
+            threads[i].join();
+            result.add(workers[i]);
+        }
+        return result;
+    }
+    
+    private static final class Worker implements Runnable {
+        private final HttpClient client;
+        private final String base;
+        private final long deadline;
+        private long[] latencies = new long[1 << 12];
+        private int count;
+        private int errors;
+        
+        Worker(HttpClient client, String base, long deadline) {
+            this.client = client;
+            this.base = base;
+            this.deadline = deadline;
+        }
+        
+        @Override
+        public void run() {
+            while (System.nanoTime() < deadline) {
+                HttpRequest request = nextRequest();
+                long start = System.nanoTime();
+                try {
+                    HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+                    if (response.statusCode() >= 500) {
+                        errors++;
+                    }
+                } catch (IOException e) {
+                    errors++;
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                record(System.nanoTime() - start);
+            }
+        }
+        
+        private HttpRequest nextRequest() {
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            String student = "S" + random.nextInt(STUDENTS);
+            String course = courseCode(random.nextInt(10) < 7
+                    ? random.nextInt(POPULAR_COURSES) : random.nextInt(COURSES));
+            int roll = random.nextInt(100);
+            if (roll < 50) {
+                return post("/register?student=" + student + "&course=" + course);
+            } else if (roll < 60) {
+                return post("/drop?student=" + student + "&course=" + course);
+            } else if (roll < 85) {
+                return get("/courses/" + course);
+            } else if (roll < 99) {
+                return get("/students/" + student);
+            }
+            return get("/summary");
+        }
+        
+        private HttpRequest get(String path) {
+            return HttpRequest.newBuilder(URI.create(base + path)).GET().build();
+        }
+        
+        private HttpRequest post(String path) {
+            return HttpRequest.newBuilder(URI.create(base + path))
+                    .POST(HttpRequest.BodyPublishers.noBody()).build();
+        }
+        
+        private void record(long nanos) {
+            if (count == latencies.length) {
+                latencies = Arrays.copyOf(latencies, count * 2);
+            }
+            latencies[count++] = nanos;
+        }
+    }
+    
+    private static final class Result {
+        private final List<long[]> parts = new ArrayList<>();
+        private int count;
+        private int errors;
+        
+        void add(Worker worker) {
+            parts.add(Arrays.copyOf(worker.latencies, worker.count));
+            count += worker.count;
+            errors += worker.errors;
+        }
+        
+        void print(int seconds) {
+            long[] all = new long[count];
+            int offset = 0;
+            for (long[] part : parts) {
+                System.arraycopy(part, 0, all, offset, part.length);
+                offset += part.length;
+            }
+            Arrays.sort(all);
+            System.out.printf("Requests: %,d in %d s (%,.0f req/s), errors: %d%n",
+                    count, seconds, count / (double) seconds, errors);
+            if (count > 0) {
+                System.out.printf("Latency: p50 %.2f ms, p99 %.2f ms, p999 %.2f ms, max %.2f ms%n",
+                        millis(all, 0.50), millis(all, 0.99), millis(all, 0.999), all[count - 1] / 1e6);
+            }
+        }
+        
+        private static double millis(long[] sorted, double fraction) {
+            return sorted[Math.min(sorted.length - 1, (int) (sorted.length * fraction))] / 1e6;
+        }
+    }
+    
+    private static RegistrationSystem seed() {
+        RegistrationSystem system = new RegistrationSystem();
+        List<Student> students = new ArrayList<>(STUDENTS);
+        for (int i = 0; i < STUDENTS; i++) {
+            students.add(new Student("Student " + i, "student" + i + "@example.edu", "S" + i));
+        }
+        system.addStudents(students);
+        List<Course> courses = new ArrayList<>(COURSES);
+        for (int i = 0; i < COURSES; i++) {
+            courses.add(new Course(courseCode(i), "Course " + i, i < POPULAR_COURSES ? 150 : 60));
+        }
+        system.addCourses(courses);
+        return system;
+    }
+    
+    private static String courseCode(int index) {
+        return String.format("LOAD%03d", index);
+    }
+}
@@ -0,0 +1,77 @@
+package com.registration.bench;
+
+import com.registration.model.Course;
+import com.registration.model.EnrollmentResult;
+import com.registration.model.Student;
+import com.registration.search.OpenSeatIndex;
+import com.registration.system.RegistrationSystem;
+import java.util.List;
+
+/**
+ * Checks for behavior that broke once and must stay fixed. Every failed
+ * check is printed and the exit status is 1.
+ *
+ * Usage: java com.registration.bench.RegressionCheck
+ */
+public class RegressionCheck {
+    private int failures;
+    
+    public static void main(String[] args) {
+        RegressionCheck check = new RegressionCheck();
+        check.subclassHandles();
+        check.largeCapacityIndex();
+        if (check.failures > 0) {
+            System.out.println(check.failures + " check(s) failed");
+            System.exit(1);
+        }
+        System.out.println("All checks passed");
+    }
+    
+    // A subclass draws handles from its family, so it never shares one with a plain entity
+    private void subclassHandles() {
+        RegistrationSystem system = new RegistrationSystem();
+        Student plain = new Student("Plain Student", "plain@example.edu", "RC1");
+        Student derived = new Student("Derived Student", "derived@example.edu", "RC2") {
+        };
+        Course course = new Course("RC100", "Regression", 10);
+        Course derivedCourse = new Course("RC200", "Derived regression", 10) {
+        };
+        system.addStudent(plain);
+        system.addStudent(derived);
+        system.addCourse(course);
+        system.addCourse(derivedCourse);
+        expect("subclass student handle", plain.getHandle() != derived.getHandle());
+        expect("subclass course handle", course.getHandle() != derivedCourse.getHandle());
+        expect("plain student registers", system.register("RC1", "RC100") == EnrollmentResult.SUCCESS);
+        expect("subclass student registers", system.register("RC2", "RC100") == EnrollmentResult.SUCCESS);
+        expect("both on the roster", course.getCurrentEnrollment() == 2);
+        expect("registers in subclass course", system.register("RC1", "RC200") == EnrollmentResult.SUCCESS);
+        expect("subclass course roster", derivedCourse.getCurrentEnrollment() == 1
+                && plain.getEnrolledCourses().size() == 2);
+    }
+    
+    // Open seats are filed sparsely, so a huge capacity does not size an array after it
+    private void largeCapacityIndex() {
+        RegistrationSystem system = new RegistrationSystem();
+        OpenSeatIndex index = system.getOpenSeatIndex();
+        system.addStudent(new Student("Large Student", "large@example.edu", "RC3"));
+        Course large = new Course("RC300", "Large regression", 500_000_000);
+        system.addCourse(large);
+        system.addCourse(new Course("RC301", "Small regression", 10));
+        expect("large course indexed", index.countOpenCourses("RC", 1_000_000) == 1);
+        expect("large course registers", system.register("RC3", "RC300") == EnrollmentResult.SUCCESS);
+        expect("large course re-filed", index.findOpenCourses("RC", 499_999_999, 10).equals(List.of(large))
+                && index.countOpenCourses("RC", 500_000_000) == 0);
+        large.setMaxStudents(Integer.MAX_VALUE);
+        expect("capacity raised", index.countOpenCourses("RC", Integer.MAX_VALUE - 1) == 1);
+        large.setMaxStudents(5);
+        expect("capacity lowered", index.countOpenCourses("RC", 1_000) == 0 && index.countOpenCourses("RC", 4) == 2);
+    }
+    
+    private void expect(String name, boolean passed) {
+        if (!passed) {
+            failures++;
+            System.out.println("FAILED: " + name);
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package com.registration.bench;
+
+import com.registration.model.Course;
+import com.registration.model.Student;
+import com.registration.system.RegistrationService;
+import com.registration.system.RegistrationSystem;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Compares RegistrationService on virtual threads with the same service
+ * on a fixed platform-thread pool. Many client sessions each issue a mix
+ * of lookups, registrations and drops, with a share of the registrations
+ * aimed at one hot course.
+ *
+ * Usage: java com.registration.bench.ServiceBenchmark [sessions] [callsPerSession] [poolThreads]
+ */
+public class ServiceBenchmark {
+    private static final int STUDENTS = 50_000;
+    private static final int COURSES = 500;
+    
+    public static void main(String[] args) {
+        int sessions = args.length > 0 ? Integer.parseInt(args[0]) : 20_000;
+        int calls = args.length > 1 ? Integer.parseInt(args[1]) : 20;
+        int poolThreads = args.length > 2 ? Integer.parseInt(args[2])
+                : Runtime.getRuntime().availableProcessors() * 2;
+        
+        ExecutorService virtual = RegistrationService.newVirtualThreadExecutor();
+        if (virtual == null) {
+            System.out.println("Virtual threads are not available on Java "
+                    + Runtime.version().feature() + "; running the platform pool only");
+        } else {
+            run("virtual (warm-up)", virtual, sessions, calls);
+            run("virtual threads", RegistrationService.newVirtualThreadExecutor(), sessions, calls);
+        }
+        String pool = "platform pool (" + poolThreads + ")";
+        run("platform (warm-up)", RegistrationService.newPlatformExecutor(poolThreads), sessions, calls);
+        run(pool, RegistrationService.newPlatformExecutor(poolThreads), sessions, calls);
+    }
+    
+    private static void run(String label, ExecutorService executor, int sessions, int calls) {
+        RegistrationSystem system = newSystem();
+        long[] latencies = new long[sessions * calls];
+        long start = System.nanoTime();
+        try (RegistrationService service = new RegistrationService(system, executor, 4)) {
+            List<CompletableFuture<?>> pending = new ArrayList<>(sessions);
+            for (int s = 0; s < sessions; s++) {
+                pending.add(session(service, s, calls, latencies));
+            }
+            CompletableFuture.allOf(pending.toArray(new CompletableFuture<?>[0])).join();
+        }
+        long elapsed = System.nanoTime() - start;
+        Arrays.sort(latencies);
+        System.out.printf("%-24s %,10.0f calls/s  p50 %,8d us  p99 %,8d us  max %,8d us%n",
+                label, latencies.length / (elapsed / 1e9),
+                percentile(latencies, 0.50) / 1000, percentile(latencies, 0.99) / 1000,
+                latencies[latencies.length - 1] / 1000);
+    }
+    
+    // One client issuing its calls back to back, each after the previous completes
+    private static CompletableFuture<Void> session(RegistrationService service, int session, int calls,
+                                                   long[] latencies) {
+        CompletableFuture<Void> chain = CompletableFuture.completedFuture(null);
+        String studentId = "S" + (session % STUDENTS);
+        for (int i = 0; i < calls; i++) {
+            int slot = session * calls + i;
+            chain = chain.thenCompose(ignored -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                int roll = random.nextInt(10);
+                String courseCode = roll < 2 ? courseCode(0) : courseCode(random.nextInt(COURSES));
+                long begin = System.nanoTime();
+                CompletableFuture<?> call;
+                if (roll < 4) {
+                    call = service.findCourse(courseCode);
+                } else if (roll < 8) {
+                    call = service.register(studentId, courseCode);
+                } else {
+                    call = service.drop(studentId, courseCode);
+                }
+                return call.thenAccept(result -> latencies[slot] = System.nanoTime() - begin);
+            });
+        }
+        return chain;
+    }
+    
+    private static RegistrationSystem newSystem() {
+        RegistrationSystem system = new RegistrationSystem();
+        List<Student> students = new ArrayList<>(STUDENTS);
+        for (int i = 0; i < STUDENTS; i++) {
+            students.add(new Student("Student " + i, "student" + i + "@example.edu", "S" + i));
+        }
+        system.addStudents(students);
+        List<Course> courses = new ArrayList<>(COURSES);
+        for (int i = 0; i < COURSES; i++) {
+            courses.add(new Course(courseCode(i), "Course " + i, 200));
+        }
+        system.addCourses(courses);
+        return system;
+    }
+    
+    private static String courseCode(int index) {
+        return String.format("BEN%04d", index);
+    }
+    
+    private static long percentile(long[] sorted, double fraction) {
+        return sorted[Math.min(sorted.length - 1, (int) (sorted.length * fraction))];
+    }
+}
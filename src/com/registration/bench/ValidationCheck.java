@@ -0,0 +1,227 @@
+package com.registration.bench;
+
+import com.registration.model.Course;
+import com.registration.model.Validation;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.function.Predicate;
+import java.util.regex.Pattern;
+
+/**
+ * Differential check of the hand-written validators in Validation against
+ * the regular expressions they replace, followed by a timing of both.
+ *
+ * Every string up to a few characters long over an alphabet that includes
+ * the characters just outside each character class is checked, then random
+ * strings and random edits of valid values. Course codes are also checked
+ * through the Course constructor under locales whose upper-casing differs
+ * (Turkish dotted and dotless i, German sharp s). Any disagreement is
+ * printed and the exit status is 1.
+ *
+ * Usage: java com.registration.bench.ValidationCheck [options]
+ *   --random 1000000            random strings per grammar
+ *   --seed 1                    seed for the random strings
+ */
+public class ValidationCheck {
+    private static final String EMAIL_ALPHABET = "aZ09+_.-@ /[";
+    private static final String CODE_ALPHABET = "AZ09@[/:";
+    // ASCII plus characters that trim, upper-case or match classes unusually
+    private static final String WIDE_ALPHABET = buildWideAlphabet();
+    private static final String[] VALID_EMAILS = {
+        "ali.khan@uni.edu", "a+b_c-d@mail-1.example.co", "x@y.zz", "first.last@sub.domain.org"
+    };
+    private static final String[] VALID_CODES = {"CS101", "MATH200", "AB1234", "ABCD999", "cs101", " phys2000 "};
+    private static final int MAX_REPORTED = 10;
+    private static final int TIMED_CHECKS = 2_000_000;
+    
+    private int mismatches;
+    
+    // Keeps results alive so checks cannot be optimized away
+    private static volatile int sink;
+    
+    public static void main(String[] args) {
+        Map<String, String> options = parseOptions(args);
+        int random = Integer.parseInt(options.getOrDefault("random", "1000000"));
+        long seed = Long.parseLong(options.getOrDefault("seed", "1"));
+        ValidationCheck check = new ValidationCheck();
+        
+        Predicate<String> emailRegex = matcher(Validation.EMAIL_PATTERN);
+        Predicate<String> codeRegex = matcher(Validation.COURSE_CODE_PATTERN);
+        check.exhaustive("email", EMAIL_ALPHABET, 6, emailRegex, Validation::isValidEmail);
+        check.exhaustive("course code", CODE_ALPHABET, 8, codeRegex, Validation::isValidCourseCode);
+        check.random("email", new SplittableRandom(seed), random, VALID_EMAILS, emailRegex, Validation::isValidEmail);
+        check.random("course code", new SplittableRandom(seed), random, VALID_CODES, codeRegex, Validation::isValidCourseCode);
+        
+        Locale original = Locale.getDefault();
+        try {
+            for (Locale locale : new Locale[] {Locale.ROOT, new Locale("tr", "TR"), Locale.GERMANY}) {
+                Locale.setDefault(locale);
+                check.random("course constructor " + locale.toLanguageTag(), new SplittableRandom(seed), random / 10,
+                        VALID_CODES, s -> codeRegex.test(s.trim().toUpperCase()), ValidationCheck::constructs);
+            }
+        } finally {
+            Locale.setDefault(original);
+        }
+        
+        time("email", VALID_EMAILS, emailRegex, Validation::isValidEmail);
+        time("course code", VALID_CODES, s -> codeRegex.test(s.trim().toUpperCase()),
+                s -> Validation.isValidCourseCode(s.trim().toUpperCase()));
+        
+        if (check.mismatches > 0) {
+            System.out.println(check.mismatches + " mismatches");
+            System.exit(1);
+        }
+        System.out.println("No mismatches");
+    }
+    
+    // Every string of up to maxLength characters over the alphabet
+    private void exhaustive(String name, String alphabet, int maxLength,
+                            Predicate<String> expected, Predicate<String> actual) {
+        long checked = 0;
+        char[] chars = new char[maxLength];
+        int[] digits = new int[maxLength];
+        for (int length = 0; length <= maxLength; length++) {
+            Arrays.fill(digits, 0);
+            while (true) {
+                for (int i = 0; i < length; i++) {
+                    chars[i] = alphabet.charAt(digits[i]);
+                }
+                compare(name, new String(chars, 0, length), expected, actual);
+                checked++;
+                int position = length - 1;
+                while (position >= 0 && ++digits[position] == alphabet.length()) {
+                    digits[position--] = 0;
+                }
+                if (position < 0) {
+                    break;
+                }
+            }
+        }
+        System.out.printf(Locale.ROOT, "%-34s %,12d strings%n", name + " exhaustive", checked);
+    }
+    
+    // Random strings, and random edits of valid values to stay near the boundary
+    private void random(String name, SplittableRandom random, int count, String[] valid,
+                        Predicate<String> expected, Predicate<String> actual) {
+        StringBuilder text = new StringBuilder();
+        int accepted = 0;
+        for (int n = 0; n < count; n++) {
+            text.setLength(0);
+            if ((n & 1) == 0) {
+                int length = random.nextInt(16);
+                for (int i = 0; i < length; i++) {
+                    text.append(WIDE_ALPHABET.charAt(random.nextInt(WIDE_ALPHABET.length())));
+                }
+            } else {
+                text.append(valid[random.nextInt(valid.length)]);
+                int edits = 1 + random.nextInt(3);
+                for (int e = 0; e < edits; e++) {
+                    int position = random.nextInt(text.length() + 1);
+                    char c = WIDE_ALPHABET.charAt(random.nextInt(WIDE_ALPHABET.length()));
+                    switch (random.nextInt(3)) {
+                        case 0:
+                            text.insert(position, c);
+                            break;
+                        case 1:
+                            if (position < text.length()) {
+                                text.deleteCharAt(position);
+                            }
+                            break;
+                        default:
+                            if (position < text.length()) {
+                                text.setCharAt(position, c);
+                            }
+                    }
+                }
+            }
+            if (compare(name, text.toString(), expected, actual)) {
+                accepted++;
+            }
+        }
+        System.out.printf(Locale.ROOT, "%-34s %,12d strings, %,d valid%n", name + " random", count, accepted);
+    }
+    
+    private boolean compare(String name, String input, Predicate<String> expected, Predicate<String> actual) {
+        boolean want = expected.test(input);
+        if (want != actual.test(input)) {
+            if (++mismatches <= MAX_REPORTED) {
+                System.out.println("MISMATCH " + name + ": " + escape(input) + " regex=" + want);
+            }
+        }
+        return want;
+    }
+    
+    private static void time(String name, String[] inputs, Predicate<String> regex, Predicate<String> validator) {
+        for (int round = 0; round < 3; round++) {
+            long regexNanos = run(inputs, regex);
+            long validatorNanos = run(inputs, validator);
+            if (round == 2) {
+                System.out.printf(Locale.ROOT, "%-34s regex %6.1f ns, validator %6.1f ns%n", name + " per check",
+                        regexNanos / (double) TIMED_CHECKS, validatorNanos / (double) TIMED_CHECKS);
+            }
+        }
+    }
+    
+    private static long run(String[] inputs, Predicate<String> check) {
+        int valid = 0;
+        long start = System.nanoTime();
+        for (int i = 0; i < TIMED_CHECKS; i++) {
+            if (check.test(inputs[i % inputs.length])) {
+                valid++;
+            }
+        }
+        long elapsed = System.nanoTime() - start;
+        sink = valid;
+        return elapsed;
+    }
+    
+    private static boolean constructs(String code) {
+        try {
+            new Course(code, "Check", 1);
+            return true;
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+    
+    private static Predicate<String> matcher(Pattern pattern) {
+        return s -> pattern.matcher(s).matches();
+    }
+    
+    private static String buildWideAlphabet() {
+        StringBuilder alphabet = new StringBuilder();
+        for (char c = 0; c < 128; c++) {
+            alphabet.append(c);
+        }
+        // Letters and digits outside ASCII, line terminators, and characters whose upper case is ASCII
+        alphabet.append("\u00e9\u00c9\u0131\u0130\u00df\u017f\ufb00\u0660\uff11\u0085\u2028\u00a0");
+        return alphabet.toString();
+    }
+    
+    private static String escape(String input) {
+        StringBuilder text = new StringBuilder("\"");
+        for (int i = 0; i < input.length(); i++) {
+            char c = input.charAt(i);
+            if (c < 0x20 || c > 0x7e) {
+                text.append(String.format(Locale.ROOT, "\\u%04x", (int) c));
+            } else {
+                text.append(c);
+            }
+        }
+        return text.append('"').toString();
+    }
+    
+    private static Map<String, String> parseOptions(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            if (!args[i].startsWith("--")) {
+                throw new IllegalArgumentException("Expected an option but got " + args[i]);
+            }
+            options.put(args[i].substring(2), args[i + 1]);
+        }
+        return options;
+    }
+}
@@ -0,0 +1,223 @@
+package com.registration.event;
+
+import com.registration.model.Course;
+import com.registration.model.Person;
+import java.io.Flushable;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Listener that hands events to a background thread through a fixed-size
+ * ring buffer and forwards them to a delegate there. Publishing only claims
+ * a slot and stores references, so registration threads never wait on
+ * the delegate (for example on the System.out lock).
+ *
+ * When the buffer is full, publishers wait for the consumer to free a slot
+ * rather than dropping events: they spin briefly, then park with a growing
+ * timeout, so a slow delegate does not keep them burning CPU while they
+ * hold entity locks. A consumer that has found nothing for a millisecond
+ * parks until a publisher wakes it.
+ *
+ * Closing adds CLOSED to the claim counter in the same atomic step that
+ * fixes the last sequence the consumer has to deliver, so every event is
+ * either claimed before that point and drained, or claimed after it and
+ * delivered by its publisher.
+ */
+public class AsyncListener implements RegistrationListener, AutoCloseable {
+    private static final long IDLE_PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(100);
+    private static final int IDLE_POLLS = 10;
+    private static final int FULL_SPINS = 100;
+    private static final long MIN_FULL_PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(1);
+    private static final long MAX_FULL_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+    private static final long CLOSED = 1L << 62;
+    
+    private final RegistrationListener delegate;
+    private final int mask;
+    private final RegistrationEvent[] events;
+    private final Person[] persons;
+    private final Course[] courses;
+    private final String[] keys;
+    
+    // Sequence stored in a slot once its fields are written; -1 while empty
+    private final AtomicLongArray published;
+    // Next sequence to claim, plus CLOSED once closed
+    private final AtomicLong claimed = new AtomicLong();
+    private volatile long consumed;
+    private volatile long closedAt = Long.MAX_VALUE; // Sequences below this are drained
+    private final Thread consumer;
+    private volatile boolean consumerParked; // Publishers unpark the consumer while set
+    
+    /**
+     * Constructor for AsyncListener with a 64k-slot buffer
+     * @param delegate The listener that receives events on the background thread
+     */
+    public AsyncListener(RegistrationListener delegate) {
+        this(delegate, 1 << 16);
+    }
+    
+    /**
+     * Constructor for AsyncListener
+     * @param delegate The listener that receives events on the background thread
+     * @param capacity Number of buffered events, rounded up to a power of two
+     */
+    public AsyncListener(RegistrationListener delegate, int capacity) {
+        if (delegate == null) {
+            throw new IllegalArgumentException("Delegate listener cannot be null");
+        }
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Capacity must be greater than 0");
+        }
+        int size = 1;
+        while (size < capacity) {
+            size <<= 1;
+        }
+        this.delegate = delegate;
+        this.mask = size - 1;
+        this.events = new RegistrationEvent[size];
+        this.persons = new Person[size];
+        this.courses = new Course[size];
+        this.keys = new String[size];
+        this.published = new AtomicLongArray(size);
+        for (int i = 0; i < size; i++) {
+            published.set(i, -1);
+        }
+        this.consumer = new Thread(this::drainLoop, "registration-events");
+        this.consumer.setDaemon(true);
+        this.consumer.start();
+    }
+    
+    @Override
+    public void onEvent(RegistrationEvent event, Person person, Course course, String key) {
+        long sequence = claimed.getAndIncrement();
+        if (sequence >= CLOSED) {
+            deliver(event, person, course, key); // Closed: deliver on the caller's thread
+            return;
+        }
+        if (sequence - consumed > mask) {
+            awaitSlot(sequence);
+        }
+        int slot = (int) sequence & mask;
+        events[slot] = event;
+        persons[slot] = person;
+        courses[slot] = course;
+        keys[slot] = key;
+        published.set(slot, sequence);
+        if (consumerParked) {
+            consumerParked = false; // Later publishers skip the unpark until the consumer parks again
+            LockSupport.unpark(consumer);
+        }
+    }
+    
+    // Buffer full: spin briefly, then park with a growing timeout until the consumer frees the slot
+    private void awaitSlot(long sequence) {
+        int spins = 0;
+        long parkNanos = MIN_FULL_PARK_NANOS;
+        while (sequence - consumed > mask) {
+            if (spins < FULL_SPINS) {
+                spins++;
+                Thread.onSpinWait();
+            } else {
+                LockSupport.parkNanos(this, parkNanos);
+                parkNanos = Math.min(parkNanos * 2, MAX_FULL_PARK_NANOS);
+            }
+        }
+    }
+    
+    /**
+     * Get the number of events published but not yet delivered
+     * @return Events waiting in the buffer
+     */
+    public long getPendingCount() {
+        long claimedCount = claimed.get();
+        if (claimedCount >= CLOSED) {
+            claimedCount = Math.min(closedAt, claimedCount - CLOSED);
+        }
+        return Math.max(0, claimedCount - consumed);
+    }
+    
+    /**
+     * Deliver everything already published and stop the background thread.
+     * Events published after closing are delivered on the caller's thread.
+     */
+    @Override
+    public void close() {
+        long end;
+        do {
+            end = claimed.get();
+        } while (end < CLOSED && !claimed.compareAndSet(end, end + CLOSED));
+        if (end < CLOSED) {
+            closedAt = end;
+        }
+        LockSupport.unpark(consumer);
+        try {
+            consumer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+    
+    private void drainLoop() {
+        long next = 0;
+        boolean delivered = false;
+        int idlePolls = 0;
+        while (true) {
+            int slot = (int) next & mask;
+            if (published.get(slot) == next) {
+                RegistrationEvent event = events[slot];
+                Person person = persons[slot];
+                Course course = courses[slot];
+                String key = keys[slot];
+                persons[slot] = null;
+                courses[slot] = null;
+                keys[slot] = null;
+                consumed = ++next;
+                deliver(event, person, course, key);
+                delivered = true;
+                idlePolls = 0;
+                continue;
+            }
+            // Buffer is empty (or the next slot is still being written)
+            if (delivered) {
+                flushDelegate();
+                delivered = false;
+            }
+            if (next >= closedAt) {
+                return;
+            }
+            // Poll briefly so bursts are drained in batches, then block until a publisher unparks us
+            if (idlePolls < IDLE_POLLS) {
+                idlePolls++;
+                LockSupport.parkNanos(this, IDLE_PARK_NANOS);
+                continue;
+            }
+            // Set before the re-check, so a publisher either sees it or is seen here
+            consumerParked = true;
+            if (published.get(slot) != next && next < closedAt) {
+                LockSupport.park(this);
+            }
+            consumerParked = false;
+        }
+    }
+    
+    private void deliver(RegistrationEvent event, Person person, Course course, String key) {
+        try {
+            delegate.onEvent(event, person, course, key);
+        } catch (RuntimeException e) {
+            // A failing sink must not stop delivery of later events
+            System.err.println("Event listener failed: " + e.getMessage());
+        }
+    }
+    
+    private void flushDelegate() {
+        if (delegate instanceof Flushable) {
+            try {
+                ((Flushable) delegate).flush();
+            } catch (IOException e) {
+                System.err.println("Event listener flush failed: " + e.getMessage());
+            }
+        }
+    }
+}
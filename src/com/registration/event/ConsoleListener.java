@@ -0,0 +1,45 @@
+package com.registration.event;
+
+import com.registration.model.Course;
+import com.registration.model.Person;
+import java.io.Flushable;
+import java.io.PrintStream;
+
+/**
+ * Listener that prints each event as a line of text, producing the same
+ * messages the system has always written to the console.
+ */
+public class ConsoleListener implements RegistrationListener, Flushable {
+    private final PrintStream out;
+    
+    /**
+     * Constructor for ConsoleListener writing to System.out
+     */
+    public ConsoleListener() {
+        this(System.out);
+    }
+    
+    /**
+     * Constructor for ConsoleListener
+     * @param out The stream to print messages to
+     */
+    public ConsoleListener(PrintStream out) {
+        if (out == null) {
+            throw new IllegalArgumentException("Output stream cannot be null");
+        }
+        this.out = out;
+    }
+    
+    @Override
+    public void onEvent(RegistrationEvent event, Person person, Course course, String key) {
+        String message = event.describe(person, course, key);
+        if (message != null) {
+            out.println(message);
+        }
+    }
+    
+    @Override
+    public void flush() {
+        out.flush();
+    }
+}
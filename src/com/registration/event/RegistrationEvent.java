@@ -0,0 +1,141 @@
+package com.registration.event;
+
+import com.registration.model.Course;
+import com.registration.model.Person;
+
+/**
+ * Outcomes reported by the model classes and the RegistrationSystem.
+ * Each event carries the entities involved rather than a message, so the
+ * message text is only built by sinks that actually print it.
+ */
+public enum RegistrationEvent {
+    // Course roster changes
+    REGISTERED,
+    ALREADY_REGISTERED,
+    COURSE_FULL,
+    REMOVED,
+    NOT_REGISTERED,
+    COURSE_FILLED,   // The last seat was taken
+    COURSE_REOPENED, // A seat became free in a full course
+    CAPACITY_CHANGED, // Maximum students changed; not printed
+    CREDITS_CHANGED,  // Credit hours changed; not printed
+    SCHEDULE_CHANGED, // Meeting times changed; not printed
+    
+    // Waitlist changes. For WAITLISTED the key is the student's priority.
+    WAITLISTED,
+    ALREADY_WAITLISTED,
+    LEFT_WAITLIST,
+    NOT_WAITLISTED,
+    PROMOTED,
+    
+    // Student enrollment changes
+    ENROLLED,
+    ALREADY_ENROLLED,
+    DROPPED,
+    NOT_ENROLLED,
+    SCHEDULE_CONFLICT,
+    REQUIREMENTS_NOT_MET,
+    ENROLLMENT_DENIED, // Rejected by the student's enrollment policy
+    
+    // Course requirements; not printed. For the *REQUISITE_ADDED events the
+    // key is the code of the required course.
+    PREREQUISITE_ADDED,
+    COREQUISITE_ADDED,
+    COURSE_COMPLETED,
+    
+    // Entity details changed after creation; not printed. When the ID or
+    // code changed, the key is the previous one; a listener may refuse
+    // the new one by throwing IllegalArgumentException, which undoes it.
+    PERSON_RENAMED, // Name, email or ID of a student or instructor
+    COURSE_RENAMED, // Code or name of a course
+    TIER_CHANGED,   // Registration tier of a student
+    
+    // Instructor assignments
+    ASSIGNED,
+    ALREADY_ASSIGNED,
+    UNASSIGNED,
+    NOT_ASSIGNED,
+    
+    // System catalog changes and lookups
+    STUDENT_ADDED,
+    DUPLICATE_STUDENT,
+    INSTRUCTOR_ADDED,
+    DUPLICATE_INSTRUCTOR,
+    COURSE_ADDED,
+    DUPLICATE_COURSE,
+    STUDENT_NOT_FOUND,
+    INSTRUCTOR_NOT_FOUND,
+    COURSE_NOT_FOUND;
+    
+    /**
+     * Build the console message for this event
+     * @param person The student or instructor involved, may be null
+     * @param course The course involved, may be null
+     * @param key The ID or code that was looked up, for *_NOT_FOUND events
+     * @return The message text, or null if the event is not printed
+     */
+    public String describe(Person person, Course course, String key) {
+        switch (this) {
+            case REGISTERED:
+                return "Student " + person.getName() + " successfully registered for " + course.getCourseCode();
+            case ALREADY_REGISTERED:
+                return "Student " + person.getName() + " is already registered for " + course.getCourseCode();
+            case COURSE_FULL:
+                return "Course " + course.getCourseCode() + " is full. Cannot register " + person.getName();
+            case REMOVED:
+                return "Student " + person.getName() + " successfully removed from " + course.getCourseCode();
+            case NOT_REGISTERED:
+                return "Student " + person.getName() + " is not registered for " + course.getCourseCode();
+            case WAITLISTED:
+                return "Course " + course.getCourseCode() + " is full. " + person.getName() + " added to the waitlist";
+            case ALREADY_WAITLISTED:
+                return "Student " + person.getName() + " is already on the waitlist for " + course.getCourseCode();
+            case LEFT_WAITLIST:
+                return "Student " + person.getName() + " left the waitlist for " + course.getCourseCode();
+            case NOT_WAITLISTED:
+                return "Student " + person.getName() + " is not on the waitlist for " + course.getCourseCode();
+            case PROMOTED:
+                return "Student " + person.getName() + " promoted from the waitlist of " + course.getCourseCode();
+            case ALREADY_ENROLLED:
+                return "Student " + person.getName() + " is already enrolled in " + course.getCourseCode();
+            case SCHEDULE_CONFLICT:
+                return "Course " + course.getCourseCode() + " conflicts with the schedule of " + person.getName();
+            case REQUIREMENTS_NOT_MET:
+                return "Student " + person.getName() + " does not meet the requirements of " + course.getCourseCode();
+            case ENROLLMENT_DENIED:
+                return "Enrollment of " + person.getName() + " in " + course.getCourseCode() + " was denied by policy";
+            case DROPPED:
+                return "Student " + person.getName() + " successfully dropped " + course.getCourseCode();
+            case NOT_ENROLLED:
+                return "Student " + person.getName() + " is not enrolled in " + course.getCourseCode();
+            case ASSIGNED:
+                return "Instructor " + person.getName() + " successfully assigned to " + course.getCourseCode();
+            case ALREADY_ASSIGNED:
+                return "Instructor " + person.getName() + " is already assigned to " + course.getCourseCode();
+            case UNASSIGNED:
+                return "Instructor " + person.getName() + " unassigned from " + course.getCourseCode();
+            case NOT_ASSIGNED:
+                return "Instructor " + person.getName() + " is not assigned to " + course.getCourseCode();
+            case STUDENT_ADDED:
+                return "Student " + person.getName() + " added to the system";
+            case DUPLICATE_STUDENT:
+                return "Student with ID " + person.getId() + " already exists";
+            case INSTRUCTOR_ADDED:
+                return "Instructor " + person.getName() + " added to the system";
+            case DUPLICATE_INSTRUCTOR:
+                return "Instructor with ID " + person.getId() + " already exists";
+            case COURSE_ADDED:
+                return "Course " + course.getCourseCode() + " added to the system";
+            case DUPLICATE_COURSE:
+                return "Course with code " + course.getCourseCode() + " already exists";
+            case STUDENT_NOT_FOUND:
+                return "Student with ID " + key + " not found";
+            case INSTRUCTOR_NOT_FOUND:
+                return "Instructor with ID " + key + " not found";
+            case COURSE_NOT_FOUND:
+                return "Course with code " + key + " not found";
+            default:
+                return null;
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package com.registration.event;
+
+import com.registration.model.Course;
+import com.registration.model.Person;
+
+/**
+ * Receives the outcome of every registration operation.
+ * Listeners are called on the thread performing the operation, often while
+ * the student or course involved is locked, so implementations must be
+ * fast and must not call back into the registration API.
+ */
+@FunctionalInterface
+public interface RegistrationListener {
+    /**
+     * Listener that ignores every event; the default for new entities and systems
+     */
+    RegistrationListener NO_OP = (event, person, course, key) -> { };
+    
+    /**
+     * Called once per outcome
+     * @param event What happened
+     * @param person The student or instructor involved, may be null
+     * @param course The course involved, may be null
+     * @param key The ID or code that was looked up, for *_NOT_FOUND events
+     */
+    void onEvent(RegistrationEvent event, Person person, Course course, String key);
+}
@@ -0,0 +1,13 @@
+package com.registration.export;
+
+/**
+ * Formats RegistrationExporter can write
+ */
+public enum ExportFormat {
+    /** The blocks printed by the display methods */
+    TEXT,
+    /** One header row, then one row per enrollment or assignment */
+    CSV,
+    /** One object per course, student or instructor; lists are arrays */
+    JSON
+}
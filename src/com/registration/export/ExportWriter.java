@@ -0,0 +1,249 @@
+package com.registration.export;
+
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Buffered writer onto an OutputStream, a WritableByteChannel or any
+ * Appendable such as a PrintStream.
+ *
+ * Characters collect in one fixed buffer and are encoded into one fixed
+ * byte buffer by a single CharsetEncoder, all allocated up front and reused
+ * until the writer is closed. Memory use therefore does not depend on how
+ * much is written, however large the export.
+ *
+ * Like other writers it is meant for one thread at a time. Channels must
+ * be in blocking mode.
+ */
+public final class ExportWriter extends Writer {
+    private static final int BUFFER_SIZE = 8192;
+    
+    private final char[] chars = new char[BUFFER_SIZE];
+    private final CharBuffer pending = CharBuffer.wrap(chars);
+    private int count;
+    
+    // Exactly one target is set; the encoder and bytes only for byte targets
+    private final OutputStream stream;
+    private final WritableByteChannel channel;
+    private final Appendable text;
+    private final CharsetEncoder encoder;
+    private final ByteBuffer bytes;
+    private boolean closed;
+    
+    /**
+     * Constructor for ExportWriter encoding UTF-8 onto a stream
+     * @param out The stream to write to
+     */
+    public ExportWriter(OutputStream out) {
+        this(out, StandardCharsets.UTF_8);
+    }
+    
+    /**
+     * Constructor for ExportWriter
+     * @param out The stream to write to
+     * @param charset The encoding of the bytes written
+     */
+    public ExportWriter(OutputStream out, Charset charset) {
+        this(requireTarget(out), null, null, charset);
+    }
+    
+    /**
+     * Constructor for ExportWriter encoding UTF-8 onto a channel
+     * @param out The channel to write to, e.g. a FileChannel
+     */
+    public ExportWriter(WritableByteChannel out) {
+        this(out, StandardCharsets.UTF_8);
+    }
+    
+    /**
+     * Constructor for ExportWriter
+     * @param out The channel to write to
+     * @param charset The encoding of the bytes written
+     */
+    public ExportWriter(WritableByteChannel out, Charset charset) {
+        this(null, requireTarget(out), null, charset);
+    }
+    
+    /**
+     * Constructor for ExportWriter passing characters on in blocks, without
+     * encoding them
+     * @param out Where to append, e.g. a StringBuilder
+     */
+    public ExportWriter(Appendable out) {
+        this(null, null, requireTarget(out), null);
+    }
+    
+    /**
+     * Constructor for ExportWriter printing in blocks, so the stream encodes
+     * them with its own charset, as println does
+     * @param out The stream to print to, e.g. System.out
+     */
+    public ExportWriter(PrintStream out) {
+        this((Appendable) out);
+    }
+    
+    private ExportWriter(OutputStream stream, WritableByteChannel channel, Appendable text, Charset charset) {
+        if (text == null && charset == null) {
+            throw new IllegalArgumentException("Charset cannot be null");
+        }
+        this.stream = stream;
+        this.channel = channel;
+        this.text = text;
+        if (text == null) {
+            this.encoder = charset.newEncoder()
+                    .onMalformedInput(CodingErrorAction.REPLACE)
+                    .onUnmappableCharacter(CodingErrorAction.REPLACE);
+            this.bytes = ByteBuffer.allocate(BUFFER_SIZE * 2);
+        } else {
+            this.encoder = null;
+            this.bytes = null;
+        }
+    }
+    
+    private static <T> T requireTarget(T target) {
+        if (target == null) {
+            throw new IllegalArgumentException("Output cannot be null");
+        }
+        return target;
+    }
+    
+    @Override
+    public void write(int c) throws IOException {
+        ensureOpen();
+        if (count == chars.length) {
+            drain(false);
+        }
+        chars[count++] = (char) c;
+    }
+    
+    @Override
+    public void write(char[] source, int offset, int length) throws IOException {
+        ensureOpen();
+        while (length > 0) {
+            if (count == chars.length) {
+                drain(false);
+            }
+            int n = Math.min(length, chars.length - count);
+            System.arraycopy(source, offset, chars, count, n);
+            count += n;
+            offset += n;
+            length -= n;
+        }
+    }
+    
+    @Override
+    public void write(String source, int offset, int length) throws IOException {
+        ensureOpen();
+        while (length > 0) {
+            if (count == chars.length) {
+                drain(false);
+            }
+            int n = Math.min(length, chars.length - count);
+            source.getChars(offset, offset + n, chars, count);
+            count += n;
+            offset += n;
+            length -= n;
+        }
+    }
+    
+    /**
+     * Pass everything written so far on to the target and flush it
+     */
+    @Override
+    public void flush() throws IOException {
+        ensureOpen();
+        drain(false);
+        if (stream != null) {
+            stream.flush();
+        } else if (text instanceof Flushable) {
+            ((Flushable) text).flush();
+        }
+    }
+    
+    /**
+     * Flush, then close the stream or channel. An Appendable or PrintStream
+     * is only flushed, so wrapping System.out does not close it.
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        try {
+            drain(true);
+            if (encoder != null) {
+                while (encoder.flush(bytes).isOverflow()) {
+                    writeBytes();
+                }
+                writeBytes();
+            }
+            if (stream != null) {
+                stream.flush();
+            } else if (text instanceof Flushable) {
+                ((Flushable) text).flush();
+            }
+        } finally {
+            closed = true;
+            if (stream != null) {
+                stream.close();
+            } else if (channel != null) {
+                channel.close();
+            }
+        }
+    }
+    
+    private void ensureOpen() throws IOException {
+        if (closed) {
+            throw new IOException("Writer is closed");
+        }
+    }
+    
+    // Hands the buffered characters to the target. A high surrogate at the
+    // end stays buffered until its pair arrives, unless this is the end.
+    private void drain(boolean endOfInput) throws IOException {
+        if (count == 0 && !endOfInput) {
+            return;
+        }
+        pending.limit(count).position(0);
+        if (text != null) {
+            text.append(pending);
+            count = 0;
+            return;
+        }
+        while (true) {
+            CoderResult result = encoder.encode(pending, bytes, endOfInput);
+            if (result.isOverflow()) {
+                writeBytes();
+            } else {
+                break; // Underflow: everything that can be encoded was
+            }
+        }
+        writeBytes();
+        int left = pending.remaining();
+        System.arraycopy(chars, pending.position(), chars, 0, left);
+        count = left;
+    }
+    
+    private void writeBytes() throws IOException {
+        bytes.flip();
+        if (stream != null) {
+            stream.write(bytes.array(), 0, bytes.limit());
+        } else {
+            while (bytes.hasRemaining()) {
+                channel.write(bytes);
+            }
+        }
+        bytes.clear();
+    }
+}
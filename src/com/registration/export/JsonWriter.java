@@ -0,0 +1,134 @@
+package com.registration.export;
+
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * Minimal streaming JSON writer. Values are written to the underlying
+ * writer as they come, so a large roster is never built in memory.
+ * Commas are inserted automatically; callers only open and close scopes.
+ * Used by RegistrationExporter and the HTTP API.
+ */
+public final class JsonWriter {
+    private static final int MAX_DEPTH = 32;
+    
+    private final Writer out;
+    // Whether the scope at each depth has no element yet
+    private final boolean[] empty = new boolean[MAX_DEPTH];
+    private int depth;
+    private boolean afterName;
+    
+    public JsonWriter(Writer out) {
+        this.out = out;
+        this.empty[0] = true;
+    }
+    
+    public JsonWriter beginObject() throws IOException {
+        return open('{');
+    }
+    
+    public JsonWriter endObject() throws IOException {
+        return close('}');
+    }
+    
+    public JsonWriter beginArray() throws IOException {
+        return open('[');
+    }
+    
+    public JsonWriter endArray() throws IOException {
+        return close(']');
+    }
+    
+    public JsonWriter name(String name) throws IOException {
+        separate();
+        string(name);
+        out.write(':');
+        afterName = true;
+        return this;
+    }
+    
+    public JsonWriter value(String value) throws IOException {
+        separate();
+        if (value == null) {
+            out.write("null");
+        } else {
+            string(value);
+        }
+        return this;
+    }
+    
+    public JsonWriter value(long value) throws IOException {
+        separate();
+        out.write(Long.toString(value));
+        return this;
+    }
+    
+    public JsonWriter value(boolean value) throws IOException {
+        separate();
+        out.write(value ? "true" : "false");
+        return this;
+    }
+    
+    private JsonWriter open(char bracket) throws IOException {
+        separate();
+        if (depth + 1 >= MAX_DEPTH) {
+            throw new IllegalStateException("JSON nested too deeply");
+        }
+        out.write(bracket);
+        empty[++depth] = true;
+        return this;
+    }
+    
+    private JsonWriter close(char bracket) throws IOException {
+        if (depth == 0) {
+            throw new IllegalStateException("No open JSON scope");
+        }
+        out.write(bracket);
+        depth--;
+        return this;
+    }
+    
+    private void separate() throws IOException {
+        if (afterName) {
+            afterName = false; // The value belongs to the name just written
+            return;
+        }
+        if (!empty[depth]) {
+            out.write(',');
+        }
+        empty[depth] = false;
+    }
+    
+    private void string(String value) throws IOException {
+        out.write('"');
+        int start = 0;
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"' || c == '\\' || c < 0x20) {
+                out.write(value, start, i - start);
+                switch (c) {
+                    case '"':
+                        out.write("\\\"");
+                        break;
+                    case '\\':
+                        out.write("\\\\");
+                        break;
+                    case '\n':
+                        out.write("\\n");
+                        break;
+                    case '\r':
+                        out.write("\\r");
+                        break;
+                    case '\t':
+                        out.write("\\t");
+                        break;
+                    default:
+                        out.write(String.format("\\u%04x", (int) c));
+                }
+                start = i + 1;
+            }
+        }
+        out.write(value, start, value.length() - start);
+        out.write('"');
+    }
+}
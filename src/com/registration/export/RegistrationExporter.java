@@ -0,0 +1,506 @@
+package com.registration.export;
+
+import com.registration.model.Course;
+import com.registration.model.Instructor;
+import com.registration.model.MeetingTime;
+import com.registration.model.Student;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.util.List;
+
+/**
+ * Streams course rosters, student schedules and instructor loads to a
+ * Writer as text, CSV or JSON.
+ *
+ * Every entity is written field by field as it is visited, reading rosters
+ * and course lists through the model's shared read-only views, so nothing
+ * proportional to the export is built in memory. Wrap an OutputStream or
+ * channel in an ExportWriter, which encodes through fixed, reused buffers.
+ * A nightly export of every roster looks like:
+ * <pre>
+ *   try (ExportWriter out = new ExportWriter(FileChannel.open(path, CREATE, WRITE))) {
+ *       RegistrationExporter.CSV.writeRosters(system.getCoursesView(), out);
+ *   }
+ * </pre>
+ * The exporters hold no state and may be shared between threads. They do
+ * not flush or close the writer.
+ *
+ * TEXT is exactly what the display methods print; they are built on it.
+ * CSV writes one header row and then one row per registered student,
+ * enrolled course or assigned course, so entities without any are left out.
+ */
+public final class RegistrationExporter {
+    public static final RegistrationExporter TEXT = new RegistrationExporter(ExportFormat.TEXT);
+    public static final RegistrationExporter CSV = new RegistrationExporter(ExportFormat.CSV);
+    public static final RegistrationExporter JSON = new RegistrationExporter(ExportFormat.JSON);
+    
+    private static final String NEWLINE = System.lineSeparator();
+    private static final String ROSTER_HEADER = "course_code,course_name,student_id,student_name,student_email";
+    private static final String SCHEDULE_HEADER = "student_id,student_name,course_code,course_name,credits";
+    private static final String LOAD_HEADER = "instructor_id,instructor_name,course_code,course_name,enrollment,max_students";
+    
+    private final ExportFormat format;
+    
+    private RegistrationExporter(ExportFormat format) {
+        this.format = format;
+    }
+    
+    /**
+     * Get the exporter for a format
+     * @param format TEXT, CSV or JSON
+     * @return The shared exporter
+     */
+    public static RegistrationExporter of(ExportFormat format) {
+        if (format == null) {
+            throw new IllegalArgumentException("Format cannot be null");
+        }
+        switch (format) {
+            case CSV:
+                return CSV;
+            case JSON:
+                return JSON;
+            default:
+                return TEXT;
+        }
+    }
+    
+    public ExportFormat getFormat() {
+        return format;
+    }
+    
+    /**
+     * Something written to a Writer, for print
+     */
+    @FunctionalInterface
+    public interface Export {
+        void writeTo(Writer out) throws IOException;
+    }
+    
+    /**
+     * Write to System.out through a buffer, flushed when done.
+     * Used by the display methods.
+     * @param export What to write
+     */
+    public static void print(Export export) {
+        ExportWriter out = new ExportWriter(System.out);
+        try {
+            export.writeTo(out);
+            out.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e); // PrintStream does not throw
+        }
+    }
+    
+    // Course rosters
+    
+    /**
+     * Write one course and its registered students
+     * @param course The course
+     * @param out Where to write
+     */
+    public void writeRoster(Course course, Writer out) throws IOException {
+        requireArguments(course, out);
+        switch (format) {
+            case CSV:
+                line(out, ROSTER_HEADER);
+                csvRoster(course, out);
+                break;
+            case JSON:
+                jsonRoster(course, new JsonWriter(out));
+                break;
+            default:
+                textRoster(course, out);
+        }
+    }
+    
+    /**
+     * Write courses and their registered students, in iteration order
+     * @param courses The courses, e.g. RegistrationSystem.getCoursesView()
+     * @param out Where to write
+     */
+    public void writeRosters(List<Course> courses, Writer out) throws IOException {
+        requireArguments(courses, out);
+        switch (format) {
+            case CSV:
+                line(out, ROSTER_HEADER);
+                for (Course course : courses) {
+                    csvRoster(course, out);
+                }
+                break;
+            case JSON:
+                JsonWriter json = new JsonWriter(out).beginArray();
+                for (Course course : courses) {
+                    jsonRoster(course, json);
+                }
+                json.endArray();
+                break;
+            default:
+                line(out, "\n========== ALL COURSES ==========");
+                if (courses.isEmpty()) {
+                    line(out, "No courses in the system.");
+                } else {
+                    for (Course course : courses) {
+                        textRoster(course, out);
+                    }
+                }
+                line(out, "=================================");
+        }
+    }
+    
+    private static void textRoster(Course course, Writer out) throws IOException {
+        List<Student> students = course.getRegisteredStudentsView();
+        line(out, "\n=== Course Information ===");
+        out.write("Course Code: ");
+        line(out, course.getCourseCode());
+        out.write("Course Name: ");
+        line(out, course.getCourseName());
+        out.write("Enrollment: ");
+        out.write(Integer.toString(students.size()));
+        out.write('/');
+        line(out, Integer.toString(course.getMaxStudents()));
+        List<MeetingTime> meetings = course.getMeetingTimes();
+        if (!meetings.isEmpty()) {
+            out.write("Meeting Times: ");
+            for (int i = 0; i < meetings.size(); i++) {
+                if (i > 0) {
+                    out.write(", ");
+                }
+                out.write(meetings.get(i).toString());
+            }
+            out.write(NEWLINE);
+        }
+        textCodes(out, "Prerequisites: ", course.getPrerequisites());
+        textCodes(out, "Corequisites: ", course.getCorequisites());
+        
+        if (students.isEmpty()) {
+            line(out, "No students registered.");
+        } else {
+            line(out, "Registered Students:");
+            for (Student student : students) {
+                out.write("  - ");
+                out.write(student.getName());
+                out.write(" (ID: ");
+                out.write(student.getId());
+                line(out, ")");
+            }
+        }
+        line(out, "=========================");
+    }
+    
+    private static void csvRoster(Course course, Writer out) throws IOException {
+        for (Student student : course.getRegisteredStudentsView()) {
+            csvField(out, course.getCourseCode());
+            csvNext(out, course.getCourseName());
+            csvNext(out, student.getId());
+            csvNext(out, student.getName());
+            csvNext(out, student.getEmail());
+            out.write(NEWLINE);
+        }
+    }
+    
+    private static void jsonRoster(Course course, JsonWriter json) throws IOException {
+        json.beginObject()
+                .name("code").value(course.getCourseCode())
+                .name("name").value(course.getCourseName())
+                .name("credits").value(course.getCredits())
+                .name("maxStudents").value(course.getMaxStudents())
+                .name("enrollment").value(course.getCurrentEnrollment())
+                .name("students").beginArray();
+        for (Student student : course.getRegisteredStudentsView()) {
+            json.beginObject()
+                    .name("id").value(student.getId())
+                    .name("name").value(student.getName())
+                    .name("email").value(student.getEmail())
+                    .endObject();
+        }
+        json.endArray().endObject();
+    }
+    
+    // Student schedules
+    
+    /**
+     * Write one student and the courses they are enrolled in
+     * @param student The student
+     * @param out Where to write
+     */
+    public void writeSchedule(Student student, Writer out) throws IOException {
+        requireArguments(student, out);
+        switch (format) {
+            case CSV:
+                line(out, SCHEDULE_HEADER);
+                csvSchedule(student, out);
+                break;
+            case JSON:
+                jsonSchedule(student, new JsonWriter(out));
+                break;
+            default:
+                textSchedule(student, out);
+        }
+    }
+    
+    /**
+     * Write students and the courses they are enrolled in, in iteration order
+     * @param students The students, e.g. RegistrationSystem.getStudentsView()
+     * @param out Where to write
+     */
+    public void writeSchedules(List<Student> students, Writer out) throws IOException {
+        requireArguments(students, out);
+        switch (format) {
+            case CSV:
+                line(out, SCHEDULE_HEADER);
+                for (Student student : students) {
+                    csvSchedule(student, out);
+                }
+                break;
+            case JSON:
+                JsonWriter json = new JsonWriter(out).beginArray();
+                for (Student student : students) {
+                    jsonSchedule(student, json);
+                }
+                json.endArray();
+                break;
+            default:
+                line(out, "\n========== ALL STUDENTS ==========");
+                if (students.isEmpty()) {
+                    line(out, "No students in the system.");
+                } else {
+                    for (Student student : students) {
+                        textSchedule(student, out);
+                    }
+                }
+                line(out, "==================================");
+        }
+    }
+    
+    private static void textSchedule(Student student, Writer out) throws IOException {
+        List<Course> courses = student.getEnrolledCoursesView();
+        line(out, "\n=== Student Details ===");
+        out.write("Name: ");
+        line(out, student.getName());
+        out.write("Email: ");
+        line(out, student.getEmail());
+        out.write("Student ID: ");
+        line(out, student.getId());
+        out.write("Enrolled Courses: ");
+        line(out, Integer.toString(courses.size()));
+        
+        if (courses.isEmpty()) {
+            line(out, "No courses enrolled.");
+        } else {
+            line(out, "Course List:");
+            for (Course course : courses) {
+                out.write("  - ");
+                out.write(course.getCourseCode());
+                out.write(": ");
+                line(out, course.getCourseName());
+            }
+        }
+        line(out, "======================");
+    }
+    
+    private static void csvSchedule(Student student, Writer out) throws IOException {
+        for (Course course : student.getEnrolledCoursesView()) {
+            csvField(out, student.getId());
+            csvNext(out, student.getName());
+            csvNext(out, course.getCourseCode());
+            csvNext(out, course.getCourseName());
+            out.write(',');
+            out.write(Integer.toString(course.getCredits()));
+            out.write(NEWLINE);
+        }
+    }
+    
+    private static void jsonSchedule(Student student, JsonWriter json) throws IOException {
+        json.beginObject()
+                .name("id").value(student.getId())
+                .name("name").value(student.getName())
+                .name("email").value(student.getEmail())
+                .name("courses").beginArray();
+        for (Course course : student.getEnrolledCoursesView()) {
+            json.beginObject()
+                    .name("code").value(course.getCourseCode())
+                    .name("name").value(course.getCourseName())
+                    .name("credits").value(course.getCredits())
+                    .endObject();
+        }
+        json.endArray().endObject();
+    }
+    
+    // Instructor loads
+    
+    /**
+     * Write one instructor and the courses assigned to them
+     * @param instructor The instructor
+     * @param out Where to write
+     */
+    public void writeLoad(Instructor instructor, Writer out) throws IOException {
+        requireArguments(instructor, out);
+        switch (format) {
+            case CSV:
+                line(out, LOAD_HEADER);
+                csvLoad(instructor, out);
+                break;
+            case JSON:
+                jsonLoad(instructor, new JsonWriter(out));
+                break;
+            default:
+                textLoad(instructor, out);
+        }
+    }
+    
+    /**
+     * Write instructors and the courses assigned to them, in iteration order
+     * @param instructors The instructors, e.g. RegistrationSystem.getInstructorsView()
+     * @param out Where to write
+     */
+    public void writeLoads(List<Instructor> instructors, Writer out) throws IOException {
+        requireArguments(instructors, out);
+        switch (format) {
+            case CSV:
+                line(out, LOAD_HEADER);
+                for (Instructor instructor : instructors) {
+                    csvLoad(instructor, out);
+                }
+                break;
+            case JSON:
+                JsonWriter json = new JsonWriter(out).beginArray();
+                for (Instructor instructor : instructors) {
+                    jsonLoad(instructor, json);
+                }
+                json.endArray();
+                break;
+            default:
+                line(out, "\n========== ALL INSTRUCTORS ==========");
+                if (instructors.isEmpty()) {
+                    line(out, "No instructors in the system.");
+                } else {
+                    for (Instructor instructor : instructors) {
+                        textLoad(instructor, out);
+                    }
+                }
+                line(out, "=====================================");
+        }
+    }
+    
+    private static void textLoad(Instructor instructor, Writer out) throws IOException {
+        List<Course> courses = instructor.getAssignedCoursesView();
+        line(out, "\n=== Instructor Details ===");
+        out.write("Name: ");
+        line(out, instructor.getName());
+        out.write("Email: ");
+        line(out, instructor.getEmail());
+        out.write("Instructor ID: ");
+        line(out, instructor.getId());
+        out.write("Assigned Courses: ");
+        line(out, Integer.toString(courses.size()));
+        
+        if (courses.isEmpty()) {
+            line(out, "No courses assigned.");
+        } else {
+            line(out, "Course Assignments:");
+            for (Course course : courses) {
+                out.write("  - ");
+                out.write(course.getCourseCode());
+                out.write(": ");
+                out.write(course.getCourseName());
+                out.write(" (");
+                out.write(Integer.toString(course.getCurrentEnrollment()));
+                out.write('/');
+                out.write(Integer.toString(course.getMaxStudents()));
+                line(out, " students)");
+            }
+        }
+        line(out, "=========================");
+    }
+    
+    private static void csvLoad(Instructor instructor, Writer out) throws IOException {
+        for (Course course : instructor.getAssignedCoursesView()) {
+            csvField(out, instructor.getId());
+            csvNext(out, instructor.getName());
+            csvNext(out, course.getCourseCode());
+            csvNext(out, course.getCourseName());
+            out.write(',');
+            out.write(Integer.toString(course.getCurrentEnrollment()));
+            out.write(',');
+            out.write(Integer.toString(course.getMaxStudents()));
+            out.write(NEWLINE);
+        }
+    }
+    
+    private static void jsonLoad(Instructor instructor, JsonWriter json) throws IOException {
+        json.beginObject()
+                .name("id").value(instructor.getId())
+                .name("name").value(instructor.getName())
+                .name("email").value(instructor.getEmail())
+                .name("courses").beginArray();
+        for (Course course : instructor.getAssignedCoursesView()) {
+            json.beginObject()
+                    .name("code").value(course.getCourseCode())
+                    .name("name").value(course.getCourseName())
+                    .name("enrollment").value(course.getCurrentEnrollment())
+                    .name("maxStudents").value(course.getMaxStudents())
+                    .endObject();
+        }
+        json.endArray().endObject();
+    }
+    
+    // Plumbing
+    
+    private static void requireArguments(Object subject, Writer out) {
+        if (subject == null) {
+            throw new IllegalArgumentException("Nothing to export");
+        }
+        if (out == null) {
+            throw new IllegalArgumentException("Writer cannot be null");
+        }
+    }
+    
+    private static void line(Writer out, String text) throws IOException {
+        out.write(text);
+        out.write(NEWLINE);
+    }
+    
+    private static void textCodes(Writer out, String label, List<Course> courses) throws IOException {
+        if (courses.isEmpty()) {
+            return;
+        }
+        out.write(label);
+        for (int i = 0; i < courses.size(); i++) {
+            if (i > 0) {
+                out.write(", ");
+            }
+            out.write(courses.get(i).getCourseCode());
+        }
+        out.write(NEWLINE);
+    }
+    
+    private static void csvNext(Writer out, String value) throws IOException {
+        out.write(',');
+        csvField(out, value);
+    }
+    
+    // Quoted the way CsvImporter reads fields back
+    private static void csvField(Writer out, String value) throws IOException {
+        boolean quote = false;
+        for (int i = 0; i < value.length() && !quote; i++) {
+            char c = value.charAt(i);
+            quote = c == ',' || c == '"' || c == '\n' || c == '\r';
+        }
+        if (!quote) {
+            out.write(value);
+            return;
+        }
+        out.write('"');
+        int start = 0;
+        for (int i = 0; i < value.length(); i++) {
+            if (value.charAt(i) == '"') {
+                out.write(value, start, i + 1 - start);
+                out.write('"');
+                start = i + 1;
+            }
+        }
+        out.write(value, start, value.length() - start);
+        out.write('"');
+    }
+}
@@ -0,0 +1,424 @@
+package com.registration.http;
+
+import com.registration.export.JsonWriter;
+import com.registration.model.Course;
+import com.registration.model.EnrollmentResult;
+import com.registration.model.Instructor;
+import com.registration.model.Student;
+import com.registration.search.SearchIndex;
+import com.registration.system.RegistrationService;
+import com.registration.system.RegistrationSystem;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+
+/**
+ * Embedded HTTP/JSON API on top of a RegistrationSystem, built on the
+ * JDK's com.sun.net.httpserver.
+ *
+ * Endpoints:
+ *   GET  /students, /students/{id}
+ *   GET  /courses, /courses/{code}        (a single course includes its roster)
+ *   GET  /instructors, /instructors/{id}
+ *   POST /register?student={id}&amp;course={code}
+ *   POST /drop?student={id}&amp;course={code}
+ *   GET  /summary
+ *   GET  /metrics                         (Prometheus text format; see RegistrationMetrics)
+ *   GET  /search/students?q={words}, /search/instructors?q={words}
+ *   GET  /search/courses?q={words} or ?prefix={code prefix}   (optional &amp;limit=, default 10)
+ *
+ * Parameters may also be sent as a form-encoded body. Responses are
+ * streamed with chunked encoding, so listing every student or a large
+ * roster never builds the whole document in memory.
+ *
+ * Deployments should start the JVM with -Dsun.net.httpserver.nodelay=true;
+ * small chunked responses otherwise stall on Nagle's algorithm and delayed
+ * ACKs. The JDK reads it once, so it is a launch flag rather than something
+ * this class sets for every other server in the process.
+ */
+public class RegistrationServer implements AutoCloseable {
+    private static final int MAX_FORM_BYTES = 4096;
+    private static final int DEFAULT_SEARCH_LIMIT = 10;
+    private static final int MAX_SEARCH_LIMIT = 1000;
+    
+    private final RegistrationSystem system;
+    private final HttpServer server;
+    private final ExecutorService executor;
+    
+    /**
+     * Constructor for RegistrationServer. Call start() to begin serving.
+     * @param system The system to expose
+     * @param address Address to bind; port 0 picks a free port
+     * @throws IOException if the address cannot be bound
+     */
+    public RegistrationServer(RegistrationSystem system, InetSocketAddress address) throws IOException {
+        if (system == null) {
+            throw new IllegalArgumentException("System cannot be null");
+        }
+        if (address == null) {
+            throw new IllegalArgumentException("Address cannot be null");
+        }
+        this.system = system;
+        this.server = HttpServer.create(address, 0);
+        this.executor = RegistrationService.newDefaultExecutor();
+        server.setExecutor(executor);
+        server.createContext("/students", handler(this::students));
+        server.createContext("/courses", handler(this::courses));
+        server.createContext("/instructors", handler(this::instructors));
+        server.createContext("/register", handler(exchange -> enrollment(exchange, true)));
+        server.createContext("/drop", handler(exchange -> enrollment(exchange, false)));
+        server.createContext("/summary", handler(this::summary));
+        server.createContext("/metrics", handler(this::metrics));
+        server.createContext("/search", handler(this::search));
+    }
+    
+    public void start() {
+        server.start();
+    }
+    
+    /**
+     * Get the port the server is bound to
+     * @return The local port
+     */
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+    
+    /**
+     * Stop serving, letting requests in progress finish for up to a second
+     */
+    @Override
+    public void close() {
+        server.stop(1);
+        executor.shutdown();
+    }
+    
+    // Endpoints
+    
+    private void students(HttpExchange exchange) throws IOException {
+        if (!requireMethod(exchange, "GET")) {
+            return;
+        }
+        String id = pathKey(exchange, "/students");
+        if (id == null) {
+            List<Student> students = system.getStudentsView();
+            try (Writer out = stream(exchange, 200)) {
+                JsonWriter json = new JsonWriter(out).beginArray();
+                for (Student student : students) {
+                    writeStudent(json, student);
+                }
+                json.endArray();
+            }
+            return;
+        }
+        Student student = system.findStudentById(id);
+        if (student == null) {
+            error(exchange, 404, "Student " + id + " not found");
+            return;
+        }
+        try (Writer out = stream(exchange, 200)) {
+            writeStudent(new JsonWriter(out), student);
+        }
+    }
+    
+    private void courses(HttpExchange exchange) throws IOException {
+        if (!requireMethod(exchange, "GET")) {
+            return;
+        }
+        String code = pathKey(exchange, "/courses");
+        if (code == null) {
+            List<Course> courses = system.getCoursesView();
+            try (Writer out = stream(exchange, 200)) {
+                JsonWriter json = new JsonWriter(out).beginArray();
+                for (Course course : courses) {
+                    writeCourse(json.beginObject(), course).endObject();
+                }
+                json.endArray();
+            }
+            return;
+        }
+        Course course = system.findCourseByCode(code);
+        if (course == null) {
+            error(exchange, 404, "Course " + code + " not found");
+            return;
+        }
+        List<Student> roster = course.getRegisteredStudentsView();
+        try (Writer out = stream(exchange, 200)) {
+            JsonWriter json = writeCourse(new JsonWriter(out).beginObject(), course);
+            json.name("students").beginArray();
+            for (Student student : roster) {
+                json.beginObject()
+                        .name("id").value(student.getId())
+                        .name("name").value(student.getName())
+                        .endObject();
+            }
+            json.endArray().endObject();
+        }
+    }
+    
+    private void instructors(HttpExchange exchange) throws IOException {
+        if (!requireMethod(exchange, "GET")) {
+            return;
+        }
+        String id = pathKey(exchange, "/instructors");
+        if (id == null) {
+            List<Instructor> instructors = system.getInstructorsView();
+            try (Writer out = stream(exchange, 200)) {
+                JsonWriter json = new JsonWriter(out).beginArray();
+                for (Instructor instructor : instructors) {
+                    writeInstructor(json, instructor);
+                }
+                json.endArray();
+            }
+            return;
+        }
+        Instructor instructor = system.findInstructorById(id);
+        if (instructor == null) {
+            error(exchange, 404, "Instructor " + id + " not found");
+            return;
+        }
+        try (Writer out = stream(exchange, 200)) {
+            writeInstructor(new JsonWriter(out), instructor);
+        }
+    }
+    
+    private void enrollment(HttpExchange exchange, boolean register) throws IOException {
+        if (!requireMethod(exchange, "POST")) {
+            return;
+        }
+        Map<String, String> params = parameters(exchange);
+        String studentId = params.get("student");
+        String courseCode = params.get("course");
+        if (studentId == null || courseCode == null) {
+            error(exchange, 400, "Parameters student and course are required");
+            return;
+        }
+        EnrollmentResult result = register
+                ? system.register(studentId, courseCode)
+                : system.drop(studentId, courseCode);
+        int status = result.isSuccess() ? 200 : result == EnrollmentResult.NOT_FOUND ? 404 : 409;
+        try (Writer out = stream(exchange, status)) {
+            new JsonWriter(out).beginObject()
+                    .name("student").value(studentId)
+                    .name("course").value(courseCode)
+                    .name("result").value(result.name())
+                    .name("success").value(result.isSuccess())
+                    .endObject();
+        }
+    }
+    
+    private void summary(HttpExchange exchange) throws IOException {
+        if (!requireMethod(exchange, "GET")) {
+            return;
+        }
+        try (Writer out = stream(exchange, 200)) {
+            new JsonWriter(out).beginObject()
+                    .name("students").value(system.getStudentsView().size())
+                    .name("instructors").value(system.getInstructorsView().size())
+                    .name("courses").value(system.getCoursesView().size())
+                    .name("enrollments").value(system.getStatistics().getTotalEnrollments())
+                    .name("fullCourses").value(system.getStatistics().getFullCourseCount())
+                    .endObject();
+        }
+    }
+    
+    private void metrics(HttpExchange exchange) throws IOException {
+        if (!requireMethod(exchange, "GET")) {
+            return;
+        }
+        exchange.getResponseHeaders().set("Content-Type", "text/plain; version=0.0.4; charset=utf-8");
+        exchange.sendResponseHeaders(200, 0); // Chunked
+        try (Writer out = new BufferedWriter(new OutputStreamWriter(exchange.getResponseBody(), StandardCharsets.UTF_8))) {
+            system.getMetrics().snapshot().writeTo(out);
+        }
+    }
+    
+    private void search(HttpExchange exchange) throws IOException {
+        if (!requireMethod(exchange, "GET")) {
+            return;
+        }
+        String type = pathKey(exchange, "/search");
+        Map<String, String> params = parameters(exchange);
+        String query = params.get("q");
+        String prefix = params.get("prefix");
+        int limit = params.containsKey("limit") ? parseLimit(params.get("limit")) : DEFAULT_SEARCH_LIMIT;
+        if (query == null && !("courses".equals(type) && prefix != null)) {
+            error(exchange, 400, "Parameter q is required");
+            return;
+        }
+        SearchIndex index = system.getSearchIndex();
+        if ("students".equals(type)) {
+            List<Student> students = index.searchStudents(query, limit);
+            try (Writer out = stream(exchange, 200)) {
+                JsonWriter json = new JsonWriter(out).beginArray();
+                for (Student student : students) {
+                    writeStudent(json, student);
+                }
+                json.endArray();
+            }
+        } else if ("instructors".equals(type)) {
+            List<Instructor> instructors = index.searchInstructors(query, limit);
+            try (Writer out = stream(exchange, 200)) {
+                JsonWriter json = new JsonWriter(out).beginArray();
+                for (Instructor instructor : instructors) {
+                    writeInstructor(json, instructor);
+                }
+                json.endArray();
+            }
+        } else if ("courses".equals(type)) {
+            List<Course> courses = query != null
+                    ? index.searchCourses(query, limit)
+                    : index.findCoursesByCodePrefix(prefix, limit);
+            try (Writer out = stream(exchange, 200)) {
+                JsonWriter json = new JsonWriter(out).beginArray();
+                for (Course course : courses) {
+                    writeCourse(json.beginObject(), course).endObject();
+                }
+                json.endArray();
+            }
+        } else {
+            error(exchange, 404, "Search students, instructors or courses");
+        }
+    }
+    
+    private static int parseLimit(String limit) {
+        try {
+            int value = Integer.parseInt(limit);
+            if (value >= 0 && value <= MAX_SEARCH_LIMIT) {
+                return value;
+            }
+        } catch (NumberFormatException e) {
+            // Reported below
+        }
+        throw new IllegalArgumentException("Limit must be between 0 and " + MAX_SEARCH_LIMIT);
+    }
+    
+    // Entity documents
+    
+    private static void writeStudent(JsonWriter json, Student student) throws IOException {
+        json.beginObject()
+                .name("id").value(student.getId())
+                .name("name").value(student.getName())
+                .name("email").value(student.getEmail())
+                .name("courses").beginArray();
+        for (Course course : student.getEnrolledCoursesView()) {
+            json.value(course.getCourseCode());
+        }
+        json.endArray().endObject();
+    }
+    
+    private static JsonWriter writeCourse(JsonWriter json, Course course) throws IOException {
+        return json.name("code").value(course.getCourseCode())
+                .name("name").value(course.getCourseName())
+                .name("credits").value(course.getCredits())
+                .name("maxStudents").value(course.getMaxStudents())
+                .name("enrollment").value(course.getCurrentEnrollment())
+                .name("availableSeats").value(course.getAvailableSeats());
+    }
+    
+    private static void writeInstructor(JsonWriter json, Instructor instructor) throws IOException {
+        json.beginObject()
+                .name("id").value(instructor.getId())
+                .name("name").value(instructor.getName())
+                .name("email").value(instructor.getEmail())
+                .name("courses").beginArray();
+        for (Course course : instructor.getAssignedCoursesView()) {
+            json.value(course.getCourseCode());
+        }
+        json.endArray().endObject();
+    }
+    
+    // Plumbing
+    
+    @FunctionalInterface
+    private interface Endpoint {
+        void handle(HttpExchange exchange) throws IOException;
+    }
+    
+    private static HttpHandler handler(Endpoint endpoint) {
+        return exchange -> {
+            try {
+                endpoint.handle(exchange);
+            } catch (IllegalArgumentException e) {
+                if (exchange.getResponseCode() == -1) {
+                    error(exchange, 400, e.getMessage());
+                }
+            } catch (RuntimeException e) {
+                // Without a response the JDK server just drops the connection
+                if (exchange.getResponseCode() == -1) {
+                    error(exchange, 500, "Internal error");
+                }
+            } finally {
+                exchange.close();
+            }
+        };
+    }
+    
+    private static boolean requireMethod(HttpExchange exchange, String method) throws IOException {
+        if (method.equals(exchange.getRequestMethod())) {
+            return true;
+        }
+        exchange.getResponseHeaders().set("Allow", method);
+        error(exchange, 405, "Method " + exchange.getRequestMethod() + " not allowed");
+        return false;
+    }
+    
+    // The part of the path after the context, or null for the context itself
+    private static String pathKey(HttpExchange exchange, String context) {
+        String path = exchange.getRequestURI().getPath();
+        if (path.length() <= context.length() + 1) {
+            return null;
+        }
+        return path.substring(context.length() + 1);
+    }
+    
+    private static Map<String, String> parameters(HttpExchange exchange) throws IOException {
+        Map<String, String> params = new HashMap<>();
+        parseForm(exchange.getRequestURI().getRawQuery(), params);
+        try (InputStream body = exchange.getRequestBody()) {
+            byte[] form = body.readNBytes(MAX_FORM_BYTES + 1);
+            if (form.length > MAX_FORM_BYTES) {
+                throw new IllegalArgumentException("Request body too large");
+            }
+            parseForm(new String(form, StandardCharsets.UTF_8), params);
+        }
+        return params;
+    }
+    
+    private static void parseForm(String form, Map<String, String> params) {
+        if (form == null || form.isEmpty()) {
+            return;
+        }
+        for (String pair : form.split("&")) {
+            int equals = pair.indexOf('=');
+            if (equals > 0) {
+                params.put(URLDecoder.decode(pair.substring(0, equals), StandardCharsets.UTF_8),
+                        URLDecoder.decode(pair.substring(equals + 1), StandardCharsets.UTF_8));
+            }
+        }
+    }
+    
+    private static Writer stream(HttpExchange exchange, int status) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        exchange.sendResponseHeaders(status, 0); // Chunked
+        return new BufferedWriter(new OutputStreamWriter(exchange.getResponseBody(), StandardCharsets.UTF_8));
+    }
+    
+    private static void error(HttpExchange exchange, int status, String message) throws IOException {
+        try (Writer out = stream(exchange, status)) {
+            new JsonWriter(out).beginObject().name("error").value(message).endObject();
+        }
+    }
+}
@@ -0,0 +1,387 @@
+package com.registration.importer;
+
+import com.registration.model.Course;
+import com.registration.model.Instructor;
+import com.registration.model.Student;
+import com.registration.system.BatchResult;
+import com.registration.system.RegistrationSystem;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+/**
+ * Streaming bulk importer for students, instructors and courses stored as CSV.
+ *
+ * The file is read in chunks of rows. Each chunk is parsed and validated on
+ * a pool of worker threads, then inserted into the RegistrationSystem as one
+ * batch, in file order. Only a fixed number of chunks is in flight at any
+ * time, so memory use does not depend on the size of the file.
+ *
+ * Rows that cannot be imported are written to an error output as CSV
+ * (line number, reason, original row) instead of being printed.
+ *
+ * Expected columns:
+ *   students, instructors: name,email,id
+ *   courses:               code,name,maxStudents
+ */
+public class CsvImporter {
+    private static final int DEFAULT_CHUNK_SIZE = 4096;
+    private static final AtomicInteger POOL_NUMBER = new AtomicInteger();
+    
+    private static final RecordType<Student> STUDENTS = new RecordType<>(
+        fields -> new Student(fields[0], fields[1], fields[2]),
+        RegistrationSystem::addStudents, "Duplicate student ID");
+    private static final RecordType<Instructor> INSTRUCTORS = new RecordType<>(
+        fields -> new Instructor(fields[0], fields[1], fields[2]),
+        RegistrationSystem::addInstructors, "Duplicate instructor ID");
+    private static final RecordType<Course> COURSES = new RecordType<>(
+        fields -> new Course(fields[0], fields[1], parseCapacity(fields[2])),
+        RegistrationSystem::addCourses, "Duplicate course code");
+    
+    private final RegistrationSystem system;
+    private int workers;
+    private int chunkSize;
+    private boolean skipHeader;
+    
+    /**
+     * Constructor for CsvImporter
+     * @param system The system to import into
+     */
+    public CsvImporter(RegistrationSystem system) {
+        if (system == null) {
+            throw new IllegalArgumentException("System cannot be null");
+        }
+        this.system = system;
+        this.workers = Runtime.getRuntime().availableProcessors();
+        this.chunkSize = DEFAULT_CHUNK_SIZE;
+        this.skipHeader = true;
+    }
+    
+    public int getWorkers() {
+        return workers;
+    }
+    
+    /**
+     * Set the number of threads validating rows
+     * @param workers Number of worker threads
+     */
+    public void setWorkers(int workers) {
+        if (workers <= 0) {
+            throw new IllegalArgumentException("Workers must be greater than 0");
+        }
+        this.workers = workers;
+    }
+    
+    public int getChunkSize() {
+        return chunkSize;
+    }
+    
+    /**
+     * Set the number of rows validated and inserted together
+     * @param chunkSize Rows per chunk
+     */
+    public void setChunkSize(int chunkSize) {
+        if (chunkSize <= 0) {
+            throw new IllegalArgumentException("Chunk size must be greater than 0");
+        }
+        this.chunkSize = chunkSize;
+    }
+    
+    public boolean isSkipHeader() {
+        return skipHeader;
+    }
+    
+    /**
+     * Set whether the first line of the input is a header row
+     * @param skipHeader true to skip the first line
+     */
+    public void setSkipHeader(boolean skipHeader) {
+        this.skipHeader = skipHeader;
+    }
+    
+    // Path based imports
+    
+    public ImportResult importStudents(Path csv, Path errorFile) throws IOException {
+        return importFile(csv, errorFile, STUDENTS);
+    }
+    
+    public ImportResult importInstructors(Path csv, Path errorFile) throws IOException {
+        return importFile(csv, errorFile, INSTRUCTORS);
+    }
+    
+    public ImportResult importCourses(Path csv, Path errorFile) throws IOException {
+        return importFile(csv, errorFile, COURSES);
+    }
+    
+    // Stream based imports; neither stream is closed
+    
+    public ImportResult importStudents(Reader csv, Writer errors) throws IOException {
+        return importRows(csv, errors, STUDENTS);
+    }
+    
+    public ImportResult importInstructors(Reader csv, Writer errors) throws IOException {
+        return importRows(csv, errors, INSTRUCTORS);
+    }
+    
+    public ImportResult importCourses(Reader csv, Writer errors) throws IOException {
+        return importRows(csv, errors, COURSES);
+    }
+    
+    private <T> ImportResult importFile(Path csv, Path errorFile, RecordType<T> type) throws IOException {
+        if (csv == null || errorFile == null) {
+            throw new IllegalArgumentException("Input and error file cannot be null");
+        }
+        try (Reader in = Files.newBufferedReader(csv, StandardCharsets.UTF_8);
+             Writer errors = Files.newBufferedWriter(errorFile, StandardCharsets.UTF_8)) {
+            return importRows(in, errors, type);
+        }
+    }
+    
+    private <T> ImportResult importRows(Reader csv, Writer errors, RecordType<T> type) throws IOException {
+        if (csv == null || errors == null) {
+            throw new IllegalArgumentException("Input and error output cannot be null");
+        }
+        BufferedReader reader = csv instanceof BufferedReader ? (BufferedReader) csv : new BufferedReader(csv);
+        BufferedWriter errorWriter = errors instanceof BufferedWriter
+            ? (BufferedWriter) errors : new BufferedWriter(errors);
+        errorWriter.write("line,error,record");
+        errorWriter.newLine();
+        
+        int poolNumber = POOL_NUMBER.incrementAndGet();
+        AtomicInteger threadNumber = new AtomicInteger();
+        ExecutorService pool = Executors.newFixedThreadPool(workers, r -> {
+            Thread thread = new Thread(r, "csv-import-" + poolNumber + "-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        Totals totals = new Totals();
+        ArrayDeque<Future<Chunk<T>>> inFlight = new ArrayDeque<>();
+        int maxInFlight = workers * 2;
+        try {
+            long lineNumber = 0;
+            if (skipHeader && reader.readLine() != null) {
+                lineNumber++;
+            }
+            Chunk<T> chunk = new Chunk<>(chunkSize);
+            String line;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                if (line.trim().isEmpty()) {
+                    continue;
+                }
+                chunk.addRow(lineNumber, line);
+                if (chunk.size == chunkSize) {
+                    Chunk<T> full = chunk;
+                    inFlight.add(pool.submit(() -> full.validate(type)));
+                    chunk = new Chunk<>(chunkSize);
+                    if (inFlight.size() >= maxInFlight) {
+                        insert(await(inFlight.poll()), type, errorWriter, totals);
+                    }
+                }
+            }
+            if (chunk.size > 0) {
+                Chunk<T> last = chunk;
+                inFlight.add(pool.submit(() -> last.validate(type)));
+            }
+            while (!inFlight.isEmpty()) {
+                insert(await(inFlight.poll()), type, errorWriter, totals);
+            }
+        } finally {
+            pool.shutdownNow();
+            errorWriter.flush();
+        }
+        return new ImportResult(totals.rowsRead, totals.imported, totals.invalid, totals.duplicates);
+    }
+    
+    private static <T> Chunk<T> await(Future<Chunk<T>> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Import interrupted");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IOException("Validation failed", e.getCause());
+        }
+    }
+    
+    // Inserts the valid rows of a chunk as one batch, then reports the rejected rows in line order
+    private <T> void insert(Chunk<T> chunk, RecordType<T> type, BufferedWriter errors,
+                            Totals totals) throws IOException {
+        List<T> valid = new ArrayList<>(chunk.size);
+        for (int i = 0; i < chunk.size; i++) {
+            if (chunk.entities[i] != null) {
+                valid.add(chunk.entity(i));
+            }
+        }
+        if (!valid.isEmpty()) {
+            BatchResult result = type.insert.apply(system, valid);
+            int position = 0;
+            for (int i = 0; i < chunk.size; i++) {
+                if (chunk.entities[i] != null) {
+                    if (result.get(position++).isSuccess()) {
+                        totals.imported++;
+                    } else {
+                        chunk.errors[i] = type.duplicateMessage;
+                        totals.duplicates++;
+                    }
+                }
+            }
+        }
+        
+        totals.rowsRead += chunk.size;
+        totals.invalid += chunk.size - valid.size();
+        for (int i = 0; i < chunk.size; i++) {
+            if (chunk.errors[i] != null) {
+                errors.write(Long.toString(chunk.lineNumbers[i]));
+                errors.write(',');
+                errors.write(quote(chunk.errors[i]));
+                errors.write(',');
+                errors.write(quote(chunk.lines[i]));
+                errors.newLine();
+            }
+        }
+    }
+    
+    /**
+     * Split one CSV line into fields. Fields may be quoted with double
+     * quotes, in which case commas are kept and "" stands for one quote.
+     * @param line The line to split
+     * @return The fields of the line
+     */
+    static String[] parseLine(String line) {
+        List<String> fields = new ArrayList<>(4);
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"') {
+                    if (i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                        field.append('"');
+                        i++;
+                    } else {
+                        quoted = false;
+                    }
+                } else {
+                    field.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        if (quoted) {
+            throw new IllegalArgumentException("Unterminated quoted field");
+        }
+        fields.add(field.toString());
+        return fields.toArray(new String[0]);
+    }
+    
+    private static String quote(String value) {
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+    
+    private static int parseCapacity(String value) {
+        try {
+            return Integer.parseInt(value.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Maximum students must be a number");
+        }
+    }
+    
+    /**
+     * How rows of one kind are built and inserted
+     */
+    private static final class RecordType<T> {
+        private final Function<String[], T> factory;
+        private final BiFunction<RegistrationSystem, List<T>, BatchResult> insert;
+        private final String duplicateMessage;
+        
+        RecordType(Function<String[], T> factory,
+                   BiFunction<RegistrationSystem, List<T>, BatchResult> insert, String duplicateMessage) {
+            this.factory = factory;
+            this.insert = insert;
+            this.duplicateMessage = duplicateMessage;
+        }
+    }
+    
+    /**
+     * A run of consecutive rows; validation fills in an entity or an error for each row
+     */
+    private static final class Chunk<T> {
+        private static final int FIELD_COUNT = 3;
+        
+        private final long[] lineNumbers;
+        private final String[] lines;
+        private final Object[] entities;
+        private final String[] errors;
+        private int size;
+        
+        Chunk(int capacity) {
+            this.lineNumbers = new long[capacity];
+            this.lines = new String[capacity];
+            this.entities = new Object[capacity];
+            this.errors = new String[capacity];
+        }
+        
+        void addRow(long lineNumber, String line) {
+            lineNumbers[size] = lineNumber;
+            lines[size] = line;
+            size++;
+        }
+        
+        Chunk<T> validate(RecordType<T> type) {
+            for (int i = 0; i < size; i++) {
+                try {
+                    String[] fields = parseLine(lines[i]);
+                    if (fields.length != FIELD_COUNT) {
+                        errors[i] = "Expected " + FIELD_COUNT + " fields but found " + fields.length;
+                    } else {
+                        entities[i] = type.factory.apply(fields);
+                    }
+                } catch (IllegalArgumentException e) {
+                    errors[i] = e.getMessage();
+                }
+            }
+            return this;
+        }
+        
+        @SuppressWarnings("unchecked")
+        T entity(int index) {
+            return (T) entities[index];
+        }
+    }
+    
+    private static final class Totals {
+        private long rowsRead;
+        private long imported;
+        private long invalid;
+        private long duplicates;
+    }
+}
@@ -0,0 +1,58 @@
+package com.registration.importer;
+
+/**
+ * Summary of one CSV import. Details about every rejected row are
+ * written to the error output given to the importer.
+ */
+public final class ImportResult {
+    private final long rowsRead;
+    private final long imported;
+    private final long invalid;
+    private final long duplicates;
+    
+    ImportResult(long rowsRead, long imported, long invalid, long duplicates) {
+        this.rowsRead = rowsRead;
+        this.imported = imported;
+        this.invalid = invalid;
+        this.duplicates = duplicates;
+    }
+    
+    /**
+     * @return Number of data rows read, excluding the header and blank lines
+     */
+    public long getRowsRead() {
+        return rowsRead;
+    }
+    
+    public long getImported() {
+        return imported;
+    }
+    
+    /**
+     * @return Number of rows rejected because they could not be parsed or failed validation
+     */
+    public long getInvalid() {
+        return invalid;
+    }
+    
+    /**
+     * @return Number of rows rejected because their ID or code was already taken
+     */
+    public long getDuplicates() {
+        return duplicates;
+    }
+    
+    public long getRejected() {
+        return invalid + duplicates;
+    }
+    
+    @Override
+    public String toString() {
+        return "ImportResult{" +
+                "rowsRead=" + rowsRead +
+                ", imported=" + imported +
+                ", invalid=" + invalid +
+                ", duplicates=" + duplicates +
+                '}';
+    }
+}
@@ -0,0 +1,161 @@
+package com.registration.metrics;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Concurrent latency histogram with log-linear buckets in the style of
+ * HdrHistogram: every power of two is split into 32 equal buckets, so a
+ * recorded value is kept to within about 3% at any magnitude, from single
+ * nanoseconds up to hours, in a fixed 1312 counters.
+ *
+ * Recording is one array increment in a stripe picked by the calling
+ * thread, so threads on different cores rarely touch the same counters.
+ * Snapshots add the stripes up without locking; a snapshot taken while
+ * values are recorded may miss the values in flight.
+ */
+public final class LatencyHistogram {
+    private static final int SUB_BUCKET_BITS = 5;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    // Values of 2^45 ns (about 9.8 hours) and above land in the last bucket
+    private static final int MAX_MAGNITUDE = 44;
+    
+    /**
+     * Number of buckets
+     */
+    public static final int BUCKETS = SUB_BUCKETS * (MAX_MAGNITUDE - SUB_BUCKET_BITS + 2);
+    
+    private static final long MAX_TRACKABLE = (1L << (MAX_MAGNITUDE + 1)) - 1;
+    private static final int MAX_STRIPES = 16;
+    // Slot after the buckets holding the sum of the recorded values
+    private static final int SUM = BUCKETS;
+    
+    private final AtomicLongArray[] stripes;
+    private final int stripeMask;
+    
+    public LatencyHistogram() {
+        int stripeCount = Integer.highestOneBit(
+                Math.min(MAX_STRIPES, Runtime.getRuntime().availableProcessors()) * 2 - 1);
+        this.stripes = new AtomicLongArray[stripeCount];
+        for (int i = 0; i < stripeCount; i++) {
+            stripes[i] = new AtomicLongArray(BUCKETS + 1);
+        }
+        this.stripeMask = stripeCount - 1;
+    }
+    
+    /**
+     * Record one value
+     * @param nanos The latency in nanoseconds; negative values count as zero
+     */
+    public void record(long nanos) {
+        long value = Math.max(0, nanos);
+        AtomicLongArray stripe = stripes[(int) Thread.currentThread().getId() & stripeMask];
+        stripe.getAndIncrement(bucketOf(value));
+        stripe.getAndAdd(SUM, value);
+    }
+    
+    /**
+     * Add up the stripes into an immutable snapshot
+     * @return The values recorded so far
+     */
+    public Snapshot snapshot() {
+        long[] counts = new long[BUCKETS];
+        long sum = 0;
+        for (AtomicLongArray stripe : stripes) {
+            for (int i = 0; i < BUCKETS; i++) {
+                counts[i] += stripe.get(i);
+            }
+            sum += stripe.get(SUM);
+        }
+        return new Snapshot(counts, sum);
+    }
+    
+    static int bucketOf(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        long clamped = Math.min(value, MAX_TRACKABLE);
+        int shift = 63 - Long.numberOfLeadingZeros(clamped) - SUB_BUCKET_BITS;
+        return SUB_BUCKETS * (shift + 1) + (int) (clamped >>> shift) - SUB_BUCKETS;
+    }
+    
+    // The largest value that falls into the bucket
+    static long highestValueOf(int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+        int shift = bucket / SUB_BUCKETS - 1;
+        long lowest = (long) (SUB_BUCKETS + bucket % SUB_BUCKETS) << shift;
+        return lowest + (1L << shift) - 1;
+    }
+    
+    /**
+     * Counts of a LatencyHistogram at one point in time
+     */
+    public static final class Snapshot {
+        private final long[] counts;
+        private final long count;
+        private final long sum;
+        
+        Snapshot(long[] counts, long sum) {
+            long total = 0;
+            for (long c : counts) {
+                total += c;
+            }
+            this.counts = counts;
+            this.count = total;
+            this.sum = sum;
+        }
+        
+        static Snapshot empty() {
+            return new Snapshot(new long[BUCKETS], 0);
+        }
+        
+        public long getCount() {
+            return count;
+        }
+        
+        public long getTotalNanos() {
+            return sum;
+        }
+        
+        public double getMeanNanos() {
+            return count == 0 ? 0 : (double) sum / count;
+        }
+        
+        /**
+         * Get the value below which the given share of the values fall
+         * @param percentile Between 0 and 100, e.g. 99.9
+         * @return The value in nanoseconds, rounded up to its bucket; 0 if nothing was recorded
+         */
+        public long getValueAtPercentile(double percentile) {
+            if (percentile < 0 || percentile > 100) {
+                throw new IllegalArgumentException("Percentile must be between 0 and 100");
+            }
+            if (count == 0) {
+                return 0;
+            }
+            long rank = Math.max(1, (long) Math.ceil(percentile / 100 * count));
+            long seen = 0;
+            for (int i = 0; i < BUCKETS; i++) {
+                seen += counts[i];
+                if (seen >= rank) {
+                    return highestValueOf(i);
+                }
+            }
+            return getMaxNanos();
+        }
+        
+        /**
+         * Get the largest recorded value, rounded up to its bucket
+         * @return The value in nanoseconds; 0 if nothing was recorded
+         */
+        public long getMaxNanos() {
+            for (int i = BUCKETS - 1; i >= 0; i--) {
+                if (counts[i] != 0) {
+                    return highestValueOf(i);
+                }
+            }
+            return 0;
+        }
+    }
+}
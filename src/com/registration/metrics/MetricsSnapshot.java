@@ -0,0 +1,110 @@
+package com.registration.metrics;
+
+import com.registration.metrics.RegistrationMetrics.Operation;
+import com.registration.model.EnrollmentResult;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Locale;
+
+/**
+ * Immutable copy of RegistrationMetrics at one point in time.
+ * Can be exported in the Prometheus text format with writeTo.
+ */
+public final class MetricsSnapshot {
+    private static final EnrollmentResult[] OUTCOMES = EnrollmentResult.values();
+    private static final double[] QUANTILES = {0.5, 0.9, 0.99, 0.999};
+    
+    private final long[] counts;
+    private final LatencyHistogram.Snapshot[] latencies;
+    
+    MetricsSnapshot(long[] counts, LatencyHistogram.Snapshot[] latencies) {
+        this.counts = counts;
+        this.latencies = latencies;
+    }
+    
+    /**
+     * Get how often an operation ended with the given outcome
+     * @param operation The operation
+     * @param outcome The outcome, e.g. SUCCESS, FULL, DUPLICATE or NOT_FOUND
+     * @return The number of operations
+     */
+    public long getCount(Operation operation, EnrollmentResult outcome) {
+        return counts[operation.ordinal() * OUTCOMES.length + outcome.ordinal()];
+    }
+    
+    /**
+     * Get how often an operation ran, whatever its outcome
+     * @param operation The operation
+     * @return The number of operations
+     */
+    public long getCount(Operation operation) {
+        long total = 0;
+        for (EnrollmentResult outcome : OUTCOMES) {
+            total += getCount(operation, outcome);
+        }
+        return total;
+    }
+    
+    /**
+     * Get the latencies of an operation; with sampling, only of the operations that were timed
+     * @param operation The operation
+     * @return The latency histogram
+     */
+    public LatencyHistogram.Snapshot getLatency(Operation operation) {
+        return latencies[operation.ordinal()];
+    }
+    
+    /**
+     * Write the metrics in the Prometheus text exposition format
+     * @param out Where to write
+     */
+    public void writeTo(Appendable out) throws IOException {
+        out.append("# TYPE registration_operations_total counter\n");
+        for (Operation operation : Operation.values()) {
+            for (EnrollmentResult outcome : OUTCOMES) {
+                long count = getCount(operation, outcome);
+                if (count != 0) {
+                    out.append("registration_operations_total{operation=\"").append(label(operation))
+                            .append("\",outcome=\"").append(label(outcome)).append("\"} ")
+                            .append(Long.toString(count)).append('\n');
+                }
+            }
+        }
+        out.append("# TYPE registration_latency_seconds summary\n");
+        for (Operation operation : Operation.values()) {
+            LatencyHistogram.Snapshot latency = getLatency(operation);
+            if (latency.getCount() == 0) {
+                continue;
+            }
+            String name = label(operation);
+            for (double quantile : QUANTILES) {
+                out.append("registration_latency_seconds{operation=\"").append(name)
+                        .append("\",quantile=\"").append(Double.toString(quantile)).append("\"} ")
+                        .append(seconds(latency.getValueAtPercentile(quantile * 100))).append('\n');
+            }
+            out.append("registration_latency_seconds_sum{operation=\"").append(name).append("\"} ")
+                    .append(seconds(latency.getTotalNanos())).append('\n');
+            out.append("registration_latency_seconds_count{operation=\"").append(name).append("\"} ")
+                    .append(Long.toString(latency.getCount())).append('\n');
+        }
+    }
+    
+    @Override
+    public String toString() {
+        StringBuilder text = new StringBuilder();
+        try {
+            writeTo(text);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e); // StringBuilder does not throw
+        }
+        return text.toString();
+    }
+    
+    private static String label(Enum<?> value) {
+        return value.name().toLowerCase(Locale.ROOT);
+    }
+    
+    private static String seconds(long nanos) {
+        return String.format(Locale.ROOT, "%.9f", nanos / 1e9);
+    }
+}
@@ -0,0 +1,181 @@
+package com.registration.metrics;
+
+import com.registration.model.EnrollmentResult;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Outcome counters and latency histograms for the hot registration paths.
+ *
+ * Metrics start disabled. While disabled, an instrumented operation only
+ * reads one volatile flag: the clock is not read and nothing is written.
+ * Once enabled, every operation adds to a LongAdder for its outcome and
+ * records its latency in a striped LatencyHistogram, so concurrent
+ * registrations do not contend on shared counters.
+ *
+ * Reading the clock around an operation also stops the CPU from
+ * overlapping it with the next one, which can cost more than a fast
+ * lookup itself. setLatencySampling times only a random share of the
+ * operations; the outcome counters still count every one.
+ *
+ * Usage at an instrumentation point:
+ * <pre>
+ *   long start = metrics.start();
+ *   EnrollmentResult result = ...;
+ *   return metrics.stop(Operation.REGISTER, result, start);
+ * </pre>
+ */
+public final class RegistrationMetrics {
+    /**
+     * The operations that are measured
+     */
+    public enum Operation {
+        /** RegistrationSystem.register and registerStudentToCourse */
+        REGISTER,
+        /** RegistrationSystem.drop and dropStudentFromCourse */
+        DROP,
+        /** RegistrationSystem.registerOrWaitlist */
+        REGISTER_OR_WAITLIST,
+        /** RegistrationSystem.findStudentById */
+        FIND_STUDENT,
+        /** RegistrationSystem.findCourseByCode */
+        FIND_COURSE,
+        /** Course.registerStudent, and the course's part of every registration */
+        COURSE_ADMIT
+    }
+    
+    /**
+     * Metrics that are always disabled; the default for courses outside a system
+     */
+    public static final RegistrationMetrics DISABLED = new RegistrationMetrics(false);
+    
+    private static final int OPERATIONS = Operation.values().length;
+    private static final int OUTCOMES = EnrollmentResult.values().length;
+    
+    // Returned by start() when disabled, so stop() records nothing
+    private static final long NOT_RECORDED = Long.MIN_VALUE;
+    // Returned by start() for operations that are counted but not timed
+    private static final long NOT_TIMED = Long.MIN_VALUE + 1;
+    
+    private final boolean switchable;
+    private volatile boolean enabled;
+    private volatile int sampleMask;
+    private final LongAdder[] outcomes = new LongAdder[OPERATIONS * OUTCOMES];
+    // Created on first enable, so systems that never measure do not pay for them
+    private volatile LatencyHistogram[] latencies;
+    
+    public RegistrationMetrics() {
+        this(true);
+    }
+    
+    private RegistrationMetrics(boolean switchable) {
+        this.switchable = switchable;
+        for (int i = 0; i < outcomes.length; i++) {
+            outcomes[i] = new LongAdder();
+        }
+    }
+    
+    public boolean isEnabled() {
+        return enabled;
+    }
+    
+    /**
+     * Start or stop measuring. Values recorded so far are kept.
+     * @param enabled Whether operations are measured from now on
+     */
+    public synchronized void setEnabled(boolean enabled) {
+        if (!switchable) {
+            throw new IllegalStateException("These metrics cannot be enabled");
+        }
+        if (enabled && latencies == null) {
+            LatencyHistogram[] created = new LatencyHistogram[OPERATIONS];
+            for (int i = 0; i < OPERATIONS; i++) {
+                created[i] = new LatencyHistogram();
+            }
+            latencies = created;
+        }
+        this.enabled = enabled;
+    }
+    
+    public int getLatencySampling() {
+        return sampleMask + 1;
+    }
+    
+    /**
+     * Time only one in every so many operations, chosen at random
+     * @param oneIn A power of two; 1 times every operation
+     */
+    public void setLatencySampling(int oneIn) {
+        if (oneIn < 1 || Integer.bitCount(oneIn) != 1) {
+            throw new IllegalArgumentException("Sampling must be a positive power of two");
+        }
+        this.sampleMask = oneIn - 1;
+    }
+    
+    /**
+     * Begin timing an operation
+     * @return A start time to pass to stop()
+     */
+    public long start() {
+        if (!enabled) {
+            return NOT_RECORDED;
+        }
+        int mask = sampleMask;
+        if (mask != 0 && (ThreadLocalRandom.current().nextInt() & mask) != 0) {
+            return NOT_TIMED;
+        }
+        return System.nanoTime();
+    }
+    
+    /**
+     * Finish timing an operation begun with start()
+     * @param operation The operation that finished
+     * @param outcome Its outcome
+     * @param start The value start() returned
+     * @return The outcome, for chaining
+     */
+    public EnrollmentResult stop(Operation operation, EnrollmentResult outcome, long start) {
+        if (start == NOT_TIMED) {
+            count(operation, outcome);
+        } else if (start != NOT_RECORDED) {
+            record(operation, outcome, System.nanoTime() - start);
+        }
+        return outcome;
+    }
+    
+    /**
+     * Record one operation measured elsewhere; ignored while disabled
+     * @param operation The operation
+     * @param outcome Its outcome
+     * @param nanos How long it took
+     */
+    public void record(Operation operation, EnrollmentResult outcome, long nanos) {
+        LatencyHistogram[] histograms = latencies;
+        if (histograms == null) {
+            return; // Never enabled
+        }
+        outcomes[operation.ordinal() * OUTCOMES + outcome.ordinal()].increment();
+        histograms[operation.ordinal()].record(nanos);
+    }
+    
+    private void count(Operation operation, EnrollmentResult outcome) {
+        outcomes[operation.ordinal() * OUTCOMES + outcome.ordinal()].increment();
+    }
+    
+    /**
+     * Take a snapshot of every counter and histogram without locking
+     * @return The metrics recorded so far
+     */
+    public MetricsSnapshot snapshot() {
+        long[] counts = new long[outcomes.length];
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] = outcomes[i].sum();
+        }
+        LatencyHistogram[] histograms = latencies;
+        LatencyHistogram.Snapshot[] snapshots = new LatencyHistogram.Snapshot[OPERATIONS];
+        for (int i = 0; i < OPERATIONS; i++) {
+            snapshots[i] = histograms == null ? LatencyHistogram.Snapshot.empty() : histograms[i].snapshot();
+        }
+        return new MetricsSnapshot(counts, snapshots);
+    }
+}
@@ -1,22 +1,91 @@
 package com.registration.model;
 
+import com.registration.event.RegistrationEvent;
+import com.registration.event.RegistrationListener;
+import com.registration.export.RegistrationExporter;
+import com.registration.metrics.RegistrationMetrics;
+import com.registration.metrics.RegistrationMetrics.Operation;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
-import java.util.regex.Pattern;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
 
 /**
  * Course class representing a course in the registration system.
  * Demonstrates encapsulation through private fields and validation.
+ *
+ * The enrollment state is guarded by the course's monitor. When both a
+ * student and a course are locked, the student is always locked first
+ * (see Student#enrollInCourse), so a course never calls back into a
+ * student while holding its own lock.
+ *
+ * Seats are handed out through a lock-free counter that is checked before
+ * the roster is touched, so requests for a full course are turned away
+ * without taking the lock or scanning the roster. Every time the counter
+ * reaches zero a COURSE_FILLED event is reported, and every time a seat
+ * frees up again a COURSE_REOPENED event.
+ *
+ * Students turned away by a full course can join its waitlist instead of
+ * retrying. A seat freed while students are waiting never goes back to
+ * the counter: it is held for the next student in line, who is then
+ * enrolled on the promotion executor. Promotion runs outside the lock of
+ * whoever freed the seat, so it never nests two students' locks.
  */
 public class Course {
-    private String courseCode;
-    private String courseName;
-    private int maxStudents;
-    private List<Student> registeredStudents;
+    private volatile String courseCode;
+    private volatile String courseName;
+    private volatile int maxStudents;
+    private volatile int credits;
+    private final OrderedHandleSet<Student> registeredStudents;
     
-    // Course code pattern (e.g., CS101, MATH200)
-    private static final Pattern COURSE_CODE_PATTERN = 
-        Pattern.compile("^[A-Z]{2,4}\\d{3,4}$");
+    // Seats not yet claimed; negative if capacity was lowered below enrollment
+    private final AtomicInteger remainingSeats = new AtomicInteger();
+    private volatile RegistrationListener listener = RegistrationListener.NO_OP;
+    private volatile RegistrationMetrics metrics = RegistrationMetrics.DISABLED;
+    private volatile int handle = -1; // Assigned on first use, then never changed
+    
+    // Roster restored from stored state but not loaded yet; guarded by this
+    private Supplier<? extends Collection<Student>> deferredRoster;
+    private int deferredCount;
+    
+    // Students on the roster, including a deferred roster; written under this
+    private volatile int enrollment;
+    
+    // Waitlist and students holding a freed seat but not enrolled yet; guarded by this
+    private final Waitlist waitlist = new Waitlist();
+    private final ArrayDeque<Student> pendingPromotions = new ArrayDeque<>();
+    private boolean promotionScheduled;
+    private volatile Executor promotionExecutor;
+    
+    // Weekly meetings and their slot mask (null when the course has none)
+    private volatile List<MeetingTime> meetingTimes = List.of();
+    private volatile long[] slotMask;
+    
+    // Bumped whenever any course's meetings change, so students rebuild their busy slots
+    private static final AtomicLong SCHEDULE_VERSION = new AtomicLong();
+    
+    // Bumped whenever any course's credits change, so students re-sum their credit totals
+    private static final AtomicLong CREDIT_VERSION = new AtomicLong();
+    
+    public static final int DEFAULT_CREDITS = 3;
+    
+    private static final AtomicIntegerFieldUpdater<Course> HANDLE =
+        AtomicIntegerFieldUpdater.newUpdater(Course.class, "handle");
+    
+    // Direct requirements, replaced under Requisites.LOCK, and their compiled form
+    private volatile List<Course> prerequisites = List.of();
+    private volatile List<Course> corequisites = List.of();
+    private volatile Requisites requisites;
+    private int dependents; // Courses requiring this one; guarded by Requisites.LOCK
     
     /**
      * Constructor for Course
@@ -25,10 +94,60 @@ public class Course {
      * @param maxStudents Maximum number of students allowed
      */
     public Course(String courseCode, String courseName, int maxStudents) {
-        setCourseCode(courseCode);
-        setCourseName(courseName);
+        this(courseCode, courseName, maxStudents, DEFAULT_CREDITS);
+    }
+    
+    /**
+     * Constructor for Course
+     * @param courseCode The course code
+     * @param courseName The course name
+     * @param maxStudents Maximum number of students allowed
+     * @param credits Credit hours earned by taking the course
+     */
+    public Course(String courseCode, String courseName, int maxStudents, int credits) {
+        this(courseCode, courseName, maxStudents, credits, false);
+    }
+    
+    private Course(String courseCode, String courseName, int maxStudents, int credits, boolean validated) {
+        if (validated) {
+            this.courseCode = courseCode;
+            this.courseName = courseName;
+        } else {
+            setCourseCode(courseCode);
+            setCourseName(courseName);
+        }
         setMaxStudents(maxStudents);
-        this.registeredStudents = new ArrayList<>();
+        checkCredits(credits);
+        this.credits = credits;
+        this.registeredStudents = new OrderedHandleSet<>();
+        this.promotionExecutor = DefaultPromoter.EXECUTOR;
+    }
+    
+    /**
+     * Create a course with the default credits from a code and name that
+     * already passed validation; see the four-argument ofValidated
+     * @param courseCode The course code
+     * @param courseName The course name
+     * @param maxStudents Maximum number of students allowed
+     * @return The course
+     */
+    public static Course ofValidated(String courseCode, String courseName, int maxStudents) {
+        return ofValidated(courseCode, courseName, maxStudents, DEFAULT_CREDITS);
+    }
+    
+    /**
+     * Create a course from a code and name that already passed validation,
+     * e.g. read back from this system's own snapshot, skipping the format
+     * checks. They must be exactly what the public constructor stored:
+     * trimmed, with the code upper-cased. Capacity and credits are still checked.
+     * @param courseCode The course code
+     * @param courseName The course name
+     * @param maxStudents Maximum number of students allowed
+     * @param credits Credit hours earned by taking the course
+     * @return The course
+     */
+    public static Course ofValidated(String courseCode, String courseName, int maxStudents, int credits) {
+        return new Course(courseCode, courseName, maxStudents, credits, true);
     }
     
     // Getters
@@ -44,37 +163,376 @@ public class Course {
         return maxStudents;
     }
     
-    public List<Student> getRegisteredStudents() {
-        return new ArrayList<>(registeredStudents); // Return copy for encapsulation
+    public int getCredits() {
+        return credits;
     }
     
+    public synchronized List<Student> getRegisteredStudents() {
+        loadDeferredRoster();
+        return registeredStudents.toList(); // Return copy for encapsulation
+    }
+    
+    /**
+     * Get the registered students without copying them on every call.
+     * The list is an immutable snapshot shared until the roster changes,
+     * so it can be iterated while registrations continue.
+     * @return Read-only list of the registered students in registration order
+     */
+    public synchronized List<Student> getRegisteredStudentsView() {
+        loadDeferredRoster();
+        return registeredStudents.snapshot();
+    }
+    
+    /**
+     * Visit the registered students in registration order. The action runs
+     * on a snapshot after the course lock is released, so it may call back
+     * into the registration system.
+     * @param action Called for every registered student
+     */
+    public void forEachRegisteredStudent(Consumer<? super Student> action) {
+        if (action == null) {
+            throw new IllegalArgumentException("Action cannot be null");
+        }
+        getRegisteredStudentsView().forEach(action);
+    }
+    
+    /**
+     * Get the number of registered students without locking
+     * @return Current enrollment
+     */
     public int getCurrentEnrollment() {
-        return registeredStudents.size();
+        return enrollment;
+    }
+    
+    /**
+     * Get the number of seats that can still be claimed
+     * @return Remaining seats, never negative
+     */
+    public int getAvailableSeats() {
+        return Math.max(0, remainingSeats.get());
+    }
+    
+    public List<MeetingTime> getMeetingTimes() {
+        return meetingTimes;
+    }
+    
+    /**
+     * Set the weekly meetings of the course. Students already enrolled keep
+     * their enrollment even if the new times conflict with their schedule.
+     * @param meetings The meetings; empty if the course has no fixed time
+     */
+    public void setMeetingTimes(Collection<MeetingTime> meetings) {
+        if (meetings == null) {
+            throw new IllegalArgumentException("Meeting times cannot be null");
+        }
+        for (MeetingTime meeting : meetings) {
+            if (meeting == null) {
+                throw new IllegalArgumentException("Meeting times cannot be null");
+            }
+        }
+        List<MeetingTime> copy = List.copyOf(meetings);
+        List<MeetingTime> previous = this.meetingTimes;
+        this.slotMask = copy.isEmpty() ? null : WeeklySlots.of(copy);
+        this.meetingTimes = copy;
+        SCHEDULE_VERSION.incrementAndGet();
+        if (!copy.equals(previous)) {
+            listener.onEvent(RegistrationEvent.SCHEDULE_CHANGED, null, this, null);
+        }
+    }
+    
+    /**
+     * Check whether this course meets at the same time as another
+     * @param other The other course
+     * @return true if any meetings of the two courses overlap
+     */
+    public boolean conflictsWith(Course other) {
+        if (other == null) {
+            throw new IllegalArgumentException("Course cannot be null");
+        }
+        long[] mine = slotMask;
+        long[] theirs = other.slotMask;
+        return mine != null && theirs != null && WeeklySlots.intersects(mine, theirs);
+    }
+    
+    long[] getSlotMask() {
+        return slotMask;
+    }
+    
+    static long scheduleVersion() {
+        return SCHEDULE_VERSION.get();
+    }
+    
+    /**
+     * Require a course to be completed before this one can be taken.
+     * Prerequisites are transitive: the prerequisites of a prerequisite
+     * must be completed as well.
+     * @param prerequisite The required course
+     * @throws IllegalArgumentException if the requirement would create a cycle
+     */
+    public void addPrerequisite(Course prerequisite) {
+        if (prerequisite == null) {
+            throw new IllegalArgumentException("Prerequisite cannot be null");
+        }
+        synchronized (Requisites.LOCK) {
+            Requisites.checkAcyclic(this, prerequisite);
+            if (prerequisites.contains(prerequisite)) {
+                return;
+            }
+            prerequisites = append(prerequisites, prerequisite);
+            prerequisite.dependents++;
+            Requisites.catalogChanged();
+        }
+        // Outside Requisites.LOCK, which listeners must not hold while locking a course
+        listener.onEvent(RegistrationEvent.PREREQUISITE_ADDED, null, this, prerequisite.getCourseCode());
+    }
+    
+    /**
+     * Require a course to be completed before, or taken together with, this one.
+     * A corequisite has to be registered first when both are taken together.
+     * @param corequisite The required course
+     * @throws IllegalArgumentException if the requirement would create a cycle
+     */
+    public void addCorequisite(Course corequisite) {
+        if (corequisite == null) {
+            throw new IllegalArgumentException("Corequisite cannot be null");
+        }
+        synchronized (Requisites.LOCK) {
+            Requisites.checkAcyclic(this, corequisite);
+            if (corequisites.contains(corequisite)) {
+                return;
+            }
+            corequisites = append(corequisites, corequisite);
+            corequisite.dependents++;
+            Requisites.catalogChanged();
+        }
+        listener.onEvent(RegistrationEvent.COREQUISITE_ADDED, null, this, corequisite.getCourseCode());
+    }
+    
+    private static List<Course> append(List<Course> courses, Course course) {
+        List<Course> grown = new ArrayList<>(courses.size() + 1);
+        grown.addAll(courses);
+        grown.add(course);
+        return Collections.unmodifiableList(grown);
+    }
+    
+    /**
+     * @return Read-only list of the direct prerequisites, in the order they were added
+     */
+    public List<Course> getPrerequisites() {
+        return prerequisites;
+    }
+    
+    /**
+     * @return Read-only list of the corequisites, in the order they were added
+     */
+    public List<Course> getCorequisites() {
+        return corequisites;
+    }
+    
+    public boolean hasRequirements() {
+        return !prerequisites.isEmpty() || !corequisites.isEmpty();
+    }
+    
+    /**
+     * Get the compiled requirements, compiling them if the catalog changed
+     * @return Requirements that are current for the catalog
+     */
+    Requisites getRequisites() {
+        Requisites current = requisites;
+        if (current == null || !current.isCurrent()) {
+            current = Requisites.compile(this);
+        }
+        return current;
+    }
+    
+    boolean isRequired() {
+        return dependents > 0;
+    }
+    
+    Requisites compiledRequisites() {
+        return requisites;
+    }
+    
+    void setRequisites(Requisites requisites) {
+        this.requisites = requisites;
+    }
+    
+    public boolean isFull() {
+        return remainingSeats.get() <= 0;
+    }
+    
+    /**
+     * Get the dense int handle of this course, so enrollments can be stored
+     * as sets of handles. It stays the same when the code changes.
+     * @return The handle, assigned the first time it is requested
+     */
+    public int getHandle() {
+        int current = handle;
+        if (current < 0) {
+            // Without locking: this is called under the locks of students as well as courses
+            current = HandleAllocator.COURSES.assign(this, HANDLE);
+        }
+        return current;
+    }
+    
+    public RegistrationListener getEventListener() {
+        return listener;
+    }
+    
+    /**
+     * Set the listener notified of roster changes for this course
+     * @param listener The listener to notify
+     */
+    public void setEventListener(RegistrationListener listener) {
+        if (listener == null) {
+            throw new IllegalArgumentException("Listener cannot be null");
+        }
+        this.listener = listener;
+    }
+    
+    public RegistrationMetrics getMetrics() {
+        return metrics;
+    }
+    
+    /**
+     * Set the metrics that time admissions to this course
+     * @param metrics The metrics to record into, usually the system's
+     */
+    public void setMetrics(RegistrationMetrics metrics) {
+        if (metrics == null) {
+            throw new IllegalArgumentException("Metrics cannot be null");
+        }
+        this.metrics = metrics;
+    }
+    
+    /**
+     * Set the executor that enrolls students promoted from the waitlist.
+     * It must run tasks asynchronously; the default is a shared daemon thread.
+     * @param executor The executor to use
+     */
+    public void setPromotionExecutor(Executor executor) {
+        if (executor == null) {
+            throw new IllegalArgumentException("Executor cannot be null");
+        }
+        this.promotionExecutor = executor;
     }
     
     // Setters with validation (Encapsulation)
-    public void setCourseCode(String courseCode) {
-        if (courseCode == null || courseCode.trim().isEmpty()) {
+    
+    // Locked so the change is reported before any roster change made under the new code
+    public synchronized void setCourseCode(String courseCode) {
+        String trimmed = courseCode == null ? "" : courseCode.trim();
+        if (trimmed.isEmpty()) {
             throw new IllegalArgumentException("Course code cannot be null or empty");
         }
-        if (!COURSE_CODE_PATTERN.matcher(courseCode.trim().toUpperCase()).matches()) {
+        // Returns the string itself when it is upper case already, so a canonical code costs nothing
+        String code = trimmed.toUpperCase();
+        if (!Validation.isValidCourseCode(code)) {
             throw new IllegalArgumentException("Invalid course code format. Expected format: CS101, MATH200, etc.");
         }
-        this.courseCode = courseCode.trim().toUpperCase();
+        String previous = this.courseCode;
+        this.courseCode = code;
+        if (previous != null && !previous.equals(this.courseCode)) {
+            try {
+                listener.onEvent(RegistrationEvent.COURSE_RENAMED, null, this, previous);
+            } catch (IllegalArgumentException e) {
+                this.courseCode = previous; // The system holding the course already has the code
+                throw e;
+            }
+        }
     }
     
     public void setCourseName(String courseName) {
-        if (courseName == null || courseName.trim().isEmpty()) {
+        String trimmed = courseName == null ? "" : courseName.trim();
+        if (trimmed.isEmpty()) {
             throw new IllegalArgumentException("Course name cannot be null or empty");
         }
-        this.courseName = courseName.trim();
+        String previous = this.courseName;
+        this.courseName = trimmed;
+        if (previous != null && !previous.equals(this.courseName)) {
+            listener.onEvent(RegistrationEvent.COURSE_RENAMED, null, this, null);
+        }
     }
     
-    public void setMaxStudents(int maxStudents) {
+    /**
+     * Change the credit hours of the course. Students already enrolled have
+     * their credit totals recomputed the next time they are checked.
+     * @param credits Credit hours earned by taking the course
+     */
+    public void setCredits(int credits) {
+        checkCredits(credits);
+        int previous = this.credits;
+        this.credits = credits;
+        CREDIT_VERSION.incrementAndGet(); // After the write, so a re-sum sees the new value
+        if (previous != credits) {
+            listener.onEvent(RegistrationEvent.CREDITS_CHANGED, null, this, null);
+        }
+    }
+    
+    private static void checkCredits(int credits) {
+        if (credits < 0) {
+            throw new IllegalArgumentException("Credits cannot be negative");
+        }
+    }
+    
+    static long creditVersion() {
+        return CREDIT_VERSION.get();
+    }
+    
+    public synchronized void setMaxStudents(int maxStudents) {
         if (maxStudents <= 0) {
             throw new IllegalArgumentException("Maximum students must be greater than 0");
         }
+        int delta = maxStudents - this.maxStudents;
+        int before;
+        int after;
+        int promoted;
+        do {
+            // New seats go to waiting students before anyone else can claim them
+            before = remainingSeats.get();
+            after = before + delta;
+            promoted = Math.min(waitlist.size(), Math.max(0, after) - Math.max(0, before));
+            promoted = Math.max(0, promoted);
+        } while (!remainingSeats.compareAndSet(before, after - promoted));
         this.maxStudents = maxStudents;
+        seatsChanged(before, after - promoted);
+        for (int i = 0; i < promoted; i++) {
+            schedulePromotion(waitlist.poll());
+        }
+        listener.onEvent(RegistrationEvent.CAPACITY_CHANGED, null, this, null);
+    }
+    
+    /**
+     * Restore a roster from stored state without loading it. The seats are
+     * taken immediately; the students themselves are only loaded the first
+     * time the roster is read or changed.
+     * @param size Number of students on the stored roster
+     * @param loader Supplies the students, in roster order
+     */
+    public synchronized void deferRoster(int size, Supplier<? extends Collection<Student>> loader) {
+        if (loader == null) {
+            throw new IllegalArgumentException("Roster loader cannot be null");
+        }
+        if (!registeredStudents.isEmpty() || deferredRoster != null) {
+            throw new IllegalStateException("Roster of " + courseCode + " is already populated");
+        }
+        int remaining = remainingSeats.addAndGet(-size);
+        deferredRoster = loader;
+        deferredCount = size;
+        enrollment += size;
+        seatsChanged(remaining + size, remaining);
+    }
+    
+    // Caller holds this
+    private void loadDeferredRoster() {
+        if (deferredRoster != null) {
+            Supplier<? extends Collection<Student>> loader = deferredRoster;
+            deferredRoster = null;
+            deferredCount = 0;
+            for (Student student : loader.get()) {
+                registeredStudents.add(student.getHandle(), student);
+            }
+        }
     }
     
     /**
@@ -87,21 +545,258 @@ public class Course {
             throw new IllegalArgumentException("Student cannot be null");
         }
         
-        if (registeredStudents.contains(student)) {
-            System.out.println("Student " + student.getName() + " is already registered for " + courseCode);
-            return false;
+        return admit(student).isSuccess();
+    }
+    
+    /**
+     * Add a student to the roster
+     * @param student The student to add
+     * @return SUCCESS, FULL or DUPLICATE
+     */
+    EnrollmentResult admit(Student student) {
+        RegistrationMetrics m = metrics;
+        long start = m.start();
+        return m.stop(Operation.COURSE_ADMIT, admitUntimed(student), start);
+    }
+    
+    private EnrollmentResult admitUntimed(Student student) {
+        // Fast path: claim a seat before doing any roster work
+        if (!tryReserveSeat()) {
+            listener.onEvent(RegistrationEvent.COURSE_FULL, student, this, null);
+            return EnrollmentResult.FULL;
         }
-        
-        if (registeredStudents.size() >= maxStudents) {
-            System.out.println("Course " + courseCode + " is full. Cannot register " + student.getName());
+        return admitReserved(student);
+    }
+    
+    // Adds a student for whom a seat was already claimed
+    private synchronized EnrollmentResult admitReserved(Student student) {
+        loadDeferredRoster();
+        if (registeredStudents.contains(student.getHandle())) {
+            freeSeat(); // Give the claimed seat back
+            listener.onEvent(RegistrationEvent.ALREADY_REGISTERED, student, this, null);
+            return EnrollmentResult.DUPLICATE;
+        }
+        registeredStudents.add(student.getHandle(), student);
+        enrollment++;
+        waitlist.remove(student); // No longer waiting, if they were
+        listener.onEvent(RegistrationEvent.REGISTERED, student, this, null);
+        return EnrollmentResult.SUCCESS;
+    }
+    
+    /**
+     * Put a student back on the roster when recovering stored state, taking
+     * a seat even if none is left
+     * @param student The student to restore
+     */
+    synchronized void restoreStudent(Student student) {
+        loadDeferredRoster();
+        if (!registeredStudents.add(student.getHandle(), student)) {
+            return;
+        }
+        enrollment++;
+        waitlist.remove(student);
+        int remaining = remainingSeats.decrementAndGet();
+        seatsChanged(remaining + 1, remaining);
+        listener.onEvent(RegistrationEvent.REGISTERED, student, this, null);
+    }
+    
+    /**
+     * Add a student to the roster, or to the waitlist if the course is full
+     * @param student The student to add
+     * @param priority Waitlist priority; higher values are served first
+     * @return SUCCESS, WAITLISTED or DUPLICATE
+     */
+    EnrollmentResult admitOrWaitlist(Student student, int priority) {
+        while (true) {
+            if (tryReserveSeat()) {
+                return admitReserved(student);
+            }
+            synchronized (this) {
+                // Seats are only freed under this lock, so none can be missed from here on
+                if (remainingSeats.get() > 0) {
+                    continue;
+                }
+                loadDeferredRoster();
+                if (registeredStudents.contains(student.getHandle())) {
+                    listener.onEvent(RegistrationEvent.ALREADY_REGISTERED, student, this, null);
+                    return EnrollmentResult.DUPLICATE;
+                }
+                if (waitlist.add(student, priority)) {
+                    listener.onEvent(RegistrationEvent.WAITLISTED, student, this, Integer.toString(priority));
+                } else {
+                    listener.onEvent(RegistrationEvent.ALREADY_WAITLISTED, student, this, null);
+                }
+                return EnrollmentResult.WAITLISTED;
+            }
+        }
+    }
+    
+    /**
+     * Add a student promoted from the waitlist, using the seat held for them
+     * @param student The promoted student
+     * @return SUCCESS, or DUPLICATE if the student was registered meanwhile
+     */
+    synchronized EnrollmentResult admitPromoted(Student student) {
+        loadDeferredRoster();
+        if (registeredStudents.contains(student.getHandle())) {
+            freeSeat(); // Pass the seat on
+            return EnrollmentResult.DUPLICATE;
+        }
+        registeredStudents.add(student.getHandle(), student);
+        enrollment++;
+        waitlist.remove(student); // No longer waiting, if they were
+        listener.onEvent(RegistrationEvent.PROMOTED, student, this, null);
+        listener.onEvent(RegistrationEvent.REGISTERED, student, this, null);
+        return EnrollmentResult.SUCCESS;
+    }
+    
+    /**
+     * Give up the seat held for a promoted student; it goes to the next in line.
+     * The student has left the waitlist and does not get their place back.
+     * @param student The promoted student
+     */
+    synchronized void declinePromotion(Student student) {
+        listener.onEvent(RegistrationEvent.LEFT_WAITLIST, student, this, null);
+        freeSeat();
+    }
+    
+    /**
+     * Put a student back on the waitlist when recovering stored state. Students
+     * restored with the same priority are served in the order they are restored.
+     * @param student The waiting student
+     * @param priority Their waitlist priority
+     * @return true if the student was neither registered nor waiting yet
+     */
+    public synchronized boolean restoreWaitlisted(Student student, int priority) {
+        if (student == null) {
+            throw new IllegalArgumentException("Student cannot be null");
+        }
+        loadDeferredRoster();
+        if (registeredStudents.contains(student.getHandle()) || !waitlist.add(student, priority)) {
             return false;
         }
-        
-        registeredStudents.add(student);
-        System.out.println("Student " + student.getName() + " successfully registered for " + courseCode);
+        listener.onEvent(RegistrationEvent.WAITLISTED, student, this, Integer.toString(priority));
         return true;
     }
     
+    /**
+     * Hand every free seat to the next waiting student, as a dropped seat
+     * would be. Used after recovery, which restores waitlists without
+     * promoting anyone.
+     */
+    public synchronized void promoteWaitlisted() {
+        while (!waitlist.isEmpty() && tryReserveSeat()) {
+            schedulePromotion(waitlist.poll());
+        }
+    }
+    
+    /**
+     * Remove a student from the waitlist
+     * @param student The student to remove
+     * @return true if the student was waiting
+     */
+    public synchronized boolean leaveWaitlist(Student student) {
+        if (student == null) {
+            throw new IllegalArgumentException("Student cannot be null");
+        }
+        if (waitlist.remove(student)) {
+            listener.onEvent(RegistrationEvent.LEFT_WAITLIST, student, this, null);
+            return true;
+        }
+        listener.onEvent(RegistrationEvent.NOT_WAITLISTED, student, this, null);
+        return false;
+    }
+    
+    public synchronized boolean isWaitlisted(Student student) {
+        return student != null && waitlist.contains(student);
+    }
+    
+    public synchronized int getWaitlistSize() {
+        return waitlist.size();
+    }
+    
+    /**
+     * Get the students on the waitlist
+     * @return Copy of the waitlist, next in line first
+     */
+    public synchronized List<Student> getWaitlistedStudents() {
+        return waitlist.toList();
+    }
+    
+    /**
+     * Get the students on the waitlist with their priorities
+     * @return Copy of the waitlist, next in line first
+     */
+    public synchronized Map<Student, Integer> getWaitlistPriorities() {
+        return waitlist.toPriorityMap();
+    }
+    
+    // Caller holds this. Hands a free seat to the next waiting student, or back to the counter.
+    private void freeSeat() {
+        Student next = waitlist.poll();
+        if (next != null) {
+            schedulePromotion(next);
+        } else {
+            returnSeat();
+        }
+    }
+    
+    // Caller holds this
+    private void schedulePromotion(Student student) {
+        pendingPromotions.add(student);
+        if (!promotionScheduled) {
+            promotionScheduled = true;
+            promotionExecutor.execute(this::runPromotions);
+        }
+    }
+    
+    private void runPromotions() {
+        while (true) {
+            Student student;
+            synchronized (this) {
+                student = pendingPromotions.poll();
+                if (student == null) {
+                    promotionScheduled = false;
+                    return;
+                }
+            }
+            student.acceptPromotion(this);
+        }
+    }
+    
+    /**
+     * Claim one seat if any is left, without locking
+     * @return true if a seat was claimed, false if the course is full
+     */
+    private boolean tryReserveSeat() {
+        int remaining;
+        do {
+            remaining = remainingSeats.get();
+            if (remaining <= 0) {
+                return false;
+            }
+        } while (!remainingSeats.compareAndSet(remaining, remaining - 1));
+        if (remaining == 1) {
+            listener.onEvent(RegistrationEvent.COURSE_FILLED, null, this, null);
+        }
+        return true;
+    }
+    
+    private void returnSeat() {
+        if (remainingSeats.incrementAndGet() == 1) {
+            listener.onEvent(RegistrationEvent.COURSE_REOPENED, null, this, null);
+        }
+    }
+    
+    // Reports a change between full and not full
+    private void seatsChanged(int before, int after) {
+        if (before > 0 && after <= 0) {
+            listener.onEvent(RegistrationEvent.COURSE_FILLED, null, this, null);
+        } else if (before <= 0 && after > 0) {
+            listener.onEvent(RegistrationEvent.COURSE_REOPENED, null, this, null);
+        }
+    }
+    
     /**
      * Remove a student from the course
      * @param student The student to remove
@@ -112,33 +807,32 @@ public class Course {
             throw new IllegalArgumentException("Student cannot be null");
         }
         
-        if (registeredStudents.remove(student)) {
-            System.out.println("Student " + student.getName() + " successfully removed from " + courseCode);
+        return release(student);
+    }
+    
+    /**
+     * Remove a student from the roster
+     * @param student The student to remove
+     * @return true if the student was registered
+     */
+    synchronized boolean release(Student student) {
+        loadDeferredRoster();
+        if (registeredStudents.remove(student.getHandle())) {
+            enrollment--;
+            freeSeat(); // Released only once the roster is updated
+            // Reported once the seat is back, so observers see the freed seat
+            listener.onEvent(RegistrationEvent.REMOVED, student, this, null);
             return true;
-        } else {
-            System.out.println("Student " + student.getName() + " is not registered for " + courseCode);
-            return false;
         }
+        listener.onEvent(RegistrationEvent.NOT_REGISTERED, student, this, null);
+        return false;
     }
     
     /**
      * Display course information including registered students
      */
     public void displayCourseInfo() {
-        System.out.println("\n=== Course Information ===");
-        System.out.println("Course Code: " + courseCode);
-        System.out.println("Course Name: " + courseName);
-        System.out.println("Enrollment: " + registeredStudents.size() + "/" + maxStudents);
-        
-        if (registeredStudents.isEmpty()) {
-            System.out.println("No students registered.");
-        } else {
-            System.out.println("Registered Students:");
-            for (Student student : registeredStudents) {
-                System.out.println("  - " + student.getName() + " (ID: " + student.getId() + ")");
-            }
-        }
-        System.out.println("=========================");
+        RegistrationExporter.print(out -> RegistrationExporter.TEXT.writeRoster(this, out));
     }
     
     @Override
@@ -158,4 +852,13 @@ public class Course {
     public String toString() {
         return courseCode + " - " + courseName;
     }
+    
+    // Shared promotion thread, started on first use
+    private static final class DefaultPromoter {
+        static final Executor EXECUTOR = Executors.newSingleThreadExecutor(r -> {
+            Thread thread = new Thread(r, "registration-waitlist");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
 }
\ No newline at end of file
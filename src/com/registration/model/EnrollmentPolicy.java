@@ -0,0 +1,37 @@
+package com.registration.model;
+
+/**
+ * Decides whether a student may take one more course, e.g. to cap the
+ * credit load per term. The policy is consulted while the student is
+ * locked, so concurrent enrollments of one student are checked one at a
+ * time; implementations must be fast and must not call back into the
+ * registration API.
+ */
+@FunctionalInterface
+public interface EnrollmentPolicy {
+    /**
+     * Policy that allows every enrollment; the default for new students
+     */
+    EnrollmentPolicy UNRESTRICTED = (student, course, resultingCredits) -> true;
+    
+    /**
+     * Called before a student is enrolled or waitlisted
+     * @param student The student asking to enroll
+     * @param course The course requested
+     * @param resultingCredits The student's credit total if the enrollment goes through
+     * @return true to allow the enrollment
+     */
+    boolean permits(Student student, Course course, int resultingCredits);
+    
+    /**
+     * Create a policy capping the credits a student may take
+     * @param limit Maximum total credits
+     * @return Policy rejecting any enrollment that would exceed the limit
+     */
+    static EnrollmentPolicy maxCredits(int limit) {
+        if (limit < 0) {
+            throw new IllegalArgumentException("Credit limit cannot be negative");
+        }
+        return (student, course, resultingCredits) -> resultingCredits <= limit;
+    }
+}
@@ -0,0 +1,35 @@
+package com.registration.model;
+
+/**
+ * Outcome of a single register or drop operation.
+ * Lets callers act on the reason for a failure without parsing console output.
+ */
+public enum EnrollmentResult {
+    SUCCESS,
+    FULL,
+    DUPLICATE,
+    NOT_FOUND,
+    NOT_ENROLLED,
+    ROLLED_BACK,
+    WAITLISTED,
+    CONFLICT,
+    INELIGIBLE,
+    DENIED,
+    NOT_OPEN,
+    BUSY;
+    
+    private static final EnrollmentResult[] VALUES = values();
+    
+    public boolean isSuccess() {
+        return this == SUCCESS;
+    }
+    
+    /**
+     * Get the result with the given ordinal without copying values()
+     * @param code The ordinal of the result
+     * @return The matching EnrollmentResult
+     */
+    public static EnrollmentResult fromCode(int code) {
+        return VALUES[code];
+    }
+}
@@ -0,0 +1,74 @@
+package com.registration.model;
+
+import java.lang.ref.Cleaner;
+import java.util.BitSet;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+
+/**
+ * Hands out dense int handles (0, 1, 2, ...) to the entities of one family,
+ * so membership can be tracked with primitive int sets instead of
+ * scanning object lists. Subclasses draw from their family's allocator,
+ * since a Student subclass and a plain Student share the same sets.
+ *
+ * A handle identifies one entity object, not its ID: it is assigned on
+ * first use and kept for the life of the entity, so renaming an entity
+ * never moves it within the sets that hold it. Once the entity is garbage
+ * collected the handle is freed and handed out again, lowest first, so
+ * handles and the bitsets indexed by them only grow with the number of
+ * live entities. Every structure holding a handle must therefore keep its
+ * entity reachable.
+ */
+final class HandleAllocator {
+    static final HandleAllocator STUDENTS = new HandleAllocator();
+    static final HandleAllocator INSTRUCTORS = new HandleAllocator();
+    static final HandleAllocator OTHER_PEOPLE = new HandleAllocator();
+    static final HandleAllocator COURSES = new HandleAllocator();
+    
+    private static final Cleaner CLEANER = Cleaner.create();
+    
+    // Guarded by this; no handle below lowestFreed is free
+    private final BitSet freed = new BitSet();
+    private int lowestFreed;
+    private int nextHandle;
+    
+    /**
+     * Give an entity its handle unless it already has one. Safe to race:
+     * only one handle is kept, and it is freed when the entity is collected.
+     * @param entity The entity
+     * @param field The entity's handle field, -1 while unassigned
+     * @return The entity's handle
+     */
+    <T> int assign(T entity, AtomicIntegerFieldUpdater<? super T> field) {
+        int handle = allocate();
+        if (field.compareAndSet(entity, -1, handle)) {
+            CLEANER.register(entity, () -> free(handle)); // Must not capture the entity
+            return handle;
+        }
+        free(handle);
+        return field.get(entity);
+    }
+    
+    // The allocator of a person's family, whatever subclass it is
+    static HandleAllocator of(Person person) {
+        if (person instanceof Student) {
+            return STUDENTS;
+        }
+        return person instanceof Instructor ? INSTRUCTORS : OTHER_PEOPLE;
+    }
+    
+    private synchronized int allocate() {
+        int handle = freed.nextSetBit(lowestFreed);
+        if (handle >= 0) {
+            freed.clear(handle);
+            lowestFreed = handle + 1;
+            return handle;
+        }
+        lowestFreed = nextHandle;
+        return nextHandle++;
+    }
+    
+    private synchronized void free(int handle) {
+        freed.set(handle);
+        lowestFreed = Math.min(lowestFreed, handle);
+    }
+}
@@ -1,14 +1,16 @@
 package com.registration.model;
 
-import java.util.ArrayList;
+import com.registration.event.RegistrationEvent;
+import com.registration.export.RegistrationExporter;
 import java.util.List;
+import java.util.function.Consumer;
 
 /**
  * Instructor class extending Person.
  * Demonstrates inheritance and polymorphism through method overriding.
  */
 public class Instructor extends Person {
-    private List<Course> assignedCourses;
+    private final OrderedHandleSet<Course> assignedCourses;
     
     /**
      * Constructor for Instructor
@@ -17,16 +19,55 @@ public class Instructor extends Person {
      * @param id The instructor's ID
      */
     public Instructor(String name, String email, String id) {
-        super(name, email, id);
-        this.assignedCourses = new ArrayList<>();
+        this(name, email, id, false);
+    }
+    
+    private Instructor(String name, String email, String id, boolean validated) {
+        super(name, email, id, validated);
+        this.assignedCourses = new OrderedHandleSet<>();
+    }
+    
+    /**
+     * Create an instructor from fields that already passed validation, e.g. read
+     * back from this system's own snapshot, skipping the checks. The fields
+     * must be exactly what the public constructor stored: trimmed, with a
+     * valid email.
+     * @param name The instructor's name
+     * @param email The instructor's email
+     * @param id The instructor's ID
+     * @return The instructor
+     */
+    public static Instructor ofValidated(String name, String email, String id) {
+        return new Instructor(name, email, id, true);
     }
     
     /**
      * Get list of assigned courses
      * @return Copy of assigned courses list for encapsulation
      */
-    public List<Course> getAssignedCourses() {
-        return new ArrayList<>(assignedCourses);
+    public synchronized List<Course> getAssignedCourses() {
+        return assignedCourses.toList();
+    }
+    
+    /**
+     * Get the assigned courses without copying them on every call.
+     * The list is an immutable snapshot shared until the assignments change.
+     * @return Read-only list of the assigned courses in assignment order
+     */
+    public synchronized List<Course> getAssignedCoursesView() {
+        return assignedCourses.snapshot();
+    }
+    
+    /**
+     * Visit the assigned courses in assignment order. The action runs on a
+     * snapshot after the instructor lock is released.
+     * @param action Called for every assigned course
+     */
+    public void forEachAssignedCourse(Consumer<? super Course> action) {
+        if (action == null) {
+            throw new IllegalArgumentException("Action cannot be null");
+        }
+        getAssignedCoursesView().forEach(action);
     }
     
     /**
@@ -34,18 +75,17 @@ public class Instructor extends Person {
      * @param course The course to assign
      * @return true if assignment successful, false otherwise
      */
-    public boolean assignCourse(Course course) {
+    public synchronized boolean assignCourse(Course course) {
         if (course == null) {
             throw new IllegalArgumentException("Course cannot be null");
         }
         
-        if (assignedCourses.contains(course)) {
-            System.out.println("Instructor " + getName() + " is already assigned to " + course.getCourseCode());
+        if (!assignedCourses.add(course.getHandle(), course)) {
+            getEventListener().onEvent(RegistrationEvent.ALREADY_ASSIGNED, this, course, null);
             return false;
         }
         
-        assignedCourses.add(course);
-        System.out.println("Instructor " + getName() + " successfully assigned to " + course.getCourseCode());
+        getEventListener().onEvent(RegistrationEvent.ASSIGNED, this, course, null);
         return true;
     }
     
@@ -54,16 +94,16 @@ public class Instructor extends Person {
      * @param course The course to unassign
      * @return true if removal successful, false otherwise
      */
-    public boolean unassignCourse(Course course) {
+    public synchronized boolean unassignCourse(Course course) {
         if (course == null) {
             throw new IllegalArgumentException("Course cannot be null");
         }
         
-        if (assignedCourses.remove(course)) {
-            System.out.println("Instructor " + getName() + " unassigned from " + course.getCourseCode());
+        if (assignedCourses.remove(course.getHandle())) {
+            getEventListener().onEvent(RegistrationEvent.UNASSIGNED, this, course, null);
             return true;
         } else {
-            System.out.println("Instructor " + getName() + " is not assigned to " + course.getCourseCode());
+            getEventListener().onEvent(RegistrationEvent.NOT_ASSIGNED, this, course, null);
             return false;
         }
     }
@@ -72,7 +112,7 @@ public class Instructor extends Person {
      * Get number of assigned courses
      * @return Number of courses assigned
      */
-    public int getAssignedCoursesCount() {
+    public synchronized int getAssignedCoursesCount() {
         return assignedCourses.size();
     }
     
@@ -82,26 +122,11 @@ public class Instructor extends Person {
      */
     @Override
     public void displayDetails() {
-        System.out.println("\n=== Instructor Details ===");
-        System.out.println("Name: " + getName());
-        System.out.println("Email: " + getEmail());
-        System.out.println("Instructor ID: " + getId());
-        System.out.println("Assigned Courses: " + assignedCourses.size());
-        
-        if (assignedCourses.isEmpty()) {
-            System.out.println("No courses assigned.");
-        } else {
-            System.out.println("Course Assignments:");
-            for (Course course : assignedCourses) {
-                System.out.println("  - " + course.getCourseCode() + ": " + course.getCourseName() + 
-                                " (" + course.getCurrentEnrollment() + "/" + course.getMaxStudents() + " students)");
-            }
-        }
-        System.out.println("=========================");
+        RegistrationExporter.print(out -> RegistrationExporter.TEXT.writeLoad(this, out));
     }
     
     @Override
-    public String toString() {
+    public synchronized String toString() {
         return "Instructor{" +
                 "name='" + getName() + '\'' +
                 ", id='" + getId() + '\'' +
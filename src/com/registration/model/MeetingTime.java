@@ -0,0 +1,73 @@
+package com.registration.model;
+
+import java.time.DayOfWeek;
+import java.time.LocalTime;
+import java.time.format.TextStyle;
+import java.util.Locale;
+
+/**
+ * One weekly meeting of a course, e.g. Monday 09:00-10:15.
+ * Immutable; a course usually has several.
+ */
+public final class MeetingTime {
+    private final DayOfWeek day;
+    private final LocalTime start;
+    private final LocalTime end;
+    
+    /**
+     * Constructor for MeetingTime
+     * @param day The day of the week
+     * @param start Start time
+     * @param end End time, after the start on the same day
+     */
+    public MeetingTime(DayOfWeek day, LocalTime start, LocalTime end) {
+        if (day == null || start == null || end == null) {
+            throw new IllegalArgumentException("Day, start and end cannot be null");
+        }
+        if (!end.isAfter(start)) {
+            throw new IllegalArgumentException("Meeting must end after it starts");
+        }
+        this.day = day;
+        this.start = start;
+        this.end = end;
+    }
+    
+    public DayOfWeek getDay() {
+        return day;
+    }
+    
+    public LocalTime getStart() {
+        return start;
+    }
+    
+    public LocalTime getEnd() {
+        return end;
+    }
+    
+    /**
+     * Check whether two meetings overlap in time
+     * @param other The other meeting
+     * @return true if both take place on the same day at the same time
+     */
+    public boolean overlaps(MeetingTime other) {
+        return day == other.day && start.isBefore(other.end) && other.start.isBefore(end);
+    }
+    
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) return true;
+        if (obj == null || getClass() != obj.getClass()) return false;
+        MeetingTime meeting = (MeetingTime) obj;
+        return day == meeting.day && start.equals(meeting.start) && end.equals(meeting.end);
+    }
+    
+    @Override
+    public int hashCode() {
+        return (day.hashCode() * 31 + start.hashCode()) * 31 + end.hashCode();
+    }
+    
+    @Override
+    public String toString() {
+        return day.getDisplayName(TextStyle.SHORT, Locale.ENGLISH) + " " + start + "-" + end;
+    }
+}
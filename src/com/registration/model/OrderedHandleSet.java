@@ -0,0 +1,276 @@
+package com.registration.model;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.RandomAccess;
+import java.util.function.Consumer;
+
+/**
+ * Insertion-ordered set of entities keyed by their int handle.
+ *
+ * Entities are kept in an append-only array in the order they were added;
+ * an open-addressing table maps each handle to its position, so contains,
+ * add and remove take constant time. Removal leaves a gap that is skipped
+ * during iteration, and the array is compacted once gaps outnumber the
+ * entities, so iteration order is exactly that of a list with the same
+ * adds and removes.
+ *
+ * snapshot() returns an immutable copy that is cached until the next
+ * change, so repeated reads of an unchanged set allocate nothing.
+ *
+ * Not thread-safe; every set is guarded by the monitor of its owner.
+ *
+ * @param <T> The entity type
+ */
+final class OrderedHandleSet<T> implements Iterable<T> {
+    private static final int FREE = -1;
+    private static final int DELETED = -2;
+    private static final int INITIAL_CAPACITY = 8;
+    
+    // Entities in insertion order, with null gaps for removed entries
+    private Object[] items;
+    private int[] itemHandles;
+    private int end;
+    private int size;
+    
+    // Open-addressing table of (handle, position) pairs
+    private int[] keys;
+    private int[] positions;
+    private int used; // Occupied plus deleted table slots
+    
+    private List<T> snapshot; // Cached until the next add or remove
+    
+    OrderedHandleSet() {
+        items = new Object[INITIAL_CAPACITY];
+        itemHandles = new int[INITIAL_CAPACITY];
+        keys = new int[INITIAL_CAPACITY * 2];
+        positions = new int[INITIAL_CAPACITY * 2];
+        Arrays.fill(keys, FREE);
+    }
+    
+    boolean contains(int handle) {
+        return find(handle) >= 0;
+    }
+    
+    /**
+     * Add an entity at the end unless an entity with the same handle is present
+     * @return true if the entity was added
+     */
+    boolean add(int handle, T item) {
+        if (handle < 0) {
+            throw new IllegalArgumentException("Handle cannot be negative");
+        }
+        if (find(handle) >= 0) {
+            return false;
+        }
+        if (end == items.length) {
+            if (size * 2 <= end) {
+                compact();
+            } else {
+                items = Arrays.copyOf(items, end * 2);
+                itemHandles = Arrays.copyOf(itemHandles, end * 2);
+            }
+        }
+        if ((used + 1) * 4 > keys.length * 3) {
+            rehash(size * 4 >= keys.length ? keys.length * 2 : keys.length);
+        }
+        items[end] = item;
+        itemHandles[end] = handle;
+        snapshot = null;
+        insert(handle, end);
+        end++;
+        size++;
+        return true;
+    }
+    
+    /**
+     * Remove the entity with the given handle
+     * @return true if an entity was removed
+     */
+    boolean remove(int handle) {
+        int slot = find(handle);
+        if (slot < 0) {
+            return false;
+        }
+        items[positions[slot]] = null;
+        keys[slot] = DELETED;
+        snapshot = null;
+        size--;
+        if (size == 0) {
+            end = 0;
+        }
+        return true;
+    }
+    
+    int size() {
+        return size;
+    }
+    
+    boolean isEmpty() {
+        return size == 0;
+    }
+    
+    /**
+     * Visit the entities in insertion order
+     * @param action Called for every entity
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public void forEach(Consumer<? super T> action) {
+        for (int i = 0; i < end; i++) {
+            Object item = items[i];
+            if (item != null) {
+                action.accept((T) item);
+            }
+        }
+    }
+    
+    /**
+     * Iterate over the entities in insertion order; the set must not be changed meanwhile
+     * @return Read-only iterator
+     */
+    @Override
+    public Iterator<T> iterator() {
+        return new Iterator<T>() {
+            private int next = skipGaps(0);
+            
+            @Override
+            public boolean hasNext() {
+                return next < end;
+            }
+            
+            @Override
+            @SuppressWarnings("unchecked")
+            public T next() {
+                if (next >= end) {
+                    throw new NoSuchElementException();
+                }
+                T item = (T) items[next];
+                next = skipGaps(next + 1);
+                return item;
+            }
+        };
+    }
+    
+    private int skipGaps(int from) {
+        while (from < end && items[from] == null) {
+            from++;
+        }
+        return from;
+    }
+    
+    /**
+     * @return New list of the entities in insertion order
+     */
+    List<T> toList() {
+        List<T> list = new ArrayList<>(size);
+        forEach(list::add);
+        return list;
+    }
+    
+    /**
+     * Get an immutable copy of the entities in insertion order. The copy is
+     * shared by all callers until the set changes; it can be read from any
+     * thread without holding the owner's lock.
+     * @return Read-only list of the entities
+     */
+    List<T> snapshot() {
+        List<T> current = snapshot;
+        if (current == null) {
+            Object[] copy = new Object[size];
+            int next = 0;
+            for (int i = 0; i < end; i++) {
+                if (items[i] != null) {
+                    copy[next++] = items[i];
+                }
+            }
+            current = new Snapshot<>(copy);
+            snapshot = current;
+        }
+        return current;
+    }
+    
+    // Table slot holding the handle, or -1
+    private int find(int handle) {
+        int mask = keys.length - 1;
+        for (int i = mix(handle) & mask; ; i = (i + 1) & mask) {
+            int key = keys[i];
+            if (key == handle) {
+                return i;
+            }
+            if (key == FREE) {
+                return -1;
+            }
+        }
+    }
+    
+    // Caller has checked that the handle is absent and the table has room
+    private void insert(int handle, int position) {
+        int mask = keys.length - 1;
+        int i = mix(handle) & mask;
+        while (keys[i] >= 0) {
+            i = (i + 1) & mask;
+        }
+        if (keys[i] == FREE) {
+            used++;
+        }
+        keys[i] = handle;
+        positions[i] = position;
+    }
+    
+    // Closes the gaps left by removals, keeping the order
+    private void compact() {
+        int next = 0;
+        for (int i = 0; i < end; i++) {
+            if (items[i] != null) {
+                items[next] = items[i];
+                itemHandles[next] = itemHandles[i];
+                next++;
+            }
+        }
+        Arrays.fill(items, next, end, null);
+        end = next;
+        rehash(keys.length);
+    }
+    
+    private void rehash(int capacity) {
+        keys = new int[capacity];
+        positions = new int[capacity];
+        Arrays.fill(keys, FREE);
+        used = 0;
+        for (int i = 0; i < end; i++) {
+            if (items[i] != null) {
+                insert(itemHandles[i], i);
+            }
+        }
+    }
+    
+    // Handles are dense, so spread them before masking
+    private static int mix(int value) {
+        int h = value * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+    
+    private static final class Snapshot<T> extends AbstractList<T> implements RandomAccess {
+        private final Object[] items;
+        
+        Snapshot(Object[] items) {
+            this.items = items;
+        }
+        
+        @Override
+        @SuppressWarnings("unchecked")
+        public T get(int index) {
+            return (T) items[index];
+        }
+        
+        @Override
+        public int size() {
+            return items.length;
+        }
+    }
+}
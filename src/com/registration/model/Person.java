@@ -1,19 +1,22 @@
 package com.registration.model;
 
-import java.util.regex.Pattern;
+import com.registration.event.RegistrationEvent;
+import com.registration.event.RegistrationListener;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
 
 /**
  * Abstract base class representing a Person in the registration system.
  * Demonstrates encapsulation through private fields and validation.
  */
 public abstract class Person {
-    private String name;
-    private String email;
-    private String id;
+    private volatile String name;
+    private volatile String email;
+    private volatile String id;
+    private volatile RegistrationListener listener = RegistrationListener.NO_OP;
+    private volatile int handle = -1; // Assigned on first use, then never changed
     
-    // Email validation pattern
-    private static final Pattern EMAIL_PATTERN = 
-        Pattern.compile("^[A-Za-z0-9+_.-]+@[A-Za-z0-9.-]+\\.[A-Za-z]{2,}$");
+    private static final AtomicIntegerFieldUpdater<Person> HANDLE =
+        AtomicIntegerFieldUpdater.newUpdater(Person.class, "handle");
     
     /**
      * Constructor for Person
@@ -22,9 +25,24 @@ public abstract class Person {
      * @param id The person's ID
      */
     public Person(String name, String email, String id) {
-        setName(name);
-        setEmail(email);
-        setId(id);
+        this(name, email, id, false);
+    }
+    
+    /**
+     * Constructor for Person
+     * @param validated Whether the fields were validated before, e.g. read
+     *                  back from a snapshot; if so they are stored unchecked
+     */
+    Person(String name, String email, String id, boolean validated) {
+        if (validated) {
+            this.name = name;
+            this.email = email;
+            this.id = id;
+        } else {
+            setName(name);
+            setEmail(email);
+            setId(id);
+        }
     }
     
     // Getters
@@ -40,29 +58,79 @@ public abstract class Person {
         return id;
     }
     
+    /**
+     * Get the dense int handle of this person, so enrollments can be stored
+     * as sets of handles. It stays the same when the ID changes.
+     * @return The handle, assigned the first time it is requested
+     */
+    public int getHandle() {
+        int current = handle;
+        if (current < 0) {
+            // Without locking: this is called under the locks of courses as well as students
+            current = HandleAllocator.of(this).assign(this, HANDLE);
+        }
+        return current;
+    }
+    
+    public RegistrationListener getEventListener() {
+        return listener;
+    }
+    
     // Setters with validation (Encapsulation)
     public void setName(String name) {
-        if (name == null || name.trim().isEmpty()) {
+        String trimmed = name == null ? "" : name.trim();
+        if (trimmed.isEmpty()) {
             throw new IllegalArgumentException("Name cannot be null or empty");
         }
-        this.name = name.trim();
+        String previous = this.name;
+        this.name = trimmed;
+        if (previous != null && !previous.equals(this.name)) {
+            listener.onEvent(RegistrationEvent.PERSON_RENAMED, this, null, null);
+        }
     }
     
     public void setEmail(String email) {
-        if (email == null || email.trim().isEmpty()) {
+        String trimmed = email == null ? "" : email.trim();
+        if (trimmed.isEmpty()) {
             throw new IllegalArgumentException("Email cannot be null or empty");
         }
-        if (!EMAIL_PATTERN.matcher(email.trim()).matches()) {
+        if (!Validation.isValidEmail(trimmed)) {
             throw new IllegalArgumentException("Invalid email format");
         }
-        this.email = email.trim();
+        String previous = this.email;
+        this.email = trimmed;
+        if (previous != null && !previous.equals(this.email)) {
+            listener.onEvent(RegistrationEvent.PERSON_RENAMED, this, null, null);
+        }
     }
     
-    public void setId(String id) {
-        if (id == null || id.trim().isEmpty()) {
+    // Locked so the change is reported before any enrollment made under the new ID
+    public synchronized void setId(String id) {
+        String trimmed = id == null ? "" : id.trim();
+        if (trimmed.isEmpty()) {
             throw new IllegalArgumentException("ID cannot be null or empty");
         }
-        this.id = id.trim();
+        String previous = this.id;
+        this.id = trimmed;
+        if (previous != null && !previous.equals(this.id)) {
+            try {
+                listener.onEvent(RegistrationEvent.PERSON_RENAMED, this, null, previous);
+            } catch (IllegalArgumentException e) {
+                this.id = previous; // The system holding the person already has the ID
+                throw e;
+            }
+        }
+    }
+    
+    /**
+     * Set the listener notified of this person's enrollment or assignment changes
+     * @param listener The listener to notify
+     */
+    public void setEventListener(RegistrationListener listener) {
+        if (listener == null) {
+            throw new IllegalArgumentException("Listener cannot be null");
+        }
+        this.listener = listener;
     }
     
     /**
@@ -0,0 +1,195 @@
+package com.registration.model;
+
+import java.util.ArrayDeque;
+import java.util.BitSet;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Compiled requirements of one course: the transitive closure of its
+ * prerequisites and its direct corequisites, both as bitsets of course
+ * handles. An eligibility check is then a word-wide AND against the
+ * student's completed courses instead of a walk over the graph.
+ *
+ * Requirement edges only change under LOCK and every change bumps the
+ * catalog version, so a compiled value stays valid until the next change
+ * and is rebuilt on first use after it.
+ */
+final class Requisites {
+    static final Object LOCK = new Object();
+    private static final AtomicLong VERSION = new AtomicLong();
+    private static final long[] NONE = new long[0];
+    
+    private final long version;
+    private final long[] prerequisites;
+    private final long[] corequisites;
+    
+    private Requisites(long version, long[] prerequisites, long[] corequisites) {
+        this.version = version;
+        this.prerequisites = prerequisites;
+        this.corequisites = corequisites;
+    }
+    
+    boolean isCurrent() {
+        return version == VERSION.get();
+    }
+    
+    /**
+     * Check whether a student may take the course
+     * @param completed Bitset of the handles of the student's completed courses
+     * @param enrolled The student's current courses
+     * @return true if every prerequisite is completed and every corequisite
+     *         is completed or taken at the same time
+     */
+    boolean isSatisfiedBy(long[] completed, OrderedHandleSet<Course> enrolled) {
+        for (int i = 0; i < prerequisites.length; i++) {
+            long done = i < completed.length ? completed[i] : 0;
+            if ((prerequisites[i] & ~done) != 0) {
+                return false;
+            }
+        }
+        for (int i = 0; i < corequisites.length; i++) {
+            long done = i < completed.length ? completed[i] : 0;
+            long missing = corequisites[i] & ~done;
+            while (missing != 0) {
+                int handle = (i << 6) + Long.numberOfTrailingZeros(missing);
+                if (!enrolled.contains(handle)) {
+                    return false;
+                }
+                missing &= missing - 1;
+            }
+        }
+        return true;
+    }
+    
+    /**
+     * Record that the catalog's requirement edges changed; callers hold LOCK
+     */
+    static void catalogChanged() {
+        VERSION.incrementAndGet();
+    }
+    
+    /**
+     * Reject a requirement edge that would make a course depend on itself.
+     * Callers hold LOCK.
+     * @param course The course gaining a requirement
+     * @param required The course it would require
+     */
+    static void checkAcyclic(Course course, Course required) {
+        if (course.equals(required)) {
+            throw new IllegalArgumentException("Course " + course.getCourseCode() + " cannot require itself");
+        }
+        if (!course.isRequired()) {
+            return; // Nothing leads back to a course no other course requires
+        }
+        BitSet visited = new BitSet();
+        ArrayDeque<Course> pending = new ArrayDeque<>();
+        pending.push(required);
+        while (!pending.isEmpty()) {
+            Course next = pending.pop();
+            if (next.equals(course)) {
+                throw new IllegalArgumentException("Requiring " + required.getCourseCode() + " for "
+                        + course.getCourseCode() + " would create a cycle");
+            }
+            if (visited.get(next.getHandle())) {
+                continue;
+            }
+            visited.set(next.getHandle());
+            pushAll(pending, next.getPrerequisites());
+            pushAll(pending, next.getCorequisites());
+        }
+    }
+    
+    private static void pushAll(ArrayDeque<Course> pending, List<Course> courses) {
+        for (Course course : courses) {
+            pending.push(course);
+        }
+    }
+    
+    /**
+     * Compile the requirements of a course and of every prerequisite it
+     * depends on that is out of date. The graph is acyclic, so prerequisites
+     * are always compiled before the courses that need them.
+     * @param root The course to compile
+     * @return The compiled requirements of the course
+     */
+    static Requisites compile(Course root) {
+        synchronized (LOCK) {
+            long version = VERSION.get();
+            ArrayDeque<Course> pending = new ArrayDeque<>();
+            pending.push(root);
+            while (!pending.isEmpty()) {
+                Course course = pending.peek();
+                if (isCompiled(course, version)) {
+                    pending.pop();
+                    continue;
+                }
+                boolean ready = true;
+                for (Course prerequisite : course.getPrerequisites()) {
+                    if (!isCompiled(prerequisite, version)) {
+                        pending.push(prerequisite);
+                        ready = false;
+                    }
+                }
+                if (ready) {
+                    pending.pop();
+                    course.setRequisites(build(course, version));
+                }
+            }
+            return root.compiledRequisites();
+        }
+    }
+    
+    private static boolean isCompiled(Course course, long version) {
+        Requisites compiled = course.compiledRequisites();
+        return compiled != null && compiled.version == version;
+    }
+    
+    private static Requisites build(Course course, long version) {
+        List<Course> direct = course.getPrerequisites();
+        int length = 0;
+        for (Course prerequisite : direct) {
+            length = Math.max(length, prerequisite.compiledRequisites().prerequisites.length);
+            length = Math.max(length, (prerequisite.getHandle() >>> 6) + 1);
+        }
+        long[] closure = length == 0 ? NONE : new long[length];
+        for (Course prerequisite : direct) {
+            long[] inherited = prerequisite.compiledRequisites().prerequisites;
+            for (int i = 0; i < inherited.length; i++) {
+                closure[i] |= inherited[i];
+            }
+            closure[prerequisite.getHandle() >>> 6] |= 1L << prerequisite.getHandle();
+        }
+        return new Requisites(version, closure, handles(course.getCorequisites()));
+    }
+    
+    private static long[] handles(List<Course> courses) {
+        long[] set = NONE;
+        for (Course course : courses) {
+            set = with(set, course.getHandle());
+        }
+        return set;
+    }
+    
+    /**
+     * Add a handle to a bitset, growing it if needed
+     * @param set The bitset; not modified if it has to grow
+     * @param handle The handle to add
+     * @return The bitset holding the handle
+     */
+    static long[] with(long[] set, int handle) {
+        int word = handle >>> 6;
+        if (word >= set.length) {
+            long[] grown = new long[Math.max(word + 1, set.length * 2)];
+            System.arraycopy(set, 0, grown, 0, set.length);
+            set = grown;
+        }
+        set[word] |= 1L << handle;
+        return set;
+    }
+    
+    static boolean contains(long[] set, int handle) {
+        int word = handle >>> 6;
+        return word < set.length && (set[word] & (1L << handle)) != 0;
+    }
+}
@@ -1,14 +1,46 @@
 package com.registration.model;
 
+import com.registration.event.RegistrationEvent;
+import com.registration.export.RegistrationExporter;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
+import java.util.function.Consumer;
 
 /**
  * Student class extending Person.
  * Demonstrates inheritance and polymorphism through method overriding.
+ *
+ * Enrollment changes lock the student first and then the course, which
+ * keeps both sides of an enrollment consistent under concurrent use
+ * without any lock shared between unrelated students or courses.
+ *
+ * The student keeps a bitset of the weekly time slots taken by its
+ * courses, so a schedule conflict is detected with a few word-wide ANDs
+ * instead of comparing against every enrolled course. Completed courses
+ * are kept as a bitset of course handles in the same way, so checking a
+ * course's prerequisites never walks the prerequisite graph. The credit
+ * total of the enrolled courses is kept up to date on every enroll and
+ * drop, so a credit limit is checked without re-summing the courses.
  */
 public class Student extends Person {
-    private List<Course> enrolledCourses;
+    private final OrderedHandleSet<Course> enrolledCourses;
+    
+    // Busy slots of the enrolled courses, null while none has meeting times; guarded by this
+    private long[] busySlots;
+    private long busyVersion;
+    
+    // Bitset of the handles of completed courses, and the courses themselves
+    // so their handles are not reused while set here; guarded by this
+    private long[] completedCourses = new long[0];
+    private final List<Course> completed = new ArrayList<>();
+    
+    // Credits of the enrolled courses, valid while creditVersion is current; guarded by this
+    private int creditTotal;
+    private long creditVersion;
+    private volatile EnrollmentPolicy policy = EnrollmentPolicy.UNRESTRICTED; // The student's own
+    private volatile EnrollmentPolicy systemPolicy = EnrollmentPolicy.UNRESTRICTED;
+    private volatile int registrationTier;
     
     /**
      * Constructor for Student
@@ -17,16 +49,55 @@ public class Student extends Person {
      * @param id The student's ID
      */
     public Student(String name, String email, String id) {
-        super(name, email, id);
-        this.enrolledCourses = new ArrayList<>();
+        this(name, email, id, false);
+    }
+    
+    private Student(String name, String email, String id, boolean validated) {
+        super(name, email, id, validated);
+        this.enrolledCourses = new OrderedHandleSet<>();
+    }
+    
+    /**
+     * Create a student from fields that already passed validation, e.g. read
+     * back from this system's own snapshot, skipping the checks. The fields
+     * must be exactly what the public constructor stored: trimmed, with a
+     * valid email.
+     * @param name The student's name
+     * @param email The student's email
+     * @param id The student's ID
+     * @return The student
+     */
+    public static Student ofValidated(String name, String email, String id) {
+        return new Student(name, email, id, true);
     }
     
     /**
      * Get list of enrolled courses
      * @return Copy of enrolled courses list for encapsulation
      */
-    public List<Course> getEnrolledCourses() {
-        return new ArrayList<>(enrolledCourses);
+    public synchronized List<Course> getEnrolledCourses() {
+        return enrolledCourses.toList();
+    }
+    
+    /**
+     * Get the enrolled courses without copying them on every call.
+     * The list is an immutable snapshot shared until the enrollments change.
+     * @return Read-only list of the enrolled courses in enrollment order
+     */
+    public synchronized List<Course> getEnrolledCoursesView() {
+        return enrolledCourses.snapshot();
+    }
+    
+    /**
+     * Visit the enrolled courses in enrollment order. The action runs on a
+     * snapshot after the student lock is released.
+     * @param action Called for every enrolled course
+     */
+    public void forEachEnrolledCourse(Consumer<? super Course> action) {
+        if (action == null) {
+            throw new IllegalArgumentException("Action cannot be null");
+        }
+        getEnrolledCoursesView().forEach(action);
     }
     
     /**
@@ -34,23 +105,124 @@ public class Student extends Person {
      * @param course The course to enroll in
      * @return true if enrollment successful, false otherwise
      */
-    public boolean enrollInCourse(Course course) {
+    public synchronized boolean enrollInCourse(Course course) {
         if (course == null) {
             throw new IllegalArgumentException("Course cannot be null");
         }
         
-        if (enrolledCourses.contains(course)) {
-            System.out.println("Student " + getName() + " is already enrolled in " + course.getCourseCode());
-            return false;
+        return enroll(course).isSuccess();
+    }
+    
+    /**
+     * Enroll student in a course, reporting why enrollment failed
+     * @param course The course to enroll in
+     * @return SUCCESS, or FULL / DUPLICATE explaining why enrollment failed
+     */
+    public synchronized EnrollmentResult enroll(Course course) {
+        if (course == null) {
+            throw new IllegalArgumentException("Course cannot be null");
+        }
+        
+        if (enrolledCourses.contains(course.getHandle())) {
+            getEventListener().onEvent(RegistrationEvent.ALREADY_ENROLLED, this, course, null);
+            return EnrollmentResult.DUPLICATE;
         }
         
         // Try to register with the course
-        if (course.registerStudent(this)) {
-            enrolledCourses.add(course);
-            return true;
+        if (!meetsRequirements(course)) {
+            getEventListener().onEvent(RegistrationEvent.REQUIREMENTS_NOT_MET, this, course, null);
+            return EnrollmentResult.INELIGIBLE;
+        }
+        
+        if (conflictsWith(course)) {
+            getEventListener().onEvent(RegistrationEvent.SCHEDULE_CONFLICT, this, course, null);
+            return EnrollmentResult.CONFLICT;
         }
         
-        return false;
+        if (!permits(course)) {
+            getEventListener().onEvent(RegistrationEvent.ENROLLMENT_DENIED, this, course, null);
+            return EnrollmentResult.DENIED;
+        }
+        
+        EnrollmentResult result = course.admit(this);
+        if (result == EnrollmentResult.SUCCESS) {
+            enrolledCourses.add(course.getHandle(), course);
+            added(course);
+            getEventListener().onEvent(RegistrationEvent.ENROLLED, this, course, null);
+        }
+        return result;
+    }
+    
+    /**
+     * Enroll student in a course, or join its waitlist if it is full.
+     * A waitlisted student is enrolled automatically once a seat frees up.
+     * @param course The course to enroll in
+     * @param priority Waitlist priority; higher values are served first
+     * @return SUCCESS, WAITLISTED, or DUPLICATE if already enrolled
+     */
+    public synchronized EnrollmentResult enrollOrWaitlist(Course course, int priority) {
+        if (course == null) {
+            throw new IllegalArgumentException("Course cannot be null");
+        }
+        
+        if (enrolledCourses.contains(course.getHandle())) {
+            getEventListener().onEvent(RegistrationEvent.ALREADY_ENROLLED, this, course, null);
+            return EnrollmentResult.DUPLICATE;
+        }
+        
+        if (!meetsRequirements(course)) {
+            getEventListener().onEvent(RegistrationEvent.REQUIREMENTS_NOT_MET, this, course, null);
+            return EnrollmentResult.INELIGIBLE;
+        }
+        
+        if (conflictsWith(course)) {
+            getEventListener().onEvent(RegistrationEvent.SCHEDULE_CONFLICT, this, course, null);
+            return EnrollmentResult.CONFLICT;
+        }
+        
+        if (!permits(course)) {
+            getEventListener().onEvent(RegistrationEvent.ENROLLMENT_DENIED, this, course, null);
+            return EnrollmentResult.DENIED;
+        }
+        
+        EnrollmentResult result = course.admitOrWaitlist(this, priority);
+        if (result == EnrollmentResult.SUCCESS) {
+            enrolledCourses.add(course.getHandle(), course);
+            added(course);
+            getEventListener().onEvent(RegistrationEvent.ENROLLED, this, course, null);
+        }
+        return result;
+    }
+    
+    /**
+     * Take the seat a course held for this student after a waitlist promotion
+     * @param course The course promoting the student
+     */
+    synchronized void acceptPromotion(Course course) {
+        if (enrolledCourses.contains(course.getHandle())) {
+            course.declinePromotion(this);
+            return;
+        }
+        if (!meetsRequirements(course)) {
+            getEventListener().onEvent(RegistrationEvent.REQUIREMENTS_NOT_MET, this, course, null);
+            course.declinePromotion(this);
+            return;
+        }
+        if (conflictsWith(course)) {
+            getEventListener().onEvent(RegistrationEvent.SCHEDULE_CONFLICT, this, course, null);
+            course.declinePromotion(this);
+            return;
+        }
+        if (!permits(course)) {
+            getEventListener().onEvent(RegistrationEvent.ENROLLMENT_DENIED, this, course, null);
+            course.declinePromotion(this);
+            return;
+        }
+        if (course.admitPromoted(this) == EnrollmentResult.SUCCESS) {
+            enrolledCourses.add(course.getHandle(), course);
+            added(course);
+            getEventListener().onEvent(RegistrationEvent.ENROLLED, this, course, null);
+        }
     }
     
     /**
@@ -58,26 +230,301 @@ public class Student extends Person {
      * @param course The course to drop
      * @return true if drop successful, false otherwise
      */
-    public boolean dropCourse(Course course) {
+    public synchronized boolean dropCourse(Course course) {
+        if (course == null) {
+            throw new IllegalArgumentException("Course cannot be null");
+        }
+        
+        return drop(course).isSuccess();
+    }
+    
+    /**
+     * Drop a course, reporting why the drop failed
+     * @param course The course to drop
+     * @return SUCCESS, or NOT_ENROLLED if the student was not enrolled
+     */
+    public synchronized EnrollmentResult drop(Course course) {
         if (course == null) {
             throw new IllegalArgumentException("Course cannot be null");
         }
         
-        if (enrolledCourses.remove(course)) {
-            course.removeStudent(this);
-            System.out.println("Student " + getName() + " successfully dropped " + course.getCourseCode());
-            return true;
-        } else {
-            System.out.println("Student " + getName() + " is not enrolled in " + course.getCourseCode());
+        if (enrolledCourses.remove(course.getHandle())) {
+            if (busySlots != null && course.getSlotMask() != null) {
+                rebuildBusySlots();
+            }
+            if (creditVersion == Course.creditVersion()) {
+                creditTotal -= course.getCredits();
+            }
+            course.release(this);
+            getEventListener().onEvent(RegistrationEvent.DROPPED, this, course, null);
+            return EnrollmentResult.SUCCESS;
+        }
+        getEventListener().onEvent(RegistrationEvent.NOT_ENROLLED, this, course, null);
+        return EnrollmentResult.NOT_ENROLLED;
+    }
+    
+    /**
+     * Record an enrollment restored from stored state. Only the student's
+     * side is updated; the course restores its own roster separately.
+     * @param course The course the student was enrolled in
+     */
+    public synchronized void restoreEnrollment(Course course) {
+        if (course == null) {
+            throw new IllegalArgumentException("Course cannot be null");
+        }
+        if (enrolledCourses.add(course.getHandle(), course)) {
+            added(course);
+        }
+    }
+    
+    /**
+     * Re-enroll the student in a course when recovering stored state, on both
+     * the student's and the course's side. Unlike enroll, the capacity,
+     * requirement, schedule and policy checks are skipped: they passed when
+     * the enrollment was made, and the course takes the student back even
+     * if it is over capacity by now.
+     * @param course The course the student was enrolled in
+     * @return true if the student was not enrolled in the course yet
+     */
+    public synchronized boolean restoreRegistration(Course course) {
+        if (course == null) {
+            throw new IllegalArgumentException("Course cannot be null");
+        }
+        if (enrolledCourses.contains(course.getHandle())) {
             return false;
         }
+        course.restoreStudent(this);
+        enrolledCourses.add(course.getHandle(), course);
+        added(course);
+        getEventListener().onEvent(RegistrationEvent.ENROLLED, this, course, null);
+        return true;
+    }
+    
+    /**
+     * Record that the student has passed a course, which counts towards the
+     * prerequisites and corequisites of other courses
+     * @param course The completed course
+     * @return true if the course was not recorded as completed yet
+     */
+    public synchronized boolean completeCourse(Course course) {
+        if (course == null) {
+            throw new IllegalArgumentException("Course cannot be null");
+        }
+        if (Requisites.contains(completedCourses, course.getHandle())) {
+            return false;
+        }
+        completedCourses = Requisites.with(completedCourses, course.getHandle());
+        completed.add(course);
+        getEventListener().onEvent(RegistrationEvent.COURSE_COMPLETED, this, course, null);
+        return true;
+    }
+    
+    public synchronized boolean hasCompleted(Course course) {
+        return course != null && Requisites.contains(completedCourses, course.getHandle());
+    }
+    
+    /**
+     * @return Copy of the completed courses, in the order they were recorded
+     */
+    public synchronized List<Course> getCompletedCourses() {
+        return new ArrayList<>(completed);
+    }
+    
+    /**
+     * Check whether the student may take a course under its prerequisites and corequisites
+     * @param course The course to check
+     * @return true if every requirement of the course is met
+     */
+    public synchronized boolean isEligibleFor(Course course) {
+        if (course == null) {
+            throw new IllegalArgumentException("Course cannot be null");
+        }
+        return meetsRequirements(course);
+    }
+    
+    // Caller holds this
+    private boolean meetsRequirements(Course course) {
+        return !course.hasRequirements()
+                || course.getRequisites().isSatisfiedBy(completedCourses, enrolledCourses);
+    }
+    
+    /**
+     * Check whether a course meets while one of the student's courses does
+     * @param course The course to check
+     * @return true if the course conflicts with the student's schedule
+     */
+    public synchronized boolean hasScheduleConflict(Course course) {
+        if (course == null) {
+            throw new IllegalArgumentException("Course cannot be null");
+        }
+        return conflictsWith(course);
+    }
+    
+    /**
+     * Find the courses the student could add without a schedule conflict
+     * @param candidates The courses to consider
+     * @return The candidates that neither conflict nor are already taken, in the given order
+     */
+    public synchronized List<Course> findNonConflicting(Collection<Course> candidates) {
+        if (candidates == null) {
+            throw new IllegalArgumentException("Candidates cannot be null");
+        }
+        List<Course> result = new ArrayList<>();
+        for (Course course : candidates) {
+            if (!enrolledCourses.contains(course.getHandle()) && !conflictsWith(course)) {
+                result.add(course);
+            }
+        }
+        return result;
+    }
+    
+    // Caller holds this
+    private boolean conflictsWith(Course course) {
+        long[] mask = course.getSlotMask();
+        if (mask == null) {
+            return false;
+        }
+        long[] busy = currentBusySlots();
+        return busy != null && WeeklySlots.intersects(busy, mask);
+    }
+    
+    // Caller holds this; rebuilt only after some course changed its meetings
+    private long[] currentBusySlots() {
+        long version = Course.scheduleVersion();
+        if (version != busyVersion) {
+            rebuildBusySlots();
+            busyVersion = version;
+        }
+        return busySlots;
+    }
+    
+    // Caller holds this
+    private void rebuildBusySlots() {
+        long[] busy = null;
+        for (Course course : enrolledCourses) {
+            long[] mask = course.getSlotMask();
+            if (mask != null) {
+                if (busy == null) {
+                    busy = new long[WeeklySlots.WORDS];
+                }
+                WeeklySlots.add(busy, mask);
+            }
+        }
+        busySlots = busy;
+    }
+    
+    /**
+     * Set this student's own policy. It is consulted before every enrollment
+     * together with the policy of the system the student belongs to; both
+     * must allow it.
+     * @param policy The policy, e.g. EnrollmentPolicy.maxCredits(18)
+     */
+    public void setEnrollmentPolicy(EnrollmentPolicy policy) {
+        if (policy == null) {
+            throw new IllegalArgumentException("Policy cannot be null");
+        }
+        this.policy = policy;
+    }
+    
+    public EnrollmentPolicy getEnrollmentPolicy() {
+        return policy;
+    }
+    
+    /**
+     * Set the policy of the system this student belongs to, checked in
+     * addition to the student's own. Installed by the RegistrationSystem
+     * the student is added to.
+     * @param policy The system's policy
+     */
+    public void setSystemEnrollmentPolicy(EnrollmentPolicy policy) {
+        if (policy == null) {
+            throw new IllegalArgumentException("Policy cannot be null");
+        }
+        this.systemPolicy = policy;
+    }
+    
+    public int getRegistrationTier() {
+        return registrationTier;
+    }
+    
+    /**
+     * Set the priority tier used by registration windows; tier 0 registers
+     * first, e.g. 0 for seniors, 1 for juniors and so on
+     * @param registrationTier The tier, 0 or greater
+     */
+    public void setRegistrationTier(int registrationTier) {
+        if (registrationTier < 0) {
+            throw new IllegalArgumentException("Registration tier cannot be negative");
+        }
+        int previous = this.registrationTier;
+        this.registrationTier = registrationTier;
+        if (previous != registrationTier) {
+            getEventListener().onEvent(RegistrationEvent.TIER_CHANGED, this, null, null);
+        }
+    }
+    
+    /**
+     * Get the total credits of the enrolled courses without re-summing them
+     * @return Current credit load
+     */
+    public synchronized int getCreditLoad() {
+        return currentCredits();
+    }
+    
+    // Caller holds this
+    private boolean permits(Course course) {
+        int resultingCredits = currentCredits() + course.getCredits();
+        return systemPolicy.permits(this, course, resultingCredits)
+                && policy.permits(this, course, resultingCredits);
+    }
+    
+    // Caller holds this; re-summed only after some course changed its credits
+    private int currentCredits() {
+        long version = Course.creditVersion();
+        if (version != creditVersion) {
+            int total = 0;
+            for (Course course : enrolledCourses) {
+                total += course.getCredits();
+            }
+            creditTotal = total;
+            creditVersion = version;
+        }
+        return creditTotal;
+    }
+    
+    // Caller holds this and has just added the course
+    private void added(Course course) {
+        markBusy(course);
+        if (creditVersion == Course.creditVersion()) {
+            creditTotal += course.getCredits(); // Otherwise the next read re-sums
+        }
+    }
+    
+    // Caller holds this and has just added the course
+    private void markBusy(Course course) {
+        long[] mask = course.getSlotMask();
+        if (mask != null) {
+            if (currentBusySlots() == null) {
+                busySlots = new long[WeeklySlots.WORDS];
+            }
+            WeeklySlots.add(busySlots, mask);
+        }
+    }
+    
+    /**
+     * Check whether the student is enrolled in a course
+     * @param course The course to check
+     * @return true if enrolled, false otherwise
+     */
+    public synchronized boolean isEnrolledIn(Course course) {
+        return course != null && enrolledCourses.contains(course.getHandle());
     }
     
     /**
      * Get number of enrolled courses
      * @return Number of courses enrolled
      */
-    public int getEnrolledCoursesCount() {
+    public synchronized int getEnrolledCoursesCount() {
         return enrolledCourses.size();
     }
     
@@ -87,25 +534,11 @@ public class Student extends Person {
      */
     @Override
     public void displayDetails() {
-        System.out.println("\n=== Student Details ===");
-        System.out.println("Name: " + getName());
-        System.out.println("Email: " + getEmail());
-        System.out.println("Student ID: " + getId());
-        System.out.println("Enrolled Courses: " + enrolledCourses.size());
-        
-        if (enrolledCourses.isEmpty()) {
-            System.out.println("No courses enrolled.");
-        } else {
-            System.out.println("Course List:");
-            for (Course course : enrolledCourses) {
-                System.out.println("  - " + course.getCourseCode() + ": " + course.getCourseName());
-            }
-        }
-        System.out.println("======================");
+        RegistrationExporter.print(out -> RegistrationExporter.TEXT.writeSchedule(this, out));
     }
     
     @Override
-    public String toString() {
+    public synchronized String toString() {
         return "Student{" +
                 "name='" + getName() + '\'' +
                 ", id='" + getId() + '\'' +
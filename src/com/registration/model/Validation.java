@@ -0,0 +1,105 @@
+package com.registration.model;
+
+import java.util.regex.Pattern;
+
+/**
+ * Format checks for emails and course codes, written out by hand so that
+ * constructing a Person or Course does not allocate a Matcher or run the
+ * regex engine. Each check accepts exactly the strings its pattern below
+ * accepts; ValidationCheck in the bench package verifies this against the
+ * patterns themselves.
+ *
+ * Both grammars are ASCII only: [A-Za-z] and \d do not match other letters
+ * or digits.
+ */
+public final class Validation {
+    /**
+     * The email grammar, e.g. ali.khan@uni.edu
+     */
+    public static final Pattern EMAIL_PATTERN =
+        Pattern.compile("^[A-Za-z0-9+_.-]+@[A-Za-z0-9.-]+\\.[A-Za-z]{2,}$");
+    
+    /**
+     * The course code grammar, e.g. CS101, MATH200
+     */
+    public static final Pattern COURSE_CODE_PATTERN =
+        Pattern.compile("^[A-Z]{2,4}\\d{3,4}$");
+    
+    private Validation() {
+    }
+    
+    /**
+     * Check an email against EMAIL_PATTERN
+     * @param email The email, already trimmed
+     * @return true if the whole string matches
+     */
+    public static boolean isValidEmail(String email) {
+        int length = email.length();
+        // [A-Za-z0-9+_.-]+@
+        int at = 0;
+        while (at < length && email.charAt(at) != '@') {
+            char c = email.charAt(at);
+            if (!isLetterOrDigit(c) && c != '+' && c != '_' && c != '.' && c != '-') {
+                return false;
+            }
+            at++;
+        }
+        if (at == 0 || at == length) {
+            return false;
+        }
+        // [A-Za-z0-9.-]+ up to the last dot, which the top-level domain cannot contain
+        int lastDot = -1;
+        for (int i = at + 1; i < length; i++) {
+            char c = email.charAt(i);
+            if (c == '.') {
+                lastDot = i;
+            } else if (!isLetterOrDigit(c) && c != '-') {
+                return false;
+            }
+        }
+        if (lastDot <= at + 1 || length - lastDot - 1 < 2) {
+            return false;
+        }
+        // \.[A-Za-z]{2,}$
+        for (int i = lastDot + 1; i < length; i++) {
+            if (!isLetter(email.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+    
+    /**
+     * Check a course code against COURSE_CODE_PATTERN
+     * @param code The code, already trimmed and upper-cased
+     * @return true if the whole string matches
+     */
+    public static boolean isValidCourseCode(String code) {
+        int length = code.length();
+        if (length < 5 || length > 8) {
+            return false;
+        }
+        int letters = 0;
+        while (letters < length && code.charAt(letters) >= 'A' && code.charAt(letters) <= 'Z') {
+            letters++;
+        }
+        int digits = length - letters;
+        if (letters < 2 || letters > 4 || digits < 3 || digits > 4) {
+            return false;
+        }
+        for (int i = letters; i < length; i++) {
+            if (code.charAt(i) < '0' || code.charAt(i) > '9') {
+                return false;
+            }
+        }
+        return true;
+    }
+    
+    private static boolean isLetter(char c) {
+        return (c >= 'A' && c <= 'Z') || (c >= 'a' && c <= 'z');
+    }
+    
+    private static boolean isLetterOrDigit(char c) {
+        return isLetter(c) || (c >= '0' && c <= '9');
+    }
+}
@@ -0,0 +1,114 @@
+package com.registration.model;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**
+ * Waitlist of a course. Students are served by descending priority and,
+ * within the same priority, in the order they joined. Joining, leaving
+ * and taking the next student are O(log n).
+ *
+ * Not thread-safe; every waitlist is guarded by the monitor of its course.
+ */
+final class Waitlist {
+    private final TreeSet<Entry> order = new TreeSet<>();
+    private final Map<Integer, Entry> byHandle = new HashMap<>();
+    private long nextSequence;
+    
+    /**
+     * @return true if the student joined, false if already waiting
+     */
+    boolean add(Student student, int priority) {
+        int handle = student.getHandle();
+        if (byHandle.containsKey(handle)) {
+            return false;
+        }
+        Entry entry = new Entry(student, priority, nextSequence++);
+        byHandle.put(handle, entry);
+        order.add(entry);
+        return true;
+    }
+    
+    /**
+     * @return true if the student was waiting
+     */
+    boolean remove(Student student) {
+        Entry entry = byHandle.remove(student.getHandle());
+        if (entry == null) {
+            return false;
+        }
+        order.remove(entry);
+        return true;
+    }
+    
+    /**
+     * Take the student that is next in line
+     * @return The student, or null if nobody is waiting
+     */
+    Student poll() {
+        Entry entry = order.pollFirst();
+        if (entry == null) {
+            return null;
+        }
+        byHandle.remove(entry.student.getHandle());
+        return entry.student;
+    }
+    
+    boolean contains(Student student) {
+        return byHandle.containsKey(student.getHandle());
+    }
+    
+    int size() {
+        return order.size();
+    }
+    
+    boolean isEmpty() {
+        return order.isEmpty();
+    }
+    
+    /**
+     * @return New list of the waiting students, next in line first
+     */
+    List<Student> toList() {
+        List<Student> students = new ArrayList<>(order.size());
+        for (Entry entry : order) {
+            students.add(entry.student);
+        }
+        return students;
+    }
+    
+    /**
+     * @return New map from each waiting student to their priority, next in line first
+     */
+    Map<Student, Integer> toPriorityMap() {
+        Map<Student, Integer> priorities = new LinkedHashMap<>(order.size() * 2);
+        for (Entry entry : order) {
+            priorities.put(entry.student, entry.priority);
+        }
+        return priorities;
+    }
+    
+    private static final class Entry implements Comparable<Entry> {
+        private final Student student;
+        private final int priority;
+        private final long sequence;
+        
+        Entry(Student student, int priority, long sequence) {
+            this.student = student;
+            this.priority = priority;
+            this.sequence = sequence;
+        }
+        
+        @Override
+        public int compareTo(Entry other) {
+            if (priority != other.priority) {
+                return Integer.compare(other.priority, priority);
+            }
+            return Long.compare(sequence, other.sequence);
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package com.registration.model;
+
+import java.util.Collection;
+
+/**
+ * Bitset of the five-minute slots of a week (7 x 288 bits in 32 longs).
+ * A course's meeting times and a student's busy times are both stored
+ * this way, so a conflict check is a fixed number of AND operations
+ * regardless of how many courses the student takes.
+ *
+ * Meetings that do not start or end on a five-minute boundary are
+ * widened to the enclosing slots.
+ */
+final class WeeklySlots {
+    static final int MINUTES_PER_SLOT = 5;
+    static final int SLOTS_PER_DAY = 24 * 60 / MINUTES_PER_SLOT;
+    static final int WORDS = (7 * SLOTS_PER_DAY + 63) / 64;
+    
+    private WeeklySlots() {
+    }
+    
+    /**
+     * Build the slot mask of a set of meetings
+     * @param meetings The meetings to mark
+     * @return New mask with every slot touched by a meeting set
+     */
+    static long[] of(Collection<MeetingTime> meetings) {
+        long[] mask = new long[WORDS];
+        for (MeetingTime meeting : meetings) {
+            int dayStart = (meeting.getDay().getValue() - 1) * SLOTS_PER_DAY;
+            int startMinute = meeting.getStart().getHour() * 60 + meeting.getStart().getMinute();
+            int endMinute = meeting.getEnd().getHour() * 60 + meeting.getEnd().getMinute();
+            if (meeting.getEnd().getSecond() > 0 || meeting.getEnd().getNano() > 0) {
+                endMinute++;
+            }
+            int from = dayStart + startMinute / MINUTES_PER_SLOT;
+            int to = dayStart + (endMinute + MINUTES_PER_SLOT - 1) / MINUTES_PER_SLOT;
+            for (int slot = from; slot < to; slot++) {
+                mask[slot >>> 6] |= 1L << slot;
+            }
+        }
+        return mask;
+    }
+    
+    static boolean intersects(long[] a, long[] b) {
+        for (int i = 0; i < WORDS; i++) {
+            if ((a[i] & b[i]) != 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    static void add(long[] target, long[] mask) {
+        for (int i = 0; i < WORDS; i++) {
+            target[i] |= mask[i];
+        }
+    }
+}
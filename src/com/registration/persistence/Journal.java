@@ -0,0 +1,651 @@
+package com.registration.persistence;
+
+import com.registration.model.Course;
+import com.registration.model.MeetingTime;
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.DayOfWeek;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only binary journal of registration operations, stored as numbered
+ * segment files (journal-0000000000000001.log, ...) in one directory.
+ *
+ * Each record is written as [int length][int crc32][payload] where the
+ * payload starts with a one-byte record type. A record that was only
+ * partially written before a crash fails its length or checksum test and
+ * is cut off during recovery.
+ *
+ * Appends only copy the encoded record into an in-memory buffer. A single
+ * flusher thread writes and fsyncs whatever has accumulated, so records
+ * arriving while an fsync is in progress are committed together by the
+ * next one (group commit).
+ *
+ * Appending never throws: it runs inside event observers, after the
+ * operation has already changed the in-memory state. Once a write fails,
+ * or after the journal is closed, records are dropped and awaitDurable and
+ * close report the failure instead.
+ */
+final class Journal implements AutoCloseable {
+    static final byte ADD_STUDENT = 1;
+    static final byte ADD_INSTRUCTOR = 2;
+    static final byte ADD_COURSE = 3;
+    static final byte REGISTER = 4;
+    static final byte DROP = 5;
+    static final byte ASSIGN = 6;
+    static final byte UNASSIGN = 7;
+    static final byte SET_CAPACITY = 8;
+    static final byte RENAME_STUDENT = 9;
+    static final byte RENAME_INSTRUCTOR = 10;
+    static final byte RENAME_COURSE = 11;
+    static final byte SET_CREDITS = 12;
+    static final byte ADD_PREREQUISITE = 13;
+    static final byte ADD_COREQUISITE = 14;
+    static final byte COMPLETE = 15;
+    static final byte SET_MEETINGS = 16;
+    static final byte WAITLIST = 17;
+    static final byte LEAVE_WAITLIST = 18;
+    static final byte SET_TIER = 19;
+    
+    private static final String SEGMENT_PREFIX = "journal-";
+    private static final String SEGMENT_SUFFIX = ".log";
+    private static final int HEADER_BYTES = 8;
+    private static final int MAX_RECORD_BYTES = 1 << 20;
+    private static final int INITIAL_BUFFER_BYTES = 64 * 1024;
+    
+    private static final ThreadLocal<RecordEncoder> ENCODER = ThreadLocal.withInitial(RecordEncoder::new);
+    
+    /**
+     * Receives the decoded records of a journal during replay
+     */
+    interface Handler {
+        void person(byte type, String name, String email, String id);
+        
+        void course(String code, String name, int maxStudents, int credits);
+        
+        void link(byte type, String personId, String courseCode);
+        
+        void waitlist(String studentId, String courseCode, int priority);
+        
+        void capacity(String courseCode, int maxStudents);
+        
+        void credits(String courseCode, int credits);
+        
+        void tier(String studentId, int registrationTier);
+        
+        void requisite(byte type, String courseCode, String requiredCode);
+        
+        void meetings(String courseCode, List<MeetingTime> meetings);
+        
+        void renamePerson(byte type, String previousId, String name, String email, String id);
+        
+        void renameCourse(String previousCode, String code, String name);
+    }
+    
+    private final Path directory;
+    private final ThreadLocal<long[]> lastAppended = ThreadLocal.withInitial(() -> new long[1]);
+    
+    // Guarded by this
+    private byte[] pending = new byte[INITIAL_BUFFER_BYTES];
+    private byte[] spare = new byte[INITIAL_BUFFER_BYTES];
+    private int pendingSize;
+    private long appendedCount;
+    private long segmentBytes;
+    private boolean closed;
+    
+    // Guarded by ioLock, which is always taken before this
+    private final Object ioLock = new Object();
+    private FileChannel channel;
+    private long segment;
+    
+    private volatile long durableCount;
+    private volatile IOException failure;
+    private final Thread flusher;
+    
+    private Journal(Path directory, long segment) throws IOException {
+        this.directory = directory;
+        this.segment = segment;
+        this.channel = openSegment(directory, segment);
+        this.flusher = new Thread(this::flushLoop, "registration-journal");
+        this.flusher.setDaemon(true);
+        this.flusher.start();
+    }
+    
+    /**
+     * Open a journal that appends to a new segment
+     * @param directory The journal directory
+     * @param segment Number of the segment to create
+     * @return The open journal
+     */
+    static Journal open(Path directory, long segment) throws IOException {
+        return new Journal(directory, segment);
+    }
+    
+    // Appending
+    
+    void appendPerson(byte type, String name, String email, String id) {
+        RecordEncoder encoder = ENCODER.get().begin(type);
+        encoder.writeString(name);
+        encoder.writeString(email);
+        encoder.writeString(id);
+        append(encoder);
+    }
+    
+    void appendCourse(String code, String name, int maxStudents, int credits) {
+        RecordEncoder encoder = ENCODER.get().begin(ADD_COURSE);
+        encoder.writeString(code);
+        encoder.writeString(name);
+        encoder.writeInt(maxStudents);
+        encoder.writeInt(credits);
+        append(encoder);
+    }
+    
+    void appendLink(byte type, String personId, String courseCode) {
+        RecordEncoder encoder = ENCODER.get().begin(type);
+        encoder.writeString(personId);
+        encoder.writeString(courseCode);
+        append(encoder);
+    }
+    
+    void appendWaitlist(String studentId, String courseCode, int priority) {
+        RecordEncoder encoder = ENCODER.get().begin(WAITLIST);
+        encoder.writeString(studentId);
+        encoder.writeString(courseCode);
+        encoder.writeInt(priority);
+        append(encoder);
+    }
+    
+    void appendCapacity(String courseCode, int maxStudents) {
+        RecordEncoder encoder = ENCODER.get().begin(SET_CAPACITY);
+        encoder.writeString(courseCode);
+        encoder.writeInt(maxStudents);
+        append(encoder);
+    }
+    
+    void appendCredits(String courseCode, int credits) {
+        RecordEncoder encoder = ENCODER.get().begin(SET_CREDITS);
+        encoder.writeString(courseCode);
+        encoder.writeInt(credits);
+        append(encoder);
+    }
+    
+    void appendTier(String studentId, int registrationTier) {
+        RecordEncoder encoder = ENCODER.get().begin(SET_TIER);
+        encoder.writeString(studentId);
+        encoder.writeInt(registrationTier);
+        append(encoder);
+    }
+    
+    void appendMeetings(String courseCode, List<MeetingTime> meetings) {
+        RecordEncoder encoder = ENCODER.get().begin(SET_MEETINGS);
+        encoder.writeString(courseCode);
+        encoder.writeMeetings(meetings);
+        append(encoder);
+    }
+    
+    void appendPersonRename(byte type, String previousId, String name, String email, String id) {
+        RecordEncoder encoder = ENCODER.get().begin(type);
+        encoder.writeString(previousId);
+        encoder.writeString(name);
+        encoder.writeString(email);
+        encoder.writeString(id);
+        append(encoder);
+    }
+    
+    void appendCourseRename(String previousCode, String code, String name) {
+        RecordEncoder encoder = ENCODER.get().begin(RENAME_COURSE);
+        encoder.writeString(previousCode);
+        encoder.writeString(code);
+        encoder.writeString(name);
+        append(encoder);
+    }
+    
+    private void append(RecordEncoder encoder) {
+        byte[] record = encoder.finish();
+        int length = encoder.size();
+        long count;
+        synchronized (this) {
+            if (closed || failure != null) {
+                lastAppended.get()[0] = Long.MAX_VALUE; // The caller's next awaitDurable reports it
+                return;
+            }
+            if (pendingSize + length > pending.length) {
+                pending = Arrays.copyOf(pending, Math.max(pending.length * 2, pendingSize + length));
+            }
+            System.arraycopy(record, 0, pending, pendingSize, length);
+            pendingSize += length;
+            segmentBytes += length;
+            count = ++appendedCount;
+            if (pendingSize == length) {
+                notifyAll(); // Wake the flusher for the first record of a batch
+            }
+        }
+        lastAppended.get()[0] = count;
+    }
+    
+    /**
+     * Stop journaling after a record could not be built; later appends are
+     * dropped and the failure is reported by awaitDurable and close
+     * @param cause What went wrong
+     */
+    void fail(Exception cause) {
+        synchronized (this) {
+            if (failure == null) {
+                failure = new IOException("Could not journal an operation", cause);
+            }
+            notifyAll();
+        }
+        lastAppended.get()[0] = Long.MAX_VALUE;
+    }
+    
+    /**
+     * Wait until every record appended by the calling thread is on disk
+     * @throws UncheckedIOException if the journal failed before they were
+     * @throws IllegalStateException if one of them was dropped because the journal was closed
+     */
+    void awaitDurable() {
+        long target = lastAppended.get()[0];
+        if (durableCount >= target) {
+            return;
+        }
+        synchronized (this) {
+            while (durableCount < target) {
+                if (failure != null) {
+                    throw new UncheckedIOException("Journal write failed", failure);
+                }
+                if (closed && !flusher.isAlive()) {
+                    throw new IllegalStateException("Journal is closed");
+                }
+                try {
+                    wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IllegalStateException("Interrupted while waiting for the journal", e);
+                }
+            }
+        }
+    }
+    
+    /**
+     * Get the number of bytes appended to the current segment
+     * @return Size of the current segment including records not yet flushed
+     */
+    synchronized long getSegmentBytes() {
+        return segmentBytes;
+    }
+    
+    // Group commit
+    
+    private void flushLoop() {
+        while (true) {
+            synchronized (this) {
+                while (pendingSize == 0 && !closed) {
+                    try {
+                        wait();
+                    } catch (InterruptedException e) {
+                        // Only close() stops the flusher
+                    }
+                }
+                if (pendingSize == 0 && closed) {
+                    notifyAll();
+                    return;
+                }
+            }
+            try {
+                flush();
+            } catch (IOException e) {
+                synchronized (this) {
+                    failure = e;
+                    notifyAll();
+                }
+                return;
+            }
+        }
+    }
+    
+    /**
+     * Write and fsync every record appended so far
+     */
+    void flush() throws IOException {
+        synchronized (ioLock) {
+            byte[] batch;
+            int size;
+            long count;
+            synchronized (this) {
+                if (pendingSize == 0) {
+                    return;
+                }
+                batch = pending;
+                size = pendingSize;
+                count = appendedCount;
+                pending = spare;
+                spare = batch;
+                pendingSize = 0;
+            }
+            
+            ByteBuffer buffer = ByteBuffer.wrap(batch, 0, size);
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(false);
+            
+            synchronized (this) {
+                durableCount = count;
+                notifyAll();
+            }
+        }
+    }
+    
+    /**
+     * Flush the current segment and continue in a new one
+     * @return Number of the new segment; older segments are no longer written to
+     */
+    long rotate() throws IOException {
+        synchronized (ioLock) {
+            flush();
+            FileChannel next = openSegment(directory, segment + 1);
+            channel.close();
+            channel = next;
+            segment++;
+            synchronized (this) {
+                segmentBytes = pendingSize;
+            }
+            return segment;
+        }
+    }
+    
+    /**
+     * Delete the segments that precede the given one
+     * @param firstKept Number of the oldest segment to keep
+     */
+    void deleteSegmentsBefore(long firstKept) throws IOException {
+        for (long number : listSegments(directory)) {
+            if (number < firstKept) {
+                Files.deleteIfExists(segmentPath(directory, number));
+            }
+        }
+    }
+    
+    @Override
+    public void close() throws IOException {
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            notifyAll();
+        }
+        try {
+            flusher.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        synchronized (ioLock) {
+            flush();
+            channel.close();
+        }
+        synchronized (this) {
+            notifyAll(); // Waiters see the flusher has stopped
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+    
+    // Recovery
+    
+    /**
+     * Replay the records of every segment numbered firstSegment or higher.
+     * A torn record at the end of the newest segment is truncated away;
+     * a damaged record anywhere else is reported as an error.
+     * @param directory The journal directory
+     * @param firstSegment Number of the oldest segment to replay
+     * @param handler Receives the decoded records in order
+     * @return Number of the newest segment found, or firstSegment - 1 if there is none
+     */
+    static long replay(Path directory, long firstSegment, Handler handler) throws IOException {
+        List<Long> segments = new ArrayList<>();
+        for (long number : listSegments(directory)) {
+            if (number >= firstSegment) {
+                segments.add(number);
+            }
+        }
+        
+        for (int i = 0; i < segments.size(); i++) {
+            Path path = segmentPath(directory, segments.get(i));
+            long validBytes = replaySegment(path, handler);
+            if (validBytes < Files.size(path)) {
+                if (i < segments.size() - 1) {
+                    throw new IOException("Corrupt journal segment " + path + " at byte " + validBytes);
+                }
+                try (FileChannel torn = FileChannel.open(path, StandardOpenOption.WRITE)) {
+                    torn.truncate(validBytes);
+                    torn.force(true);
+                }
+            }
+        }
+        return segments.isEmpty() ? firstSegment - 1 : segments.get(segments.size() - 1);
+    }
+    
+    // Returns the length of the intact prefix of the segment
+    private static long replaySegment(Path path, Handler handler) throws IOException {
+        long position = 0;
+        CRC32 crc = new CRC32();
+        byte[] payload = new byte[256];
+        try (InputStream file = Files.newInputStream(path);
+             DataInputStream in = new DataInputStream(new BufferedInputStream(file, 1 << 16))) {
+            while (true) {
+                int length;
+                int checksum;
+                try {
+                    length = in.readInt();
+                    checksum = in.readInt();
+                    if (length <= 0 || length > MAX_RECORD_BYTES) {
+                        return position;
+                    }
+                    if (payload.length < length) {
+                        payload = new byte[Math.max(length, payload.length * 2)];
+                    }
+                    in.readFully(payload, 0, length);
+                } catch (EOFException e) {
+                    return position;
+                }
+                crc.reset();
+                crc.update(payload, 0, length);
+                if ((int) crc.getValue() != checksum) {
+                    return position;
+                }
+                decode(payload, length, handler);
+                position += HEADER_BYTES + length;
+            }
+        }
+    }
+    
+    private static void decode(byte[] payload, int length, Handler handler) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload, 0, length));
+        byte type = in.readByte();
+        switch (type) {
+            case ADD_STUDENT:
+            case ADD_INSTRUCTOR:
+                handler.person(type, in.readUTF(), in.readUTF(), in.readUTF());
+                break;
+            case ADD_COURSE: {
+                String code = in.readUTF();
+                String name = in.readUTF();
+                int maxStudents = in.readInt();
+                // Records written before credits were journaled end here
+                int credits = in.available() > 0 ? in.readInt() : Course.DEFAULT_CREDITS;
+                handler.course(code, name, maxStudents, credits);
+                break;
+            }
+            case REGISTER:
+            case DROP:
+            case ASSIGN:
+            case UNASSIGN:
+            case COMPLETE:
+            case LEAVE_WAITLIST:
+                handler.link(type, in.readUTF(), in.readUTF());
+                break;
+            case WAITLIST:
+                handler.waitlist(in.readUTF(), in.readUTF(), in.readInt());
+                break;
+            case ADD_PREREQUISITE:
+            case ADD_COREQUISITE:
+                handler.requisite(type, in.readUTF(), in.readUTF());
+                break;
+            case SET_MEETINGS:
+                handler.meetings(in.readUTF(), readMeetings(in));
+                break;
+            case SET_CAPACITY:
+                handler.capacity(in.readUTF(), in.readInt());
+                break;
+            case SET_CREDITS:
+                handler.credits(in.readUTF(), in.readInt());
+                break;
+            case SET_TIER:
+                handler.tier(in.readUTF(), in.readInt());
+                break;
+            case RENAME_STUDENT:
+            case RENAME_INSTRUCTOR:
+                handler.renamePerson(type, in.readUTF(), in.readUTF(), in.readUTF(), in.readUTF());
+                break;
+            case RENAME_COURSE:
+                handler.renameCourse(in.readUTF(), in.readUTF(), in.readUTF());
+                break;
+            default:
+                throw new IOException("Unknown journal record type " + type);
+        }
+    }
+    
+    // Meeting times, shared with the snapshot: a count, then day and start and end nanos of day
+    
+    static void writeMeetings(DataOutput out, List<MeetingTime> meetings) throws IOException {
+        out.writeInt(meetings.size());
+        for (MeetingTime meeting : meetings) {
+            out.writeByte(meeting.getDay().getValue());
+            out.writeLong(meeting.getStart().toNanoOfDay());
+            out.writeLong(meeting.getEnd().toNanoOfDay());
+        }
+    }
+    
+    static List<MeetingTime> readMeetings(DataInput in) throws IOException {
+        int count = in.readInt();
+        List<MeetingTime> meetings = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            meetings.add(new MeetingTime(DayOfWeek.of(in.readByte()),
+                    LocalTime.ofNanoOfDay(in.readLong()), LocalTime.ofNanoOfDay(in.readLong())));
+        }
+        return meetings;
+    }
+    
+    // Segment files
+    
+    static List<Long> listSegments(Path directory) throws IOException {
+        List<Long> segments = new ArrayList<>();
+        try (Stream<Path> files = Files.list(directory)) {
+            files.map(p -> p.getFileName().toString())
+                 .filter(name -> name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX))
+                 .forEach(name -> {
+                     String number = name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length());
+                     try {
+                         segments.add(Long.parseLong(number));
+                     } catch (NumberFormatException e) {
+                         // Not a journal segment
+                     }
+                 });
+        }
+        Collections.sort(segments);
+        return segments;
+    }
+    
+    private static Path segmentPath(Path directory, long number) {
+        return directory.resolve(String.format("%s%016d%s", SEGMENT_PREFIX, number, SEGMENT_SUFFIX));
+    }
+    
+    private static FileChannel openSegment(Path directory, long number) throws IOException {
+        return FileChannel.open(segmentPath(directory, number),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+    }
+    
+    /**
+     * Per-thread buffer that frames one record with its length and checksum,
+     * so appending threads only hold the journal lock for a single copy.
+     */
+    private static final class RecordEncoder extends ByteArrayOutputStream {
+        private final DataOutputStream out = new DataOutputStream(this);
+        private final CRC32 crc = new CRC32();
+        
+        RecordEncoder begin(byte type) {
+            reset();
+            writeHeaderPlaceholder();
+            write(type);
+            return this;
+        }
+        
+        void writeString(String value) {
+            try {
+                out.writeUTF(value);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        
+        void writeInt(int value) {
+            try {
+                out.writeInt(value);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        
+        void writeMeetings(List<MeetingTime> meetings) {
+            try {
+                Journal.writeMeetings(out, meetings);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        
+        byte[] finish() {
+            int length = count - HEADER_BYTES;
+            crc.reset();
+            crc.update(buf, HEADER_BYTES, length);
+            putInt(0, length);
+            putInt(4, (int) crc.getValue());
+            return buf;
+        }
+        
+        private void writeHeaderPlaceholder() {
+            for (int i = 0; i < HEADER_BYTES; i++) {
+                write(0);
+            }
+        }
+        
+        private void putInt(int offset, int value) {
+            buf[offset] = (byte) (value >>> 24);
+            buf[offset + 1] = (byte) (value >>> 16);
+            buf[offset + 2] = (byte) (value >>> 8);
+            buf[offset + 3] = (byte) value;
+        }
+    }
+}
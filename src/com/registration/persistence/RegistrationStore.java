@@ -0,0 +1,455 @@
+package com.registration.persistence;
+
+import com.registration.event.RegistrationEvent;
+import com.registration.event.RegistrationListener;
+import com.registration.model.Course;
+import com.registration.model.Instructor;
+import com.registration.model.MeetingTime;
+import com.registration.model.Person;
+import com.registration.model.Student;
+import com.registration.system.RegistrationSystem;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Durable storage for a RegistrationSystem, kept in one directory.
+ *
+ * Every add, register, drop and assign, every prerequisite, corequisite
+ * and completed course, every student joining or leaving a waitlist, and
+ * every change of a capacity, credits, meeting times, registration tier,
+ * code, ID or name, is
+ * appended to a binary journal that is fsynced with group commit. Once the journal grows past a
+ * threshold a snapshot of the full state is written and the journal
+ * segments it covers are deleted. Opening a store loads the latest
+ * snapshot and replays the journal written after it. Recovery puts students
+ * back on their rosters without the admission checks of a registration,
+ * since those passed when the registration was made; a course whose
+ * capacity was lowered afterwards keeps every student it had.
+ *
+ * Waitlists are restored with their priorities and order only after the
+ * whole journal has been replayed, so seats freed during replay are not
+ * handed out to anyone a second time; a promotion the journal had already
+ * recorded is replayed as the registration it became. Seats still free
+ * once the store is open then go to the next students in line.
+ *
+ * A code or ID change is journaled under the lock of the renamed entity,
+ * which is also held when a registration, drop or assignment naming it is
+ * journaled, so replay always sees the rename before the records that use
+ * the new code or ID.
+ *
+ * Registration calls do not wait for the disk; callers that must not
+ * acknowledge an operation before it is durable call awaitDurable()
+ * after the operation returns.
+ *
+ * Operations are journaled after they changed the in-memory state, so a
+ * journal that cannot be written never fails the operation itself. The
+ * failure is reported by awaitDurable() and close() instead, and nothing
+ * is journaled after it. A background snapshot that fails is reported the
+ * same way until a later snapshot succeeds; the journal keeps growing
+ * meanwhile, so no operation is lost.
+ */
+public class RegistrationStore implements AutoCloseable {
+    private static final String SNAPSHOT_FILE = "snapshot.bin";
+    private static final long DEFAULT_SNAPSHOT_THRESHOLD = 64L * 1024 * 1024;
+    private static final long SNAPSHOT_CHECK_SECONDS = 10;
+    
+    private final Path directory;
+    private final RegistrationSystem system;
+    private final Journal journal;
+    private final long snapshotThresholdBytes;
+    private final RegistrationListener journalObserver = this::record;
+    private final ScheduledExecutorService snapshotScheduler;
+    private boolean closed; // Guarded by this
+    private volatile IOException snapshotFailure; // Cleared by the next snapshot that succeeds
+    
+    private RegistrationStore(Path directory, RegistrationSystem system, Journal journal,
+                              long snapshotThresholdBytes) {
+        this.directory = directory;
+        this.system = system;
+        this.journal = journal;
+        this.snapshotThresholdBytes = snapshotThresholdBytes;
+        this.snapshotScheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "registration-snapshot");
+            thread.setDaemon(true);
+            return thread;
+        });
+        system.addObserver(journalObserver);
+        snapshotScheduler.scheduleWithFixedDelay(this::snapshotIfNeeded,
+                SNAPSHOT_CHECK_SECONDS, SNAPSHOT_CHECK_SECONDS, TimeUnit.SECONDS);
+    }
+    
+    /**
+     * Open or create a store with the default snapshot threshold
+     * @param directory Directory holding the snapshot and journal files
+     * @return The store, with its system recovered to the last durable state
+     */
+    public static RegistrationStore open(Path directory) throws IOException {
+        return open(directory, DEFAULT_SNAPSHOT_THRESHOLD);
+    }
+    
+    /**
+     * Open or create a store
+     * @param directory Directory holding the snapshot and journal files
+     * @param snapshotThresholdBytes Journal size that triggers a new snapshot
+     * @return The store, with its system recovered to the last durable state
+     */
+    public static RegistrationStore open(Path directory, long snapshotThresholdBytes) throws IOException {
+        if (directory == null) {
+            throw new IllegalArgumentException("Directory cannot be null");
+        }
+        if (snapshotThresholdBytes <= 0) {
+            throw new IllegalArgumentException("Snapshot threshold must be greater than 0");
+        }
+        Files.createDirectories(directory);
+        
+        // Recovery runs before the journal observer is attached, so nothing is re-journaled
+        RegistrationSystem system = new RegistrationSystem();
+        Replayer replayer = new Replayer(system);
+        long firstSegment = SnapshotFile.read(directory.resolve(SNAPSHOT_FILE), system, replayer);
+        long lastSegment = Journal.replay(directory, firstSegment, replayer);
+        replayer.restoreWaitlists();
+        Journal journal = Journal.open(directory, Math.max(lastSegment + 1, firstSegment));
+        RegistrationStore store = new RegistrationStore(directory, system, journal, snapshotThresholdBytes);
+        // Journaled like any promotion, now that the observer is attached
+        for (Course course : system.getAllCourses()) {
+            course.promoteWaitlisted();
+        }
+        return store;
+    }
+    
+    public RegistrationSystem getSystem() {
+        return system;
+    }
+    
+    /**
+     * Block until every operation performed so far by the calling thread is on disk
+     * @throws java.io.UncheckedIOException if the journal could not be written,
+     * or the last background snapshot failed
+     * @throws IllegalStateException if the store was closed before they were journaled
+     */
+    public void awaitDurable() {
+        journal.awaitDurable();
+        IOException failure = snapshotFailure;
+        if (failure != null) {
+            throw new UncheckedIOException("Snapshot failed", failure);
+        }
+    }
+    
+    /**
+     * Write a snapshot of the current state and delete the journal segments it covers.
+     * Registrations may continue while the snapshot is written.
+     * @throws IllegalStateException if the store is closed
+     */
+    public synchronized void snapshot() throws IOException {
+        if (closed) {
+            throw new IllegalStateException("Store is closed");
+        }
+        long firstSegment = journal.rotate();
+        SnapshotFile.write(system, firstSegment, directory.resolve(SNAPSHOT_FILE));
+        journal.deleteSegmentsBefore(firstSegment);
+        snapshotFailure = null;
+    }
+    
+    // Runs on the scheduler, so a failure is kept for awaitDurable and close
+    private synchronized void snapshotIfNeeded() {
+        if (closed || journal.getSegmentBytes() < snapshotThresholdBytes) {
+            return;
+        }
+        try {
+            snapshot();
+        } catch (IOException e) {
+            snapshotFailure = e;
+        }
+    }
+    
+    /**
+     * Detach from the system and flush the journal to disk. Waits for a
+     * snapshot in progress, which is not interrupted.
+     * @throws IOException if the journal could not be written, or the last
+     * background snapshot failed
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        snapshotScheduler.shutdown(); // Cancels the periodic check; one already waiting for the lock sees closed
+        system.removeObserver(journalObserver);
+        journal.close();
+        if (snapshotFailure != null) {
+            throw snapshotFailure;
+        }
+    }
+    
+    // Translates state-changing events into journal records. Runs inside the
+    // operation being recorded, so a failure is kept for awaitDurable, never thrown.
+    private void record(RegistrationEvent event, Person person, Course course, String key) {
+        try {
+            append(event, person, course, key);
+        } catch (RuntimeException e) {
+            journal.fail(e);
+        }
+    }
+    
+    private void append(RegistrationEvent event, Person person, Course course, String key) {
+        switch (event) {
+            case STUDENT_ADDED:
+                journal.appendPerson(Journal.ADD_STUDENT, person.getName(), person.getEmail(), person.getId());
+                break;
+            case INSTRUCTOR_ADDED:
+                journal.appendPerson(Journal.ADD_INSTRUCTOR, person.getName(), person.getEmail(), person.getId());
+                break;
+            case COURSE_ADDED:
+                journal.appendCourse(course.getCourseCode(), course.getCourseName(), course.getMaxStudents(),
+                        course.getCredits());
+                break;
+            case REGISTERED:
+                journal.appendLink(Journal.REGISTER, person.getId(), course.getCourseCode());
+                break;
+            case REMOVED:
+                journal.appendLink(Journal.DROP, person.getId(), course.getCourseCode());
+                break;
+            case WAITLISTED: // Fired under the course lock, so records keep the order of the line
+                journal.appendWaitlist(person.getId(), course.getCourseCode(), Integer.parseInt(key));
+                break;
+            case LEFT_WAITLIST:
+                journal.appendLink(Journal.LEAVE_WAITLIST, person.getId(), course.getCourseCode());
+                break;
+            case ASSIGNED:
+                synchronized (course) { // Orders the record after a rename of the course
+                    journal.appendLink(Journal.ASSIGN, person.getId(), course.getCourseCode());
+                }
+                break;
+            case UNASSIGNED:
+                synchronized (course) {
+                    journal.appendLink(Journal.UNASSIGN, person.getId(), course.getCourseCode());
+                }
+                break;
+            case CAPACITY_CHANGED:
+                journal.appendCapacity(course.getCourseCode(), course.getMaxStudents());
+                break;
+            case PREREQUISITE_ADDED:
+            case COREQUISITE_ADDED:
+                synchronized (course) {
+                    journal.appendLink(event == RegistrationEvent.PREREQUISITE_ADDED
+                            ? Journal.ADD_PREREQUISITE : Journal.ADD_COREQUISITE, course.getCourseCode(), key);
+                }
+                break;
+            case COURSE_COMPLETED:
+                synchronized (course) { // The student's lock is held already, and is taken first
+                    journal.appendLink(Journal.COMPLETE, person.getId(), course.getCourseCode());
+                }
+                break;
+            case SCHEDULE_CHANGED:
+                synchronized (course) { // Records the current times, so the last record is the latest change
+                    journal.appendMeetings(course.getCourseCode(), course.getMeetingTimes());
+                }
+                break;
+            case CREDITS_CHANGED:
+                synchronized (course) { // Credits change without the course lock; order it after a rename
+                    journal.appendCredits(course.getCourseCode(), course.getCredits());
+                }
+                break;
+            case TIER_CHANGED:
+                synchronized (person) { // Records the current tier after a rename of the student
+                    journal.appendTier(person.getId(), ((Student) person).getRegistrationTier());
+                }
+                break;
+            case PERSON_RENAMED:
+                journal.appendPersonRename(person instanceof Student ? Journal.RENAME_STUDENT : Journal.RENAME_INSTRUCTOR,
+                        key != null ? key : person.getId(), person.getName(), person.getEmail(), person.getId());
+                break;
+            case COURSE_RENAMED:
+                journal.appendCourseRename(key != null ? key : course.getCourseCode(),
+                        course.getCourseCode(), course.getCourseName());
+                break;
+            default:
+                break;
+        }
+    }
+    
+    /**
+     * Applies journal records to a system being recovered. Replay is
+     * idempotent: records already reflected by the snapshot are no-ops.
+     * Waitlists are collected on the side and restored by restoreWaitlists.
+     */
+    private static final class Replayer implements Journal.Handler {
+        private final RegistrationSystem system;
+        // Waiting students of each course by handle, in the order they joined. Keyed
+        // by identity and handle, since codes and IDs may still change during replay.
+        private final Map<Course, Map<Integer, Waiting>> waitlists = new IdentityHashMap<>();
+        
+        Replayer(RegistrationSystem system) {
+            this.system = system;
+        }
+        
+        // Records were written from entities that had passed validation
+        @Override
+        public void person(byte type, String name, String email, String id) {
+            if (type == Journal.ADD_STUDENT) {
+                system.addStudent(Student.ofValidated(name, email, id));
+            } else {
+                system.addInstructor(Instructor.ofValidated(name, email, id));
+            }
+        }
+        
+        @Override
+        public void course(String code, String name, int maxStudents, int credits) {
+            system.addCourse(Course.ofValidated(code, name, maxStudents, credits));
+        }
+        
+        @Override
+        public void link(byte type, String personId, String courseCode) {
+            Course course = system.findCourseByCode(courseCode);
+            if (course == null) {
+                return;
+            }
+            if (type == Journal.ASSIGN || type == Journal.UNASSIGN) {
+                Instructor instructor = system.findInstructorById(personId);
+                if (instructor != null) {
+                    if (type == Journal.ASSIGN) {
+                        instructor.assignCourse(course);
+                    } else {
+                        instructor.unassignCourse(course);
+                    }
+                }
+                return;
+            }
+            Student student = system.findStudentById(personId);
+            if (student != null) {
+                if (type == Journal.REGISTER) {
+                    student.restoreRegistration(course);
+                    leaveWaitlist(student, course);
+                } else if (type == Journal.LEAVE_WAITLIST) {
+                    leaveWaitlist(student, course);
+                } else if (type == Journal.COMPLETE) {
+                    student.completeCourse(course);
+                } else {
+                    student.drop(course);
+                }
+            }
+        }
+        
+        @Override
+        public void waitlist(String studentId, String courseCode, int priority) {
+            Course course = system.findCourseByCode(courseCode);
+            Student student = system.findStudentById(studentId);
+            if (course != null && student != null) {
+                waitlists.computeIfAbsent(course, c -> new LinkedHashMap<>())
+                         .putIfAbsent(student.getHandle(), new Waiting(student, priority));
+            }
+        }
+        
+        private void leaveWaitlist(Student student, Course course) {
+            Map<Integer, Waiting> waiting = waitlists.get(course);
+            if (waiting != null) {
+                waiting.remove(student.getHandle());
+            }
+        }
+        
+        // Students registered by now are skipped by the course
+        void restoreWaitlists() {
+            for (Map.Entry<Course, Map<Integer, Waiting>> line : waitlists.entrySet()) {
+                for (Waiting waiting : line.getValue().values()) {
+                    line.getKey().restoreWaitlisted(waiting.student, waiting.priority);
+                }
+            }
+        }
+        
+        private static final class Waiting {
+            private final Student student;
+            private final int priority;
+            
+            Waiting(Student student, int priority) {
+                this.student = student;
+                this.priority = priority;
+            }
+        }
+        
+        @Override
+        public void requisite(byte type, String courseCode, String requiredCode) {
+            Course course = system.findCourseByCode(courseCode);
+            Course required = system.findCourseByCode(requiredCode);
+            if (course == null || required == null) {
+                return;
+            }
+            if (type == Journal.ADD_PREREQUISITE) {
+                course.addPrerequisite(required);
+            } else {
+                course.addCorequisite(required);
+            }
+        }
+        
+        @Override
+        public void capacity(String courseCode, int maxStudents) {
+            Course course = system.findCourseByCode(courseCode);
+            if (course != null) {
+                course.setMaxStudents(maxStudents);
+            }
+        }
+        
+        @Override
+        public void credits(String courseCode, int credits) {
+            Course course = system.findCourseByCode(courseCode);
+            if (course != null) {
+                course.setCredits(credits);
+            }
+        }
+        
+        @Override
+        public void tier(String studentId, int registrationTier) {
+            Student student = system.findStudentById(studentId);
+            if (student != null) {
+                student.setRegistrationTier(registrationTier);
+            }
+        }
+        
+        @Override
+        public void meetings(String courseCode, List<MeetingTime> meetings) {
+            Course course = system.findCourseByCode(courseCode);
+            if (course != null) {
+                course.setMeetingTimes(meetings);
+            }
+        }
+        
+        // Either ID finds the person, depending on whether the snapshot was taken before the change
+        @Override
+        public void renamePerson(byte type, String previousId, String name, String email, String id) {
+            Person person;
+            if (type == Journal.RENAME_STUDENT) {
+                Student student = system.findStudentById(previousId);
+                person = student != null ? student : system.findStudentById(id);
+            } else {
+                Instructor instructor = system.findInstructorById(previousId);
+                person = instructor != null ? instructor : system.findInstructorById(id);
+            }
+            if (person != null) {
+                person.setId(id);
+                person.setName(name);
+                person.setEmail(email);
+            }
+        }
+        
+        @Override
+        public void renameCourse(String previousCode, String code, String name) {
+            Course course = system.findCourseByCode(previousCode);
+            if (course == null) {
+                course = system.findCourseByCode(code);
+            }
+            if (course != null) {
+                course.setCourseCode(code);
+                course.setCourseName(name);
+            }
+        }
+    }
+}
@@ -0,0 +1,244 @@
+package com.registration.persistence;
+
+import com.registration.model.Course;
+import com.registration.model.Instructor;
+import com.registration.model.Student;
+import com.registration.system.RegistrationSystem;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Full copy of the registration state, written so that the journal
+ * segments it already covers can be deleted.
+ *
+ * Enrollments and assignments are stored as indexes into the student and
+ * course tables instead of repeating IDs and codes. The snapshot can be
+ * taken while registrations continue; anything it misses is in the
+ * journal segments that follow it, and replaying those is idempotent.
+ *
+ * Waitlists are not restored into the courses directly: they are handed
+ * to the journal handler, which restores them once the journal has been
+ * replayed as well.
+ */
+final class SnapshotFile {
+    private static final int MAGIC = 0x52454753; // "REGS"
+    // 2 added course credits, 3 requirements and completions, 4 meeting times, 5 waitlists,
+    // 6 registration tiers
+    private static final int VERSION = 6;
+    
+    private SnapshotFile() {
+    }
+    
+    /**
+     * Write a snapshot of the system, replacing the file atomically
+     * @param system The system to capture
+     * @param firstSegment Number of the first journal segment not covered by the snapshot
+     * @param path Where to store the snapshot
+     */
+    static void write(RegistrationSystem system, long firstSegment, Path path) throws IOException {
+        List<Student> students = system.getAllStudents();
+        List<Instructor> instructors = system.getAllInstructors();
+        List<Course> courses = system.getAllCourses();
+        
+        Map<String, Integer> studentIndex = new HashMap<>(students.size() * 2);
+        for (int i = 0; i < students.size(); i++) {
+            studentIndex.put(students.get(i).getId(), i);
+        }
+        Map<String, Integer> courseIndex = new HashMap<>(courses.size() * 2);
+        for (int i = 0; i < courses.size(); i++) {
+            courseIndex.put(courses.get(i).getCourseCode(), i);
+        }
+        
+        Path temporary = path.resolveSibling(path.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            DataOutputStream out = new DataOutputStream(
+                new BufferedOutputStream(Channels.newOutputStream(channel), 1 << 16));
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeLong(firstSegment);
+            
+            out.writeInt(students.size());
+            for (Student student : students) {
+                out.writeUTF(student.getName());
+                out.writeUTF(student.getEmail());
+                out.writeUTF(student.getId());
+                out.writeInt(student.getRegistrationTier());
+            }
+            
+            out.writeInt(courses.size());
+            for (Course course : courses) {
+                out.writeUTF(course.getCourseCode());
+                out.writeUTF(course.getCourseName());
+                out.writeInt(course.getMaxStudents());
+                out.writeInt(course.getCredits());
+                Journal.writeMeetings(out, course.getMeetingTimes());
+                writeIndexes(out, course.getRegisteredStudentsView(), studentIndex, Student::getId);
+            }
+            
+            out.writeInt(instructors.size());
+            for (Instructor instructor : instructors) {
+                out.writeUTF(instructor.getName());
+                out.writeUTF(instructor.getEmail());
+                out.writeUTF(instructor.getId());
+                writeIndexes(out, instructor.getAssignedCoursesView(), courseIndex, Course::getCourseCode);
+            }
+            
+            // After every course, since requirements point at other courses
+            for (Course course : courses) {
+                writeIndexes(out, course.getPrerequisites(), courseIndex, Course::getCourseCode);
+                writeIndexes(out, course.getCorequisites(), courseIndex, Course::getCourseCode);
+            }
+            for (Student student : students) {
+                writeIndexes(out, student.getCompletedCourses(), courseIndex, Course::getCourseCode);
+            }
+            
+            // Next in line first, each with its priority
+            for (Course course : courses) {
+                writeWaitlist(out, course.getWaitlistPriorities(), studentIndex);
+            }
+            
+            out.flush();
+            channel.force(true);
+        }
+        Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+    
+    // Entities added after the tables were captured are left to the journal
+    private static <T> void writeIndexes(DataOutputStream out, List<T> items, Map<String, Integer> index,
+                                         Function<T, String> key) throws IOException {
+        int[] indexes = new int[items.size()];
+        int count = 0;
+        for (T item : items) {
+            Integer position = index.get(key.apply(item));
+            if (position != null) {
+                indexes[count++] = position;
+            }
+        }
+        out.writeInt(count);
+        for (int i = 0; i < count; i++) {
+            out.writeInt(indexes[i]);
+        }
+    }
+    
+    private static void writeWaitlist(DataOutputStream out, Map<Student, Integer> waitlist,
+                                      Map<String, Integer> index) throws IOException {
+        int[] entries = new int[waitlist.size() * 2];
+        int count = 0;
+        for (Map.Entry<Student, Integer> entry : waitlist.entrySet()) {
+            Integer position = index.get(entry.getKey().getId());
+            if (position != null) {
+                entries[count * 2] = position;
+                entries[count * 2 + 1] = entry.getValue();
+                count++;
+            }
+        }
+        out.writeInt(count);
+        for (int i = 0; i < count * 2; i++) {
+            out.writeInt(entries[i]);
+        }
+    }
+    
+    /**
+     * Load a snapshot into an empty system
+     * @param path The snapshot file
+     * @param system The system to populate
+     * @param waitlists Receives the waitlist entries, next in line first
+     * @return Number of the first journal segment to replay, or 0 if there is no snapshot
+     */
+    static long read(Path path, RegistrationSystem system, Journal.Handler waitlists) throws IOException {
+        if (!Files.exists(path)) {
+            return 0;
+        }
+        try (InputStream file = Files.newInputStream(path);
+             DataInputStream in = new DataInputStream(new BufferedInputStream(file, 1 << 16))) {
+            if (in.readInt() != MAGIC) {
+                throw new IOException("Not a registration snapshot: " + path);
+            }
+            int version = in.readInt();
+            if (version < 1 || version > VERSION) {
+                throw new IOException("Unsupported snapshot version " + version);
+            }
+            long firstSegment = in.readLong();
+            
+            Student[] students = new Student[in.readInt()];
+            for (int i = 0; i < students.length; i++) {
+                students[i] = Student.ofValidated(in.readUTF(), in.readUTF(), in.readUTF());
+                if (version >= 6) {
+                    students[i].setRegistrationTier(in.readInt());
+                }
+                system.addStudent(students[i]);
+            }
+            
+            Course[] courses = new Course[in.readInt()];
+            for (int i = 0; i < courses.length; i++) {
+                String code = in.readUTF();
+                String name = in.readUTF();
+                int maxStudents = in.readInt();
+                int credits = version >= 2 ? in.readInt() : Course.DEFAULT_CREDITS;
+                courses[i] = Course.ofValidated(code, name, maxStudents, credits);
+                if (version >= 4) {
+                    courses[i].setMeetingTimes(Journal.readMeetings(in));
+                }
+                system.addCourse(courses[i]);
+                int rosterSize = in.readInt();
+                for (int j = 0; j < rosterSize; j++) {
+                    students[in.readInt()].restoreRegistration(courses[i]);
+                }
+            }
+            
+            int instructorCount = in.readInt();
+            for (int i = 0; i < instructorCount; i++) {
+                Instructor instructor = Instructor.ofValidated(in.readUTF(), in.readUTF(), in.readUTF());
+                system.addInstructor(instructor);
+                int assigned = in.readInt();
+                for (int j = 0; j < assigned; j++) {
+                    instructor.assignCourse(courses[in.readInt()]);
+                }
+            }
+            
+            if (version >= 3) {
+                for (Course course : courses) {
+                    int prerequisites = in.readInt();
+                    for (int j = 0; j < prerequisites; j++) {
+                        course.addPrerequisite(courses[in.readInt()]);
+                    }
+                    int corequisites = in.readInt();
+                    for (int j = 0; j < corequisites; j++) {
+                        course.addCorequisite(courses[in.readInt()]);
+                    }
+                }
+                for (Student student : students) {
+                    int completed = in.readInt();
+                    for (int j = 0; j < completed; j++) {
+                        student.completeCourse(courses[in.readInt()]);
+                    }
+                }
+            }
+            if (version >= 5) {
+                for (Course course : courses) {
+                    int waiting = in.readInt();
+                    for (int j = 0; j < waiting; j++) {
+                        Student student = students[in.readInt()];
+                        waitlists.waitlist(student.getId(), course.getCourseCode(), in.readInt());
+                    }
+                }
+            }
+            return firstSegment;
+        }
+    }
+}
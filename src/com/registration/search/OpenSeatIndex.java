@@ -0,0 +1,368 @@
+package com.registration.search;
+
+import com.registration.event.RegistrationEvent;
+import com.registration.event.RegistrationListener;
+import com.registration.model.Course;
+import com.registration.model.Person;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+
+/**
+ * Courses with open seats, grouped by department (the letters of the course
+ * code, e.g. "CS" for CS101) and by the number of open seats.
+ *
+ * "Which CS courses have at least 5 open seats?" reads only the courses it
+ * returns instead of scanning the catalog. The index is kept current from
+ * the system's events: every registration, drop, capacity change or
+ * rename re-files the course involved. A department keeps one bucket per
+ * seat count, so re-filing a course is a constant-time move between two
+ * buckets rather than a re-sort (logarithmic for courses with more than
+ * a thousand open seats, whose buckets are kept sparse); courses with the
+ * same number of open seats are returned in no particular order.
+ *
+ * Listeners can subscribe to a department and are told whenever one of its
+ * full courses reopens. They are called on the notification executor, never
+ * on the thread that freed the seat, so they may register students.
+ */
+public final class OpenSeatIndex implements RegistrationListener {
+    private final Map<String, Department> departments = new ConcurrentHashMap<>();
+    // Slots by the code they are filed under, for lock-free lookups from events
+    private final Map<String, Slot> slotsByCode = new ConcurrentHashMap<>();
+    // Slots by course, to find a renamed course; guarded by itself
+    private final Map<Course, Slot> slotsByCourse = new IdentityHashMap<>();
+    private final List<Subscription> subscriptions = new CopyOnWriteArrayList<>();
+    private volatile Executor notifier;
+    
+    /**
+     * Constructor for OpenSeatIndex, notifying on a shared daemon thread
+     */
+    public OpenSeatIndex() {
+        this.notifier = DefaultNotifier.EXECUTOR;
+    }
+    
+    /**
+     * Set the executor reopening notifications are delivered on
+     * @param executor The executor to use
+     */
+    public void setNotificationExecutor(Executor executor) {
+        if (executor == null) {
+            throw new IllegalArgumentException("Executor cannot be null");
+        }
+        this.notifier = executor;
+    }
+    
+    /**
+     * Index a course, or re-file it after a change
+     * @param course The course
+     */
+    public void add(Course course) {
+        if (course == null) {
+            throw new IllegalArgumentException("Course cannot be null");
+        }
+        Slot slot;
+        synchronized (slotsByCourse) {
+            slot = slotsByCourse.computeIfAbsent(course, Slot::new);
+        }
+        refresh(slot);
+    }
+    
+    /**
+     * Keeps the index current; called by the system for every event
+     */
+    @Override
+    public void onEvent(RegistrationEvent event, Person person, Course course, String key) {
+        switch (event) {
+            case REGISTERED:
+            case REMOVED:
+            case ALREADY_REGISTERED: // A claimed seat was given back
+            case COURSE_FILLED:
+            case CAPACITY_CHANGED:
+                Slot slot = slotsByCode.get(course.getCourseCode());
+                if (slot != null && slot.course == course) {
+                    refresh(slot);
+                }
+                break;
+            case COURSE_REOPENED:
+                Slot reopened = slotsByCode.get(course.getCourseCode());
+                if (reopened != null && reopened.course == course) {
+                    refresh(reopened);
+                }
+                notifyReopened(course);
+                break;
+            case COURSE_ADDED:
+            case COURSE_RENAMED:
+                add(course);
+                break;
+            default:
+                break;
+        }
+    }
+    
+    /**
+     * Find the courses of a department with enough open seats
+     * @param department Letters of the course codes, e.g. "CS"; case does not matter
+     * @param minSeats The fewest open seats a course may have, at least 1
+     * @param limit The maximum number of courses to return
+     * @return The courses with the most open seats first
+     */
+    public List<Course> findOpenCourses(String department, int minSeats, int limit) {
+        if (department == null) {
+            throw new IllegalArgumentException("Department cannot be null");
+        }
+        if (minSeats < 1) {
+            throw new IllegalArgumentException("Minimum seats must be at least 1");
+        }
+        if (limit < 0) {
+            throw new IllegalArgumentException("Limit cannot be negative");
+        }
+        List<Course> open = new ArrayList<>(Math.min(limit, 64));
+        Department filed = departments.get(department.trim().toUpperCase(Locale.ROOT));
+        if (filed != null) {
+            filed.collect(minSeats, limit, open);
+        }
+        return open;
+    }
+    
+    /**
+     * Count the courses of a department with enough open seats
+     * @param department Letters of the course codes, e.g. "CS"
+     * @param minSeats The fewest open seats a course may have, at least 1
+     * @return The number of courses
+     */
+    public int countOpenCourses(String department, int minSeats) {
+        if (department == null) {
+            throw new IllegalArgumentException("Department cannot be null");
+        }
+        Department filed = departments.get(department.trim().toUpperCase(Locale.ROOT));
+        return filed == null ? 0 : filed.count(Math.max(1, minSeats));
+    }
+    
+    /**
+     * Be told whenever a full course of a department reopens
+     * @param department Letters of the course codes, e.g. "CS"; null for every department
+     * @param listener Called with the course on the notification executor
+     */
+    public void addReopenListener(String department, Consumer<Course> listener) {
+        if (listener == null) {
+            throw new IllegalArgumentException("Listener cannot be null");
+        }
+        String filter = department == null ? null : department.trim().toUpperCase(Locale.ROOT);
+        subscriptions.add(new Subscription(filter, listener));
+    }
+    
+    /**
+     * Stop notifying a listener added with addReopenListener
+     * @param listener The listener to remove
+     * @return true if the listener was subscribed
+     */
+    public boolean removeReopenListener(Consumer<Course> listener) {
+        return subscriptions.removeIf(s -> s.listener == listener);
+    }
+    
+    /**
+     * Get the department of a course code: its leading letters
+     * @param courseCode A code such as CS101
+     * @return The department, e.g. CS
+     */
+    public static String departmentOf(String courseCode) {
+        int end = 0;
+        while (end < courseCode.length() && Character.isLetter(courseCode.charAt(end))) {
+            end++;
+        }
+        return courseCode.substring(0, end);
+    }
+    
+    // Files the course under its current code and seat count
+    private void refresh(Slot slot) {
+        synchronized (slot) {
+            Course course = slot.course;
+            String code = course.getCourseCode();
+            int seats = course.getAvailableSeats();
+            if (slot.department != null && slot.seats == seats && slot.code.equals(code)) {
+                return;
+            }
+            if (slot.department != null && !slot.code.equals(code)) {
+                slot.department.unfile(slot);
+                slotsByCode.remove(slot.code, slot);
+                slot.department = null;
+            }
+            if (slot.department == null) {
+                slot.code = code;
+                slot.department = departments.computeIfAbsent(departmentOf(code), d -> new Department());
+                slot.department.file(slot, seats);
+                slotsByCode.put(code, slot);
+            } else {
+                slot.department.move(slot, seats);
+            }
+        }
+    }
+    
+    private void notifyReopened(Course course) {
+        if (subscriptions.isEmpty()) {
+            return;
+        }
+        String department = departmentOf(course.getCourseCode());
+        for (Subscription subscription : subscriptions) {
+            if (subscription.department == null || subscription.department.equals(department)) {
+                notifier.execute(() -> subscription.listener.accept(course));
+            }
+        }
+    }
+    
+    // Per-course filing state; re-filing takes its lock, then the department's
+    private static final class Slot {
+        final Course course;
+        String code;
+        Department department;
+        // Guarded by department
+        int seats;
+        Slot previous;
+        Slot next;
+        
+        Slot(Course course) {
+            this.course = course;
+        }
+    }
+    
+    // The courses of one department, in a linked bucket per number of open seats.
+    // Seat counts below DENSE_SEATS index an array; larger ones, which only very
+    // large courses reach, are kept in a sorted map holding just the counts in use.
+    private static final class Department {
+        private static final int DENSE_SEATS = 1024;
+        
+        private Slot[] buckets = new Slot[64];
+        private int[] sizes = new int[64];
+        private final BitSet occupied = new BitSet(); // Non-empty buckets
+        private final TreeMap<Integer, Bucket> overflow = new TreeMap<>();
+        
+        synchronized void file(Slot slot, int seats) {
+            link(slot, seats);
+        }
+        
+        synchronized void unfile(Slot slot) {
+            unlink(slot);
+        }
+        
+        synchronized void move(Slot slot, int seats) {
+            unlink(slot);
+            link(slot, seats);
+        }
+        
+        synchronized void collect(int minSeats, int limit, List<Course> into) {
+            for (Bucket bucket : overflow.tailMap(minSeats, true).descendingMap().values()) {
+                if (into.size() >= limit) {
+                    return;
+                }
+                for (Slot slot = bucket.head; slot != null && into.size() < limit; slot = slot.next) {
+                    into.add(slot.course);
+                }
+            }
+            for (int seats = occupied.length() - 1; seats >= minSeats && into.size() < limit;
+                    seats = occupied.previousSetBit(seats - 1)) {
+                for (Slot slot = buckets[seats]; slot != null && into.size() < limit; slot = slot.next) {
+                    into.add(slot.course);
+                }
+            }
+        }
+        
+        synchronized int count(int minSeats) {
+            int count = 0;
+            for (Bucket bucket : overflow.tailMap(minSeats, true).values()) {
+                count += bucket.size;
+            }
+            for (int seats = occupied.length() - 1; seats >= minSeats; seats = occupied.previousSetBit(seats - 1)) {
+                count += sizes[seats];
+            }
+            return count;
+        }
+        
+        private void link(Slot slot, int seats) {
+            slot.seats = seats;
+            slot.previous = null;
+            if (seats >= DENSE_SEATS) {
+                Bucket bucket = overflow.computeIfAbsent(seats, s -> new Bucket());
+                slot.next = bucket.head;
+                bucket.head = slot;
+                bucket.size++;
+            } else {
+                if (seats >= buckets.length) {
+                    int length = Math.min(DENSE_SEATS, Math.max(seats + 1, buckets.length * 2));
+                    buckets = Arrays.copyOf(buckets, length);
+                    sizes = Arrays.copyOf(sizes, length);
+                }
+                slot.next = buckets[seats];
+                buckets[seats] = slot;
+                if (sizes[seats]++ == 0) {
+                    occupied.set(seats);
+                }
+            }
+            if (slot.next != null) {
+                slot.next.previous = slot;
+            }
+        }
+        
+        private void unlink(Slot slot) {
+            int seats = slot.seats;
+            if (slot.previous != null) {
+                slot.previous.next = slot.next;
+            }
+            if (slot.next != null) {
+                slot.next.previous = slot.previous;
+            }
+            if (seats >= DENSE_SEATS) {
+                Bucket bucket = overflow.get(seats);
+                if (slot.previous == null) {
+                    bucket.head = slot.next;
+                }
+                if (--bucket.size == 0) {
+                    overflow.remove(seats);
+                }
+            } else {
+                if (slot.previous == null) {
+                    buckets[seats] = slot.next;
+                }
+                if (--sizes[seats] == 0) {
+                    occupied.clear(seats);
+                }
+            }
+            slot.previous = null;
+            slot.next = null;
+        }
+    }
+    
+    // Courses sharing a seat count above the dense range
+    private static final class Bucket {
+        Slot head;
+        int size;
+    }
+    
+    private static final class Subscription {
+        final String department;
+        final Consumer<Course> listener;
+        
+        Subscription(String department, Consumer<Course> listener) {
+            this.department = department;
+            this.listener = listener;
+        }
+    }
+    
+    // Shared notification thread, started on first use
+    private static final class DefaultNotifier {
+        static final Executor EXECUTOR = Executors.newSingleThreadExecutor(r -> {
+            Thread thread = new Thread(r, "registration-reopen");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+}
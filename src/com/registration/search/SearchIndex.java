@@ -0,0 +1,174 @@
+package com.registration.search;
+
+import com.registration.event.RegistrationEvent;
+import com.registration.event.RegistrationListener;
+import com.registration.model.Course;
+import com.registration.model.Instructor;
+import com.registration.model.Person;
+import com.registration.model.Student;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * Search over the students, instructors and courses of a system: by course
+ * code prefix ("CS1") and by words of names, emails, IDs and course names
+ * ("ali kha", "calculus").
+ *
+ * Course codes are kept in a sorted map, so a prefix query reads only the
+ * courses it returns. Words are kept in an inverted index per entity type
+ * (see TokenIndex) that accepts word beginnings and single typos.
+ *
+ * The index is kept up to date from the system's events: entities are
+ * indexed when added and re-indexed when renamed. Install it with
+ * RegistrationSystem.addObserver and index the entities already present
+ * with add, or use RegistrationSystem.getSearchIndex, which does both.
+ */
+public final class SearchIndex implements RegistrationListener {
+    private final TokenIndex<Student> students = new TokenIndex<>(SearchIndex::personFields);
+    private final TokenIndex<Instructor> instructors = new TokenIndex<>(SearchIndex::personFields);
+    private final TokenIndex<Course> courses = new TokenIndex<>(
+            course -> new String[] {course.getCourseCode(), course.getCourseName()});
+    
+    private final ConcurrentSkipListMap<String, Course> codes = new ConcurrentSkipListMap<>();
+    // Code each course is filed under in codes; guarded by itself
+    private final Map<Course, String> filedCodes = new IdentityHashMap<>();
+    
+    /**
+     * Index a student, or re-index them after a change
+     * @param student The student
+     */
+    public void add(Student student) {
+        if (student == null) {
+            throw new IllegalArgumentException("Student cannot be null");
+        }
+        students.put(student);
+    }
+    
+    /**
+     * Index an instructor, or re-index them after a change
+     * @param instructor The instructor
+     */
+    public void add(Instructor instructor) {
+        if (instructor == null) {
+            throw new IllegalArgumentException("Instructor cannot be null");
+        }
+        instructors.put(instructor);
+    }
+    
+    /**
+     * Index a course, or re-index it after a change
+     * @param course The course
+     */
+    public void add(Course course) {
+        if (course == null) {
+            throw new IllegalArgumentException("Course cannot be null");
+        }
+        synchronized (filedCodes) {
+            String code = course.getCourseCode();
+            String previous = filedCodes.put(course, code);
+            if (previous != null && !previous.equals(code)) {
+                codes.remove(previous, course);
+            }
+            codes.put(code, course);
+        }
+        courses.put(course);
+    }
+    
+    /**
+     * Keeps the index current; called by the system for every event
+     */
+    @Override
+    public void onEvent(RegistrationEvent event, Person person, Course course, String key) {
+        switch (event) {
+            case STUDENT_ADDED:
+            case INSTRUCTOR_ADDED:
+            case PERSON_RENAMED:
+                if (person instanceof Student) {
+                    add((Student) person);
+                } else if (person instanceof Instructor) {
+                    add((Instructor) person);
+                }
+                break;
+            case COURSE_ADDED:
+            case COURSE_RENAMED:
+                add(course);
+                break;
+            default:
+                break;
+        }
+    }
+    
+    /**
+     * Find courses whose code starts with a prefix
+     * @param prefix The beginning of a course code, e.g. "CS1"; case does not matter
+     * @param limit The maximum number of courses to return
+     * @return Matching courses ordered by code
+     */
+    public List<Course> findCoursesByCodePrefix(String prefix, int limit) {
+        if (prefix == null) {
+            throw new IllegalArgumentException("Prefix cannot be null");
+        }
+        if (limit < 0) {
+            throw new IllegalArgumentException("Limit cannot be negative");
+        }
+        String from = prefix.trim().toUpperCase(Locale.ROOT);
+        List<Course> matches = new ArrayList<>(Math.min(limit, 64));
+        for (Map.Entry<String, Course> entry : codes.tailMap(from).entrySet()) {
+            if (matches.size() == limit || !entry.getKey().startsWith(from)) {
+                break;
+            }
+            matches.add(entry.getValue());
+        }
+        return matches;
+    }
+    
+    /**
+     * Find students by words of their name, email or ID
+     * @param query Words or beginnings of words, e.g. "ali kh"
+     * @param limit The maximum number of students to return
+     * @return Best matches first: whole words before beginnings before typos
+     */
+    public List<Student> searchStudents(String query, int limit) {
+        return students.search(query, limit);
+    }
+    
+    /**
+     * Find instructors by words of their name, email or ID
+     * @param query Words or beginnings of words
+     * @param limit The maximum number of instructors to return
+     * @return Best matches first
+     */
+    public List<Instructor> searchInstructors(String query, int limit) {
+        return instructors.search(query, limit);
+    }
+    
+    /**
+     * Find courses by words of their name or by their code
+     * @param query Words or beginnings of words, e.g. "intro prog" or "cs10"
+     * @param limit The maximum number of courses to return
+     * @return Best matches first
+     */
+    public List<Course> searchCourses(String query, int limit) {
+        return courses.search(query, limit);
+    }
+    
+    public int getStudentCount() {
+        return students.size();
+    }
+    
+    public int getInstructorCount() {
+        return instructors.size();
+    }
+    
+    public int getCourseCount() {
+        return courses.size();
+    }
+    
+    private static String[] personFields(Person person) {
+        return new String[] {person.getName(), person.getEmail(), person.getId()};
+    }
+}
@@ -0,0 +1,430 @@
+package com.registration.search;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.PriorityQueue;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+
+/**
+ * Inverted index from lower-cased word tokens to the entities containing them.
+ *
+ * Every query term must match one of an entity's tokens, exactly, as a
+ * prefix or, for terms of four characters or more, within one typo. Exact
+ * matches score highest. The term expected to be most selective drives the
+ * search and the other terms are checked against each candidate's own
+ * tokens, so a query never merges large posting lists. Candidates are
+ * visited best tier first, and the search stops as soon as no remaining
+ * candidate can enter the top results. Typos are found by looking up every
+ * variant of the term one edit away (letters a-z and digits) rather than
+ * by scanning the dictionary.
+ *
+ * Searches share a read lock; adding or re-indexing an entity takes the
+ * write lock.
+ *
+ * @param <T> The entity type
+ */
+final class TokenIndex<T> {
+    private static final int EXACT = 3;
+    private static final int PREFIX = 2;
+    private static final int FUZZY = 1;
+    private static final int MIN_FUZZY_LENGTH = 4;
+    private static final String ALPHABET = "abcdefghijklmnopqrstuvwxyz0123456789";
+    
+    private final Function<T, String[]> fields;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    
+    // Everything below is guarded by lock
+    private final NavigableMap<String, Postings> dictionary = new TreeMap<>();
+    private final Map<T, Doc<T>> docs = new IdentityHashMap<>();
+    private final List<Doc<T>> byId = new ArrayList<>();
+    
+    /**
+     * Constructor for TokenIndex
+     * @param fields Function returning the searchable texts of an entity
+     */
+    TokenIndex(Function<T, String[]> fields) {
+        this.fields = fields;
+    }
+    
+    /**
+     * Index an entity, or re-index it if its texts changed
+     * @param entity The entity
+     */
+    void put(T entity) {
+        lock.writeLock().lock();
+        try {
+            // Read under the lock, so concurrent re-indexing cannot apply stale texts last
+            String[] tokens = tokenize(fields.apply(entity));
+            Doc<T> doc = docs.get(entity);
+            if (doc == null) {
+                doc = new Doc<>(entity, byId.size(), tokens);
+                docs.put(entity, doc);
+                byId.add(doc);
+                for (String token : tokens) {
+                    dictionary.computeIfAbsent(token, t -> new Postings()).add(doc.id);
+                }
+                return;
+            }
+            for (String token : doc.tokens) {
+                if (Arrays.binarySearch(tokens, token) < 0) {
+                    Postings postings = dictionary.get(token);
+                    if (postings.remove(doc.id)) {
+                        dictionary.remove(token);
+                    }
+                }
+            }
+            for (String token : tokens) {
+                if (Arrays.binarySearch(doc.tokens, token) < 0) {
+                    dictionary.computeIfAbsent(token, t -> new Postings()).add(doc.id);
+                }
+            }
+            doc.tokens = tokens;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+    
+    int size() {
+        lock.readLock().lock();
+        try {
+            return byId.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    /**
+     * Find the entities matching every word of a query
+     * @param query Words, or beginnings of words, in any order
+     * @param limit The maximum number of results
+     * @return The best matches first. Equal scores keep the order they were
+     *         found in: whole-word matches of the driving term in the order the
+     *         entities were indexed, then word beginnings alphabetically
+     */
+    List<T> search(String query, int limit) {
+        if (query == null) {
+            throw new IllegalArgumentException("Query cannot be null");
+        }
+        if (limit < 0) {
+            throw new IllegalArgumentException("Limit cannot be negative");
+        }
+        String[] terms = tokenize(query);
+        if (terms.length == 0 || limit == 0) {
+            return new ArrayList<>();
+        }
+        lock.readLock().lock();
+        try {
+            return new Search(terms, limit).run();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    // Splits texts into distinct lower-case tokens of letters and digits, sorted
+    static String[] tokenize(String... texts) {
+        List<String> tokens = new ArrayList<>();
+        for (String text : texts) {
+            if (text == null) {
+                continue;
+            }
+            int start = -1;
+            for (int i = 0; i <= text.length(); i++) {
+                boolean word = i < text.length() && Character.isLetterOrDigit(text.charAt(i));
+                if (word && start < 0) {
+                    start = i;
+                } else if (!word && start >= 0) {
+                    tokens.add(text.substring(start, i).toLowerCase(Locale.ROOT));
+                    start = -1;
+                }
+            }
+        }
+        String[] sorted = tokens.toArray(new String[0]);
+        Arrays.sort(sorted);
+        int distinct = 0;
+        for (int i = 0; i < sorted.length; i++) {
+            if (distinct == 0 || !sorted[i].equals(sorted[distinct - 1])) {
+                sorted[distinct++] = sorted[i];
+            }
+        }
+        return distinct == sorted.length ? sorted : Arrays.copyOf(sorted, distinct);
+    }
+    
+    // One query, run under the read lock
+    private final class Search {
+        private final String[] terms;
+        private final int limit;
+        private final int driverIndex;
+        private final String driver;
+        // Best score the terms other than the driver can still reach
+        private final int othersMax;
+        private final boolean hopeless; // Some other term matches nothing
+        // Worst result on top
+        private final PriorityQueue<Hit<T>> top;
+        private final BitSet seen = new BitSet();
+        private int sequence;
+        
+        Search(String[] terms, int limit) {
+            this.terms = terms;
+            this.limit = limit;
+            this.driverIndex = mostSelective(terms);
+            this.driver = terms[driverIndex];
+            int others = 0;
+            boolean unmatched = false;
+            for (int t = 0; t < terms.length; t++) {
+                if (t != driverIndex) {
+                    int reachable = reachable(terms[t]);
+                    others += reachable;
+                    unmatched |= reachable == 0;
+                }
+            }
+            this.othersMax = others;
+            this.hopeless = unmatched;
+            this.top = new PriorityQueue<>(Math.min(limit, 1024) + 1, Comparator
+                    .<Hit<T>>comparingInt(h -> h.score)
+                    .thenComparingInt(h -> -h.sequence));
+        }
+        
+        List<T> run() {
+            if (hopeless) {
+                return results();
+            }
+            Postings exact = dictionary.get(driver);
+            if (exact != null && visit(exact, EXACT) || done(PREFIX)) {
+                return results();
+            }
+            for (Map.Entry<String, Postings> entry
+                    : dictionary.subMap(driver, false, driver + Character.MAX_VALUE, false).entrySet()) {
+                if (visit(entry.getValue(), PREFIX)) {
+                    return results();
+                }
+            }
+            if (driver.length() >= MIN_FUZZY_LENGTH && !done(FUZZY)) {
+                for (String variant : variants(driver)) {
+                    Postings postings = dictionary.get(variant);
+                    if (postings != null && visit(postings, FUZZY)) {
+                        break;
+                    }
+                }
+            }
+            return results();
+        }
+        
+        // Scores every unseen entity of a posting list; true once nothing better can follow
+        private boolean visit(Postings postings, int driverScore) {
+            for (int i = 0; i < postings.size; i++) {
+                int id = postings.ids[i];
+                if (seen.get(id)) {
+                    continue;
+                }
+                seen.set(id);
+                Doc<T> doc = byId.get(id);
+                int score = driverScore;
+                for (int t = 0; t < terms.length; t++) {
+                    if (t != driverIndex) {
+                        int match = bestMatch(terms[t], doc.tokens);
+                        if (match == 0) {
+                            score = 0;
+                            break;
+                        }
+                        score += match;
+                    }
+                }
+                if (score > 0) {
+                    top.add(new Hit<>(doc.entity, score, sequence++));
+                    if (top.size() > limit) {
+                        top.poll();
+                    }
+                    if (done(driverScore)) {
+                        return true;
+                    }
+                }
+            }
+            return false;
+        }
+        
+        // Whether the results are full and no candidate of the given driver tier could beat them
+        private boolean done(int driverScore) {
+            return top.size() == limit && top.peek().score >= driverScore + othersMax;
+        }
+        
+        private List<T> results() {
+            Hit<?>[] hits = top.toArray(new Hit<?>[0]);
+            Arrays.sort(hits, (a, b) -> a.score != b.score
+                    ? Integer.compare(b.score, a.score) : Integer.compare(a.sequence, b.sequence));
+            List<T> results = new ArrayList<>(hits.length);
+            for (Hit<?> hit : hits) {
+                @SuppressWarnings("unchecked")
+                T entity = (T) hit.entity;
+                results.add(entity);
+            }
+            return results;
+        }
+    }
+    
+    // Index of the longest term, or of the one with the fewest exact matches among equals
+    private int mostSelective(String[] terms) {
+        int best = 0;
+        for (int i = 1; i < terms.length; i++) {
+            int length = terms[i].length();
+            int bestLength = terms[best].length();
+            if (length > bestLength || length == bestLength && postingsSize(terms[i]) < postingsSize(terms[best])) {
+                best = i;
+            }
+        }
+        return best;
+    }
+    
+    // The best score a term can reach against the current dictionary
+    private int reachable(String term) {
+        if (dictionary.containsKey(term)) {
+            return EXACT;
+        }
+        String next = dictionary.higherKey(term);
+        if (next != null && next.startsWith(term)) {
+            return PREFIX;
+        }
+        return term.length() >= MIN_FUZZY_LENGTH ? FUZZY : 0;
+    }
+    
+    // Every distinct string one deletion, swap, substitution or insertion away, sorted
+    static String[] variants(String term) {
+        TreeSet<String> variants = new TreeSet<>();
+        StringBuilder edit = new StringBuilder(term.length() + 1);
+        for (int i = 0; i < term.length(); i++) {
+            edit.setLength(0);
+            variants.add(edit.append(term, 0, i).append(term, i + 1, term.length()).toString());
+            if (i + 1 < term.length()) {
+                edit.setLength(0);
+                variants.add(edit.append(term, 0, i).append(term.charAt(i + 1)).append(term.charAt(i))
+                        .append(term, i + 2, term.length()).toString());
+            }
+        }
+        for (int i = 0; i <= term.length(); i++) {
+            for (int c = 0; c < ALPHABET.length(); c++) {
+                char letter = ALPHABET.charAt(c);
+                edit.setLength(0);
+                variants.add(edit.append(term, 0, i).append(letter).append(term, i, term.length()).toString());
+                if (i < term.length() && term.charAt(i) != letter) {
+                    edit.setLength(0);
+                    variants.add(edit.append(term, 0, i).append(letter).append(term, i + 1, term.length()).toString());
+                }
+            }
+        }
+        variants.remove(term);
+        return variants.toArray(new String[0]);
+    }
+    
+    private int postingsSize(String token) {
+        Postings postings = dictionary.get(token);
+        return postings == null ? 0 : postings.size;
+    }
+    
+    private static int bestMatch(String term, String[] tokens) {
+        int index = Arrays.binarySearch(tokens, term);
+        if (index >= 0) {
+            return EXACT;
+        }
+        int next = -index - 1; // Tokens starting with the term sort right after it
+        if (next < tokens.length && tokens[next].startsWith(term)) {
+            return PREFIX;
+        }
+        if (term.length() >= MIN_FUZZY_LENGTH) {
+            for (String token : tokens) {
+                if (withinOneEdit(term, token)) {
+                    return FUZZY;
+                }
+            }
+        }
+        return 0;
+    }
+    
+    // Whether one insertion, deletion, substitution or swap of neighbours turns a into b
+    static boolean withinOneEdit(String a, String b) {
+        int lengthA = a.length();
+        int lengthB = b.length();
+        if (Math.abs(lengthA - lengthB) > 1) {
+            return false;
+        }
+        int i = 0;
+        while (i < lengthA && i < lengthB && a.charAt(i) == b.charAt(i)) {
+            i++;
+        }
+        if (lengthA == lengthB) {
+            if (i == lengthA) {
+                return true;
+            }
+            if (a.regionMatches(i + 1, b, i + 1, lengthA - i - 1)) {
+                return true; // Substitution
+            }
+            return i + 1 < lengthA && a.charAt(i) == b.charAt(i + 1) && a.charAt(i + 1) == b.charAt(i)
+                    && a.regionMatches(i + 2, b, i + 2, lengthA - i - 2);
+        }
+        return lengthA > lengthB
+                ? a.regionMatches(i + 1, b, i, lengthB - i)
+                : b.regionMatches(i + 1, a, i, lengthA - i);
+    }
+    
+    private static final class Doc<T> {
+        final T entity;
+        final int id;
+        String[] tokens; // Sorted
+        
+        Doc(T entity, int id, String[] tokens) {
+            this.entity = entity;
+            this.id = id;
+            this.tokens = tokens;
+        }
+    }
+    
+    private static final class Hit<T> {
+        final T entity;
+        final int score;
+        final int sequence;
+        
+        Hit(T entity, int score, int sequence) {
+            this.entity = entity;
+            this.score = score;
+            this.sequence = sequence;
+        }
+    }
+    
+    // Sorted ids of the entities containing one token
+    private static final class Postings {
+        int[] ids = new int[2];
+        int size;
+        
+        void add(int id) {
+            int index = Arrays.binarySearch(ids, 0, size, id);
+            if (index >= 0) {
+                return;
+            }
+            index = -index - 1;
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+            }
+            System.arraycopy(ids, index, ids, index + 1, size - index);
+            ids[index] = id;
+            size++;
+        }
+        
+        // Returns true if no id is left
+        boolean remove(int id) {
+            int index = Arrays.binarySearch(ids, 0, size, id);
+            if (index >= 0) {
+                System.arraycopy(ids, index + 1, ids, index, size - index - 1);
+                size--;
+            }
+            return size == 0;
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package com.registration.system;
+
+/**
+ * A single register or drop request submitted as part of a batch.
+ * Instances are immutable; create them with {@link #register} or {@link #drop}.
+ */
+public final class BatchOperation {
+    /**
+     * Kind of change requested for a student/course pair
+     */
+    public enum Type {
+        REGISTER,
+        DROP
+    }
+    
+    private final Type type;
+    private final String studentId;
+    private final String courseCode;
+    
+    private BatchOperation(Type type, String studentId, String courseCode) {
+        if (studentId == null || courseCode == null) {
+            throw new IllegalArgumentException("Student ID and course code cannot be null");
+        }
+        this.type = type;
+        this.studentId = studentId;
+        this.courseCode = courseCode;
+    }
+    
+    public static BatchOperation register(String studentId, String courseCode) {
+        return new BatchOperation(Type.REGISTER, studentId, courseCode);
+    }
+    
+    public static BatchOperation drop(String studentId, String courseCode) {
+        return new BatchOperation(Type.DROP, studentId, courseCode);
+    }
+    
+    // Getters
+    public Type getType() {
+        return type;
+    }
+    
+    public String getStudentId() {
+        return studentId;
+    }
+    
+    public String getCourseCode() {
+        return courseCode;
+    }
+    
+    @Override
+    public String toString() {
+        return type + " " + studentId + " " + courseCode;
+    }
+}
@@ -0,0 +1,63 @@
+package com.registration.system;
+
+import com.registration.model.EnrollmentResult;
+
+/**
+ * Per-item outcomes of a batch, stored as one byte per operation.
+ * Index i holds the result of the i-th submitted operation.
+ */
+public final class BatchResult {
+    private final byte[] codes;
+    private final boolean applied;
+    
+    BatchResult(byte[] codes, boolean applied) {
+        this.codes = codes;
+        this.applied = applied;
+    }
+    
+    /**
+     * Get the outcome of one operation
+     * @param index Position of the operation in the submitted batch
+     * @return The outcome of that operation
+     */
+    public EnrollmentResult get(int index) {
+        return EnrollmentResult.fromCode(codes[index]);
+    }
+    
+    public int size() {
+        return codes.length;
+    }
+    
+    /**
+     * Count the operations that ended with the given outcome
+     * @param result The outcome to count
+     * @return Number of matching operations
+     */
+    public int count(EnrollmentResult result) {
+        int count = 0;
+        for (byte code : codes) {
+            if (code == result.ordinal()) {
+                count++;
+            }
+        }
+        return count;
+    }
+    
+    /**
+     * Whether the batch left its changes in place. Always true for
+     * best-effort batches; false when an all-or-nothing batch was rolled back.
+     * @return true if the successful operations were kept
+     */
+    public boolean isApplied() {
+        return applied;
+    }
+    
+    @Override
+    public String toString() {
+        return "BatchResult{" +
+                "size=" + codes.length +
+                ", succeeded=" + count(EnrollmentResult.SUCCESS) +
+                ", applied=" + applied +
+                '}';
+    }
+}
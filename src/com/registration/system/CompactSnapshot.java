@@ -0,0 +1,488 @@
+package com.registration.system;
+
+import com.registration.model.Course;
+import com.registration.model.Instructor;
+import com.registration.model.Student;
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Columnar, memory-mappable image of the registration state.
+ *
+ * All names, emails, IDs and codes live once in a shared string table and
+ * are referenced by number. Each entity kind is stored as fixed-width int
+ * columns, enrollments and assignments as int-indexed adjacency arrays
+ * (one offsets array plus one targets array per direction), and a sorted
+ * permutation per entity kind allows binary search by ID or code.
+ *
+ * Reading only maps the file; entities are decoded one at a time when the
+ * RegistrationSystem first needs them. The format is limited to 2 GB.
+ */
+final class CompactSnapshot {
+    private static final int MAGIC = 0x52454743; // "REGC"
+    private static final int VERSION = 2; // 2 added the course credits column
+    private static final int HEADER_INTS = 20;
+    
+    private final MappedByteBuffer buffer;
+    private final int studentCount;
+    private final int courseCount;
+    private final int instructorCount;
+    private final int stringOffsets;
+    private final int stringBytes;
+    private final int studentColumns;
+    private final int studentEdgeStarts;
+    private final int studentEdges;
+    private final int courseColumns;
+    private final int courseEdgeStarts;
+    private final int courseEdges;
+    private final int instructorColumns;
+    private final int instructorEdgeStarts;
+    private final int instructorEdges;
+    private final int sortedStudents;
+    private final int sortedCourses;
+    private final int sortedInstructors;
+    private final int courseCredits; // 0 in version 1 files, which have no credits
+    
+    private CompactSnapshot(MappedByteBuffer buffer) throws IOException {
+        this.buffer = buffer;
+        if (buffer.limit() < HEADER_INTS * 4 || buffer.getInt(0) != MAGIC) {
+            throw new IOException("Not a compact registration snapshot");
+        }
+        int version = buffer.getInt(4);
+        if (version < 1 || version > VERSION) {
+            throw new IOException("Unsupported compact snapshot version " + buffer.getInt(4));
+        }
+        this.studentCount = buffer.getInt(8);
+        this.courseCount = buffer.getInt(12);
+        this.instructorCount = buffer.getInt(16);
+        this.stringOffsets = buffer.getInt(20);
+        this.stringBytes = buffer.getInt(24);
+        this.studentColumns = buffer.getInt(28);
+        this.studentEdgeStarts = buffer.getInt(32);
+        this.studentEdges = buffer.getInt(36);
+        this.courseColumns = buffer.getInt(40);
+        this.courseEdgeStarts = buffer.getInt(44);
+        this.courseEdges = buffer.getInt(48);
+        this.instructorColumns = buffer.getInt(52);
+        this.instructorEdgeStarts = buffer.getInt(56);
+        this.instructorEdges = buffer.getInt(60);
+        this.sortedStudents = buffer.getInt(64);
+        this.sortedCourses = buffer.getInt(68);
+        this.sortedInstructors = buffer.getInt(72);
+        this.courseCredits = version >= 2 ? buffer.getInt(76) : 0;
+    }
+    
+    /**
+     * Map a snapshot file into memory without decoding any entity
+     * @param path The snapshot file
+     * @return The mapped snapshot
+     */
+    static CompactSnapshot open(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("Compact snapshot larger than 2 GB: " + path);
+            }
+            return new CompactSnapshot(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+    
+    // Entity counts
+    
+    int studentCount() {
+        return studentCount;
+    }
+    
+    int courseCount() {
+        return courseCount;
+    }
+    
+    int instructorCount() {
+        return instructorCount;
+    }
+    
+    // Column access; every entity has three int columns
+    
+    String studentName(int student) {
+        return string(column(studentColumns, student, 0));
+    }
+    
+    String studentEmail(int student) {
+        return string(column(studentColumns, student, 1));
+    }
+    
+    String studentId(int student) {
+        return string(column(studentColumns, student, 2));
+    }
+    
+    String courseCode(int course) {
+        return string(column(courseColumns, course, 0));
+    }
+    
+    String courseName(int course) {
+        return string(column(courseColumns, course, 1));
+    }
+    
+    int courseMaxStudents(int course) {
+        return column(courseColumns, course, 2);
+    }
+    
+    int courseCredits(int course) {
+        return courseCredits == 0 ? Course.DEFAULT_CREDITS : intAt(courseCredits, course);
+    }
+    
+    String instructorName(int instructor) {
+        return string(column(instructorColumns, instructor, 0));
+    }
+    
+    String instructorEmail(int instructor) {
+        return string(column(instructorColumns, instructor, 1));
+    }
+    
+    String instructorId(int instructor) {
+        return string(column(instructorColumns, instructor, 2));
+    }
+    
+    // Adjacency: courses of a student, students of a course, courses of an instructor
+    
+    int[] coursesOfStudent(int student) {
+        return edges(studentEdgeStarts, studentEdges, student);
+    }
+    
+    int courseCountOfStudent(int student) {
+        return intAt(studentEdgeStarts, student + 1) - intAt(studentEdgeStarts, student);
+    }
+    
+    int rosterSize(int course) {
+        return intAt(courseEdgeStarts, course + 1) - intAt(courseEdgeStarts, course);
+    }
+    
+    int[] studentsOfCourse(int course) {
+        return edges(courseEdgeStarts, courseEdges, course);
+    }
+    
+    int[] coursesOfInstructor(int instructor) {
+        return edges(instructorEdgeStarts, instructorEdges, instructor);
+    }
+    
+    // Lookup by key using the sorted permutations
+    
+    int findStudent(String id) {
+        return search(sortedStudents, studentCount, studentColumns, 2, id);
+    }
+    
+    int findCourse(String code) {
+        return search(sortedCourses, courseCount, courseColumns, 0, code);
+    }
+    
+    int findInstructor(String id) {
+        return search(sortedInstructors, instructorCount, instructorColumns, 2, id);
+    }
+    
+    private int search(int sortedSection, int count, int columns, int keyColumn, String key) {
+        if (key == null) {
+            return -1;
+        }
+        byte[] wanted = key.getBytes(StandardCharsets.UTF_8);
+        int low = 0;
+        int high = count - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            int entity = intAt(sortedSection, middle);
+            int comparison = compareString(column(columns, entity, keyColumn), wanted);
+            if (comparison < 0) {
+                low = middle + 1;
+            } else if (comparison > 0) {
+                high = middle - 1;
+            } else {
+                return entity;
+            }
+        }
+        return -1;
+    }
+    
+    // Compares a table string with the key bytes without decoding it
+    private int compareString(int ref, byte[] wanted) {
+        int start = stringBytes + intAt(stringOffsets, ref);
+        int length = intAt(stringOffsets, ref + 1) - intAt(stringOffsets, ref);
+        int common = Math.min(length, wanted.length);
+        for (int i = 0; i < common; i++) {
+            int difference = (buffer.get(start + i) & 0xFF) - (wanted[i] & 0xFF);
+            if (difference != 0) {
+                return difference;
+            }
+        }
+        return length - wanted.length;
+    }
+    
+    private String string(int ref) {
+        int from = intAt(stringOffsets, ref);
+        int length = intAt(stringOffsets, ref + 1) - from;
+        byte[] bytes = new byte[length];
+        buffer.get(stringBytes + from, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+    
+    private int column(int section, int entity, int column) {
+        return intAt(section, entity * 3 + column);
+    }
+    
+    private int[] edges(int startsSection, int edgesSection, int entity) {
+        int from = intAt(startsSection, entity);
+        int to = intAt(startsSection, entity + 1);
+        int[] targets = new int[to - from];
+        for (int i = 0; i < targets.length; i++) {
+            targets[i] = intAt(edgesSection, from + i);
+        }
+        return targets;
+    }
+    
+    private int intAt(int section, int index) {
+        return buffer.getInt(section + index * 4);
+    }
+    
+    // Writing
+    
+    /**
+     * Write the state of a system as a compact snapshot, replacing the file atomically.
+     * An enrollment is only written if both the student and the course list it,
+     * so a snapshot taken during concurrent registration is still consistent.
+     * @param system The system to capture
+     * @param path Where to store the snapshot
+     */
+    static void write(RegistrationSystem system, Path path) throws IOException {
+        List<Student> students = system.getAllStudents();
+        List<Course> courses = system.getAllCourses();
+        List<Instructor> instructors = system.getAllInstructors();
+        
+        Map<Student, Integer> studentIndex = indexOf(students);
+        Map<Course, Integer> courseIndex = indexOf(courses);
+        StringTable strings = new StringTable();
+        
+        int[] studentCols = new int[students.size() * 3];
+        List<int[]> studentCourseLists = new ArrayList<>(students.size());
+        Set<Long> studentSide = new HashSet<>();
+        for (int s = 0; s < students.size(); s++) {
+            Student student = students.get(s);
+            studentCols[s * 3] = strings.ref(student.getName());
+            studentCols[s * 3 + 1] = strings.ref(student.getEmail());
+            studentCols[s * 3 + 2] = strings.ref(student.getId());
+            int[] targets = targets(student.getEnrolledCoursesView(), courseIndex);
+            studentCourseLists.add(targets);
+            for (int c : targets) {
+                studentSide.add(edge(s, c));
+            }
+        }
+        
+        int[] courseCols = new int[courses.size() * 3];
+        int[] credits = new int[courses.size()];
+        List<int[]> rosters = new ArrayList<>(courses.size());
+        Set<Long> courseSide = new HashSet<>();
+        for (int c = 0; c < courses.size(); c++) {
+            Course course = courses.get(c);
+            courseCols[c * 3] = strings.ref(course.getCourseCode());
+            courseCols[c * 3 + 1] = strings.ref(course.getCourseName());
+            courseCols[c * 3 + 2] = course.getMaxStudents();
+            credits[c] = course.getCredits();
+            int[] roster = targets(course.getRegisteredStudentsView(), studentIndex);
+            int kept = 0;
+            for (int s : roster) {
+                if (studentSide.contains(edge(s, c))) {
+                    roster[kept++] = s;
+                    courseSide.add(edge(s, c));
+                }
+            }
+            rosters.add(Arrays.copyOf(roster, kept));
+        }
+        for (int s = 0; s < students.size(); s++) {
+            int[] targets = studentCourseLists.get(s);
+            int kept = 0;
+            for (int c : targets) {
+                if (courseSide.contains(edge(s, c))) {
+                    targets[kept++] = c;
+                }
+            }
+            studentCourseLists.set(s, Arrays.copyOf(targets, kept));
+        }
+        
+        int[] instructorCols = new int[instructors.size() * 3];
+        List<int[]> assignments = new ArrayList<>(instructors.size());
+        for (int i = 0; i < instructors.size(); i++) {
+            Instructor instructor = instructors.get(i);
+            instructorCols[i * 3] = strings.ref(instructor.getName());
+            instructorCols[i * 3 + 1] = strings.ref(instructor.getEmail());
+            instructorCols[i * 3 + 2] = strings.ref(instructor.getId());
+            assignments.add(targets(instructor.getAssignedCoursesView(), courseIndex));
+        }
+        
+        int[] sortedStudentOrder = sortedOrder(studentCols, 2, strings);
+        int[] sortedCourseOrder = sortedOrder(courseCols, 0, strings);
+        int[] sortedInstructorOrder = sortedOrder(instructorCols, 2, strings);
+        
+        // Section layout, in file order
+        int[] header = new int[HEADER_INTS];
+        header[0] = MAGIC;
+        header[1] = VERSION;
+        header[2] = students.size();
+        header[3] = courses.size();
+        header[4] = instructors.size();
+        long offset = HEADER_INTS * 4L;
+        header[5] = (int) offset;
+        offset += (strings.size() + 1) * 4L;
+        header[6] = (int) offset;
+        offset += strings.byteLength();
+        int[][] sections = {
+            studentCols, starts(studentCourseLists), flatten(studentCourseLists),
+            courseCols, starts(rosters), flatten(rosters),
+            instructorCols, starts(assignments), flatten(assignments),
+            sortedStudentOrder, sortedCourseOrder, sortedInstructorOrder, credits
+        };
+        for (int i = 0; i < sections.length; i++) {
+            header[7 + i] = (int) offset;
+            offset += sections[i].length * 4L;
+        }
+        if (offset > Integer.MAX_VALUE) {
+            throw new IOException("Registration state too large for a compact snapshot");
+        }
+        
+        Path temporary = path.resolveSibling(path.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            DataOutputStream out = new DataOutputStream(
+                new BufferedOutputStream(Channels.newOutputStream(channel), 1 << 16));
+            writeInts(out, header);
+            strings.writeTo(out);
+            for (int[] section : sections) {
+                writeInts(out, section);
+            }
+            out.flush();
+            channel.force(true);
+        }
+        Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+    
+    private static <T> Map<T, Integer> indexOf(List<T> entities) {
+        Map<T, Integer> index = new IdentityHashMap<>(entities.size() * 2);
+        for (int i = 0; i < entities.size(); i++) {
+            index.put(entities.get(i), i);
+        }
+        return index;
+    }
+    
+    // Entities missing from the captured tables are skipped
+    private static <T> int[] targets(List<T> related, Map<T, Integer> index) {
+        int[] targets = new int[related.size()];
+        int count = 0;
+        for (T entity : related) {
+            Integer position = index.get(entity);
+            if (position != null) {
+                targets[count++] = position;
+            }
+        }
+        return Arrays.copyOf(targets, count);
+    }
+    
+    private static long edge(int student, int course) {
+        return ((long) student << 32) | course;
+    }
+    
+    private static int[] starts(List<int[]> lists) {
+        int[] starts = new int[lists.size() + 1];
+        for (int i = 0; i < lists.size(); i++) {
+            starts[i + 1] = starts[i] + lists.get(i).length;
+        }
+        return starts;
+    }
+    
+    private static int[] flatten(List<int[]> lists) {
+        int[] flat = new int[starts(lists)[lists.size()]];
+        int position = 0;
+        for (int[] list : lists) {
+            System.arraycopy(list, 0, flat, position, list.length);
+            position += list.length;
+        }
+        return flat;
+    }
+    
+    private static int[] sortedOrder(int[] columns, int keyColumn, StringTable strings) {
+        Integer[] order = new Integer[columns.length / 3];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, Comparator.comparing(i -> strings.bytes(columns[i * 3 + keyColumn]),
+                Arrays::compareUnsigned));
+        int[] sorted = new int[order.length];
+        for (int i = 0; i < order.length; i++) {
+            sorted[i] = order[i];
+        }
+        return sorted;
+    }
+    
+    private static void writeInts(DataOutputStream out, int[] values) throws IOException {
+        for (int value : values) {
+            out.writeInt(value);
+        }
+    }
+    
+    /**
+     * Interning string table used while writing
+     */
+    private static final class StringTable {
+        private final Map<String, Integer> refs = new HashMap<>();
+        private final List<byte[]> encoded = new ArrayList<>();
+        private long byteLength;
+        
+        int ref(String value) {
+            Integer ref = refs.get(value);
+            if (ref == null) {
+                ref = encoded.size();
+                byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+                encoded.add(bytes);
+                byteLength += bytes.length;
+                refs.put(value, ref);
+            }
+            return ref;
+        }
+        
+        byte[] bytes(int ref) {
+            return encoded.get(ref);
+        }
+        
+        int size() {
+            return encoded.size();
+        }
+        
+        long byteLength() {
+            return byteLength;
+        }
+        
+        void writeTo(DataOutputStream out) throws IOException {
+            int offset = 0;
+            out.writeInt(offset);
+            for (byte[] bytes : encoded) {
+                offset += bytes.length;
+                out.writeInt(offset);
+            }
+            for (byte[] bytes : encoded) {
+                out.write(bytes);
+            }
+        }
+    }
+}
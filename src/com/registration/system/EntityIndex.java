@@ -0,0 +1,317 @@
+package com.registration.system;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Keyed store for the entities managed by the RegistrationSystem.
+ * Lookups and duplicate checks are hash based (O(1)) while the
+ * insertion order is kept for listing and display purposes.
+ *
+ * The store is safe for concurrent use: lookups never block, and the
+ * insertion order is append-only so readers can iterate it while
+ * other threads keep adding entities.
+ *
+ * An index can also be backed by a Source of stored entities. Those take
+ * the first positions of the insertion order and are only loaded when they
+ * are looked up or iterated over.
+ *
+ * Keys may change after an entity is added (a course code or student ID
+ * being edited); rekey moves the entity to its new key.
+ *
+ * @param <T> The entity type (Student, Instructor or Course)
+ */
+class EntityIndex<T> {
+    private static final int INITIAL_CAPACITY = 16;
+    
+    private final ConcurrentHashMap<String, T> entries;
+    private final Function<T, String> keyExtractor;
+    private final List<T> view;
+    
+    // Stored entities occupy positions [0, stored) and are loaded on demand
+    private final Source<T> source;
+    private final AtomicReferenceArray<T> loaded;
+    private final int stored;
+    
+    // Append-only insertion order after the stored entities; elements [stored, size) are always published
+    private Object[] ordered;
+    private volatile int size;
+    
+    /**
+     * Constructor for EntityIndex
+     * @param keyExtractor Function returning the unique key of an entity
+     */
+    EntityIndex(Function<T, String> keyExtractor) {
+        this(keyExtractor, null);
+    }
+    
+    /**
+     * Constructor for EntityIndex backed by stored entities
+     * @param keyExtractor Function returning the unique key of an entity
+     * @param source The stored entities, or null for an empty index
+     */
+    EntityIndex(Function<T, String> keyExtractor, Source<T> source) {
+        this.entries = new ConcurrentHashMap<>();
+        this.keyExtractor = keyExtractor;
+        this.source = source;
+        this.stored = source == null ? 0 : source.size();
+        this.loaded = new AtomicReferenceArray<>(stored);
+        this.ordered = new Object[INITIAL_CAPACITY];
+        this.size = stored;
+        this.view = new OrderedView();
+    }
+    
+    /**
+     * Add an entity if no entity with the same key is present
+     * @param entity The entity to add
+     * @return true if added, false if the key is already taken
+     */
+    boolean add(T entity) {
+        return add(entity, e -> { });
+    }
+    
+    /**
+     * Add an entity if no entity with the same key is present
+     * @param entity The entity to add
+     * @param onAdd Called once the key is claimed but before the entity can be found
+     * @return true if added, false if the key is already taken
+     */
+    boolean add(T entity, Consumer<? super T> onAdd) {
+        String entityKey = keyExtractor.apply(entity);
+        if (storedHolds(entityKey)) {
+            return false;
+        }
+        boolean[] added = new boolean[1];
+        entries.computeIfAbsent(entityKey, key -> {
+            onAdd.accept(entity);
+            added[0] = true;
+            return entity;
+        });
+        if (added[0]) {
+            append(entity);
+        }
+        return added[0];
+    }
+    
+    /**
+     * Add several entities, publishing the new ones with a single append
+     * @param batch The entities to add, in order
+     * @param onAdd Called for each entity once its key is claimed but before it can be found
+     * @return For each entity, whether it was added
+     */
+    boolean[] addAll(List<? extends T> batch, Consumer<? super T> onAdd) {
+        boolean[] added = new boolean[batch.size()];
+        Object[] fresh = new Object[batch.size()];
+        int count = 0;
+        for (int i = 0; i < added.length; i++) {
+            T entity = batch.get(i);
+            String entityKey = keyExtractor.apply(entity);
+            if (storedHolds(entityKey)) {
+                continue;
+            }
+            int position = i;
+            entries.computeIfAbsent(entityKey, key -> {
+                onAdd.accept(entity);
+                added[position] = true;
+                return entity;
+            });
+            if (added[i]) {
+                fresh[count++] = entity;
+            }
+        }
+        if (count > 0) {
+            appendAll(fresh, count);
+        }
+        return added;
+    }
+    
+    /**
+     * Find an entity by its key
+     * @param key The key to search for
+     * @return The entity if found, null otherwise
+     */
+    T find(String key) {
+        if (key == null) {
+            return null;
+        }
+        T entity = entries.get(key);
+        if (entity == null && source != null) {
+            int index = source.indexOf(key);
+            if (index >= 0) {
+                entity = load(index);
+                if (!key.equals(keyExtractor.apply(entity))) {
+                    return null; // Renamed since it was stored
+                }
+            }
+        }
+        return entity;
+    }
+    
+    /**
+     * Move an entity whose key changed to its current key
+     * @param previousKey The key the entity was added under
+     * @param entity The entity, already carrying its new key
+     * @return true if the entity is now found by its new key, false if
+     *         another entity holds that key; the index is then unchanged
+     */
+    boolean rekey(String previousKey, T entity) {
+        String entityKey = keyExtractor.apply(entity);
+        synchronized (loaded) { // Keeps stored entities from being loaded under the new key meanwhile
+            if (storedHolds(entityKey)) {
+                return false;
+            }
+            T holder = entries.putIfAbsent(entityKey, entity);
+            if (holder != null && holder != entity) {
+                return false;
+            }
+            entries.remove(previousKey, entity);
+            return true;
+        }
+    }
+    
+    // Whether a stored entity still has the key, loaded or not
+    private boolean storedHolds(String key) {
+        if (source == null) {
+            return false;
+        }
+        int index = source.indexOf(key);
+        if (index < 0) {
+            return false;
+        }
+        T entity = loaded.get(index);
+        return entity == null || key.equals(keyExtractor.apply(entity));
+    }
+    
+    /**
+     * Get a stored entity, loading it on first access
+     * @param index Position of the entity in the source
+     * @return The entity; the same instance on every call
+     */
+    T load(int index) {
+        T entity = loaded.get(index);
+        if (entity == null) {
+            synchronized (loaded) {
+                entity = loaded.get(index);
+                if (entity == null) {
+                    entity = source.load(index);
+                    entries.put(keyExtractor.apply(entity), entity);
+                    loaded.set(index, entity);
+                }
+            }
+        }
+        return entity;
+    }
+    
+    int size() {
+        return size;
+    }
+    
+    boolean isEmpty() {
+        return size == 0;
+    }
+    
+    /**
+     * Get the entities in insertion order
+     * @return Live, read-only view of the stored entities
+     */
+    List<T> values() {
+        return view;
+    }
+    
+    /**
+     * Visit the entities in insertion order without allocating. Entities
+     * added during the visit may or may not be included.
+     * @param action Called for every entity
+     */
+    void forEach(Consumer<? super T> action) {
+        int count = size;
+        for (int i = 0; i < count; i++) {
+            action.accept(elementAt(i));
+        }
+    }
+    
+    /**
+     * Get a copy of the entities in insertion order
+     * @return New list containing the stored entities
+     */
+    List<T> toList() {
+        return new ArrayList<>(view);
+    }
+    
+    // Only appends are serialized; the element is stored before the
+    // volatile size write publishes it to lock-free readers.
+    private synchronized void append(T entity) {
+        int index = size - stored;
+        if (index == ordered.length) {
+            ordered = Arrays.copyOf(ordered, index * 2);
+        }
+        ordered[index] = entity;
+        size = stored + index + 1;
+    }
+    
+    private synchronized void appendAll(Object[] batch, int count) {
+        int index = size - stored;
+        if (index + count > ordered.length) {
+            ordered = Arrays.copyOf(ordered, Math.max(ordered.length * 2, index + count));
+        }
+        System.arraycopy(batch, 0, ordered, index, count);
+        size = stored + index + count;
+    }
+    
+    @SuppressWarnings("unchecked")
+    private T elementAt(int index) {
+        if (index < stored) {
+            return load(index);
+        }
+        return (T) ordered[index - stored];
+    }
+    
+    /**
+     * Entities kept outside the heap until they are needed
+     * @param <T> The entity type
+     */
+    interface Source<T> {
+        /**
+         * @return Number of stored entities
+         */
+        int size();
+        
+        /**
+         * Find the position of a stored entity
+         * @param key The key to search for
+         * @return Position of the entity, or -1 if no stored entity has the key
+         */
+        int indexOf(String key);
+        
+        /**
+         * Build a stored entity; called at most once per position
+         * @param index Position of the entity
+         * @return The new entity
+         */
+        T load(int index);
+    }
+    
+    /**
+     * Read-only list view over the published part of the insertion order
+     */
+    private class OrderedView extends AbstractList<T> {
+        @Override
+        public T get(int index) {
+            if (index < 0 || index >= size) {
+                throw new IndexOutOfBoundsException("Index: " + index);
+            }
+            return elementAt(index);
+        }
+        
+        @Override
+        public int size() {
+            return size;
+        }
+    }
+}
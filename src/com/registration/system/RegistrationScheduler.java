@@ -0,0 +1,242 @@
+package com.registration.system;
+
+import com.registration.model.EnrollmentResult;
+import com.registration.model.Student;
+import java.time.Clock;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Admission control for registration openings. Each priority tier of
+ * students (see Student#setRegistrationTier) gets its own opening time,
+ * and all tiers share one closing time.
+ *
+ * Requests outside the student's window are answered immediately with
+ * NOT_OPEN without touching any course. Requests inside it go into a
+ * bounded admission queue, lower tiers first and then in arrival order,
+ * and are registered by a fixed pool of workers. When the queue is full
+ * new requests are answered with BUSY instead of piling up, so a burst at
+ * opening time costs bounded memory and callers can retry.
+ *
+ * Callers get a CompletableFuture and never block on the registration.
+ */
+public class RegistrationScheduler implements AutoCloseable {
+    private static final int DEFAULT_QUEUE_CAPACITY = 10_000;
+    private static final AtomicInteger POOL_NUMBER = new AtomicInteger();
+    
+    private final RegistrationSystem system;
+    private final int queueCapacity;
+    private final ThreadPoolExecutor workers;
+    private final AtomicInteger queued = new AtomicInteger();
+    private final AtomicLong sequence = new AtomicLong();
+    private volatile Clock clock = Clock.systemUTC();
+    
+    // Opening time per tier, null where a tier has none; replaced on change
+    private volatile Instant[] openings = new Instant[0];
+    private volatile Instant earliestOpening;
+    private volatile Instant closing;
+    
+    /**
+     * Constructor for RegistrationScheduler with one worker per processor
+     * @param system The system registrations are applied to
+     */
+    public RegistrationScheduler(RegistrationSystem system) {
+        this(system, Runtime.getRuntime().availableProcessors(), DEFAULT_QUEUE_CAPACITY);
+    }
+    
+    /**
+     * Constructor for RegistrationScheduler
+     * @param system The system registrations are applied to
+     * @param workers Number of threads applying registrations
+     * @param queueCapacity Maximum number of requests waiting for a worker
+     */
+    public RegistrationScheduler(RegistrationSystem system, int workers, int queueCapacity) {
+        if (system == null) {
+            throw new IllegalArgumentException("System cannot be null");
+        }
+        if (workers <= 0) {
+            throw new IllegalArgumentException("Workers must be greater than 0");
+        }
+        if (queueCapacity <= 0) {
+            throw new IllegalArgumentException("Queue capacity must be greater than 0");
+        }
+        this.system = system;
+        this.queueCapacity = queueCapacity;
+        int pool = POOL_NUMBER.incrementAndGet();
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.workers = new ThreadPoolExecutor(workers, workers, 0, TimeUnit.MILLISECONDS,
+                new PriorityBlockingQueue<>(), r -> {
+                    Thread thread = new Thread(r, "registration-admission-" + pool + "-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        // Started up front, so every request goes through the priority queue
+        this.workers.prestartAllCoreThreads();
+    }
+    
+    /**
+     * Set the clock windows are checked against; the system UTC clock by default
+     * @param clock The clock to use
+     */
+    public void setClock(Clock clock) {
+        if (clock == null) {
+            throw new IllegalArgumentException("Clock cannot be null");
+        }
+        this.clock = clock;
+    }
+    
+    /**
+     * Set when students of a tier may start registering. Tiers without an
+     * opening of their own use the nearest lower tier that has one, and
+     * tiers below every configured tier use the earliest opening.
+     * @param tier The priority tier, 0 or greater
+     * @param opensAt First instant at which the tier may register
+     */
+    public synchronized void setOpening(int tier, Instant opensAt) {
+        if (tier < 0) {
+            throw new IllegalArgumentException("Tier cannot be negative");
+        }
+        if (opensAt == null) {
+            throw new IllegalArgumentException("Opening time cannot be null");
+        }
+        Instant[] updated = Arrays.copyOf(openings, Math.max(openings.length, tier + 1));
+        updated[tier] = opensAt;
+        Instant earliest = null;
+        for (Instant opening : updated) {
+            if (opening != null && (earliest == null || opening.isBefore(earliest))) {
+                earliest = opening;
+            }
+        }
+        this.openings = updated;
+        this.earliestOpening = earliest;
+    }
+    
+    /**
+     * Set when registration closes for every tier
+     * @param closesAt First instant at which registration is closed; null to never close
+     */
+    public void setClosing(Instant closesAt) {
+        this.closing = closesAt;
+    }
+    
+    /**
+     * Queue a registration. The future is already complete when the request
+     * was refused on admission: NOT_OPEN outside the student's window, BUSY
+     * when the queue is full and NOT_FOUND for an unknown student.
+     * @param studentId The student's ID
+     * @param courseCode The course code
+     * @return Future completed with the outcome of the registration
+     */
+    public CompletableFuture<EnrollmentResult> submit(String studentId, String courseCode) {
+        if (workers.isShutdown()) {
+            throw new IllegalStateException("Scheduler is closed");
+        }
+        Instant now = clock.instant();
+        Instant earliest = earliestOpening;
+        Instant closesAt = closing;
+        if ((earliest != null && now.isBefore(earliest)) || (closesAt != null && !now.isBefore(closesAt))) {
+            return CompletableFuture.completedFuture(EnrollmentResult.NOT_OPEN);
+        }
+        
+        Student student = system.findStudentById(studentId);
+        if (student == null) {
+            // Reported through the system, so listeners see it as usual
+            return CompletableFuture.completedFuture(system.register(studentId, courseCode));
+        }
+        int tier = student.getRegistrationTier();
+        Instant opensAt = openingFor(tier);
+        if (opensAt != null && now.isBefore(opensAt)) {
+            return CompletableFuture.completedFuture(EnrollmentResult.NOT_OPEN);
+        }
+        
+        if (queued.incrementAndGet() > queueCapacity) {
+            queued.decrementAndGet();
+            return CompletableFuture.completedFuture(EnrollmentResult.BUSY);
+        }
+        Request request = new Request(tier, sequence.getAndIncrement(), studentId, courseCode);
+        try {
+            workers.execute(request);
+        } catch (RejectedExecutionException e) {
+            queued.decrementAndGet();
+            throw new IllegalStateException("Scheduler is closed");
+        }
+        return request.result;
+    }
+    
+    /**
+     * Get the opening that applies to a tier
+     * @param tier The priority tier
+     * @return The opening time, or null if no opening is configured
+     */
+    public Instant openingFor(int tier) {
+        Instant[] current = openings;
+        for (int i = Math.min(tier, current.length - 1); i >= 0; i--) {
+            if (current[i] != null) {
+                return current[i];
+            }
+        }
+        return earliestOpening;
+    }
+    
+    /**
+     * Get the number of admitted requests not yet picked up by a worker
+     * @return Requests waiting in the admission queue
+     */
+    public int getQueuedCount() {
+        return Math.max(0, queued.get());
+    }
+    
+    /**
+     * Stop accepting requests and wait until every admitted request is done
+     */
+    @Override
+    public void close() {
+        workers.shutdown();
+        try {
+            workers.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+    
+    // Ordered by tier, then by arrival
+    private final class Request implements Runnable, Comparable<Request> {
+        final int tier;
+        final long sequence;
+        final String studentId;
+        final String courseCode;
+        final CompletableFuture<EnrollmentResult> result = new CompletableFuture<>();
+        
+        Request(int tier, long sequence, String studentId, String courseCode) {
+            this.tier = tier;
+            this.sequence = sequence;
+            this.studentId = studentId;
+            this.courseCode = courseCode;
+        }
+        
+        @Override
+        public void run() {
+            queued.decrementAndGet();
+            try {
+                result.complete(system.register(studentId, courseCode));
+            } catch (RuntimeException e) {
+                result.completeExceptionally(e);
+            }
+        }
+        
+        @Override
+        public int compareTo(Request other) {
+            if (tier != other.tier) {
+                return Integer.compare(tier, other.tier);
+            }
+            return Long.compare(sequence, other.sequence);
+        }
+    }
+}
@@ -0,0 +1,260 @@
+package com.registration.system;
+
+import com.registration.model.Course;
+import com.registration.model.EnrollmentResult;
+import com.registration.model.Student;
+import java.lang.reflect.Method;
+import java.util.ArrayDeque;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Asynchronous front end for a RegistrationSystem, meant for servers
+ * handling many concurrent client sessions. Every call runs on an executor
+ * and returns a CompletableFuture.
+ *
+ * By default calls run on virtual threads, one per call, when the runtime
+ * provides them (Java 21 and later), and on a fixed pool of platform
+ * threads otherwise.
+ *
+ * Calls touching a course are admitted through a per-course gate: at most
+ * a fixed number of them run at once and the rest wait in the gate without
+ * occupying a thread, so a hot course cannot tie up the executor while
+ * its requests queue for the course lock.
+ *
+ * Gates are keyed on the course code as given and dropped once idle, so
+ * a call never looks its course up twice and unknown codes cannot grow
+ * the gate map. Accepting and finishing a call only touch one atomic
+ * counter, so calls from unrelated sessions never meet on a shared lock.
+ */
+public class RegistrationService implements AutoCloseable {
+    private static final int DEFAULT_COURSE_CONCURRENCY = 4;
+    private static final int CLOSED = Integer.MIN_VALUE;
+    private static final AtomicInteger THREAD_NUMBER = new AtomicInteger();
+    
+    private final RegistrationSystem system;
+    private final ExecutorService executor;
+    private final int courseConcurrency;
+    private final ConcurrentHashMap<String, CourseGate> gates = new ConcurrentHashMap<>();
+    
+    // Calls accepted but not finished, plus CLOSED once closed
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final CountDownLatch drained = new CountDownLatch(1);
+    
+    /**
+     * Constructor for RegistrationService using virtual threads when available
+     * @param system The system calls are applied to
+     */
+    public RegistrationService(RegistrationSystem system) {
+        this(system, newDefaultExecutor(), DEFAULT_COURSE_CONCURRENCY);
+    }
+    
+    /**
+     * Constructor for RegistrationService
+     * @param system The system calls are applied to
+     * @param executor Runs the calls; shut down when the service is closed
+     * @param courseConcurrency Maximum number of calls running at once for one course
+     */
+    public RegistrationService(RegistrationSystem system, ExecutorService executor, int courseConcurrency) {
+        if (system == null) {
+            throw new IllegalArgumentException("System cannot be null");
+        }
+        if (executor == null) {
+            throw new IllegalArgumentException("Executor cannot be null");
+        }
+        if (courseConcurrency <= 0) {
+            throw new IllegalArgumentException("Course concurrency must be greater than 0");
+        }
+        this.system = system;
+        this.executor = executor;
+        this.courseConcurrency = courseConcurrency;
+    }
+    
+    /**
+     * Create the executor used by default: virtual threads when available,
+     * otherwise one platform thread per processor
+     * @return The executor
+     */
+    public static ExecutorService newDefaultExecutor() {
+        ExecutorService virtual = newVirtualThreadExecutor();
+        return virtual != null ? virtual : newPlatformExecutor(Runtime.getRuntime().availableProcessors());
+    }
+    
+    /**
+     * Create an executor starting one virtual thread per task
+     * @return The executor, or null if the runtime has no virtual threads
+     */
+    public static ExecutorService newVirtualThreadExecutor() {
+        try {
+            Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) factory.invoke(null);
+        } catch (ReflectiveOperationException | UnsupportedOperationException e) {
+            return null; // Before Java 21, or preview features disabled
+        }
+    }
+    
+    /**
+     * Create a fixed pool of daemon platform threads
+     * @param threads Number of threads
+     * @return The executor
+     */
+    public static ExecutorService newPlatformExecutor(int threads) {
+        if (threads <= 0) {
+            throw new IllegalArgumentException("Threads must be greater than 0");
+        }
+        return new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(), r -> {
+            Thread thread = new Thread(r, "registration-service-" + THREAD_NUMBER.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+    
+    public CompletableFuture<EnrollmentResult> register(String studentId, String courseCode) {
+        return submit(courseCode, () -> system.register(studentId, courseCode));
+    }
+    
+    public CompletableFuture<EnrollmentResult> drop(String studentId, String courseCode) {
+        return submit(courseCode, () -> system.drop(studentId, courseCode));
+    }
+    
+    public CompletableFuture<EnrollmentResult> registerOrWaitlist(String studentId, String courseCode, int priority) {
+        return submit(courseCode, () -> system.registerOrWaitlist(studentId, courseCode, priority));
+    }
+    
+    /**
+     * Look up a student
+     * @param studentId The student's ID
+     * @return Future completed with the student, or null if there is none
+     */
+    public CompletableFuture<Student> findStudent(String studentId) {
+        return submit(null, () -> system.findStudentById(studentId));
+    }
+    
+    /**
+     * Look up a course
+     * @param courseCode The course code
+     * @return Future completed with the course, or null if there is none
+     */
+    public CompletableFuture<Course> findCourse(String courseCode) {
+        return submit(null, () -> system.findCourseByCode(courseCode));
+    }
+    
+    /**
+     * Stop accepting calls, wait for the accepted ones and shut the executor down
+     */
+    @Override
+    public void close() {
+        int before = inFlight.getAndUpdate(count -> count | CLOSED);
+        if (before == 0) {
+            drained.countDown();
+        }
+        try {
+            drained.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        executor.shutdown();
+    }
+    
+    private <T> CompletableFuture<T> submit(String courseCode, Supplier<T> call) {
+        if (inFlight.getAndIncrement() < 0) {
+            finished();
+            throw new IllegalStateException("Service is closed");
+        }
+        CompletableFuture<T> result = new CompletableFuture<>();
+        Runnable task = () -> {
+            try {
+                result.complete(call.get());
+            } catch (RuntimeException e) {
+                result.completeExceptionally(e);
+            } finally {
+                finished();
+            }
+        };
+        if (courseCode == null) {
+            execute(task);
+        } else {
+            // A gate retired after the lookup is already out of the map, so the retry gets a new one
+            while (!gates.computeIfAbsent(courseCode, CourseGate::new).submit(task)) {
+                continue;
+            }
+        }
+        return result;
+    }
+    
+    private void finished() {
+        if (inFlight.decrementAndGet() == CLOSED) {
+            drained.countDown(); // Last call after close
+        }
+    }
+    
+    private void execute(Runnable task) {
+        try {
+            executor.execute(task);
+        } catch (RejectedExecutionException e) {
+            task.run(); // Executor shut down from outside; run on the caller's thread
+        }
+    }
+    
+    // Lets at most courseConcurrency tasks of one course run; the rest wait here
+    private final class CourseGate {
+        private final String courseCode;
+        private int running;
+        private boolean retired;
+        private final ArrayDeque<Runnable> waiting = new ArrayDeque<>();
+        
+        CourseGate(String courseCode) {
+            this.courseCode = courseCode;
+        }
+        
+        // false if the gate went idle and left the map; submit to a new one
+        boolean submit(Runnable task) {
+            synchronized (this) {
+                if (retired) {
+                    return false;
+                }
+                if (running >= courseConcurrency) {
+                    waiting.add(task);
+                    return true;
+                }
+                running++;
+            }
+            start(task);
+            return true;
+        }
+        
+        private void start(Runnable task) {
+            execute(() -> {
+                try {
+                    task.run();
+                } finally {
+                    startNext();
+                }
+            });
+        }
+        
+        private void startNext() {
+            Runnable next;
+            synchronized (this) {
+                next = waiting.poll();
+                if (next == null) {
+                    if (--running == 0) {
+                        retired = true;
+                        gates.remove(courseCode, this);
+                    }
+                    return;
+                }
+            }
+            start(next);
+        }
+    }
+}
@@ -0,0 +1,179 @@
+package com.registration.system;
+
+import com.registration.event.RegistrationEvent;
+import com.registration.model.Course;
+import com.registration.model.Instructor;
+import com.registration.model.Person;
+import com.registration.model.Student;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Aggregate statistics of a RegistrationSystem, kept up to date from its
+ * events instead of being recomputed by scanning the catalog.
+ *
+ * Every counter is a LongAdder, so concurrent registrations update
+ * separate cells instead of contending on one value, and reading a
+ * statistic takes no lock and does not depend on the number of students
+ * or courses. Reads taken while registrations are in flight may be off
+ * by the operations still in progress.
+ */
+public final class RegistrationStatistics {
+    /**
+     * Number of histogram buckets; the last one counts students with that many courses or more
+     */
+    public static final int HISTOGRAM_BUCKETS = 16;
+    
+    private final LongAdder enrollments = new LongAdder();
+    private final LongAdder assignments = new LongAdder();
+    private final LongAdder fullCourses = new LongAdder();
+    private final LongAdder[] coursesPerStudent = new LongAdder[HISTOGRAM_BUCKETS];
+    
+    RegistrationStatistics() {
+        for (int i = 0; i < HISTOGRAM_BUCKETS; i++) {
+            coursesPerStudent[i] = new LongAdder();
+        }
+    }
+    
+    /**
+     * Account for the entities of a compact snapshot, which are loaded
+     * without events
+     * @param snapshot The snapshot the system was opened from
+     */
+    void seed(CompactSnapshot snapshot) {
+        for (int course = 0; course < snapshot.courseCount(); course++) {
+            int enrolled = snapshot.rosterSize(course);
+            enrollments.add(enrolled);
+            if (enrolled >= snapshot.courseMaxStudents(course)) {
+                fullCourses.increment();
+            }
+        }
+        for (int student = 0; student < snapshot.studentCount(); student++) {
+            bucket(snapshot.courseCountOfStudent(student)).increment();
+        }
+        for (int instructor = 0; instructor < snapshot.instructorCount(); instructor++) {
+            assignments.add(snapshot.coursesOfInstructor(instructor).length);
+        }
+    }
+    
+    // Called for every event of the system, before any observer
+    void onEvent(RegistrationEvent event, Person person, Course course, String key) {
+        switch (event) {
+            case REGISTERED:
+                enrollments.increment();
+                break;
+            case REMOVED:
+                enrollments.decrement();
+                break;
+            case COURSE_FILLED:
+                fullCourses.increment();
+                break;
+            case COURSE_REOPENED:
+                fullCourses.decrement();
+                break;
+            case ENROLLED: {
+                // Reported under the student's lock, so the count is the one just reached
+                int count = ((Student) person).getEnrolledCoursesCount();
+                bucket(count - 1).decrement();
+                bucket(count).increment();
+                break;
+            }
+            case DROPPED: {
+                int count = ((Student) person).getEnrolledCoursesCount();
+                bucket(count + 1).decrement();
+                bucket(count).increment();
+                break;
+            }
+            case ASSIGNED:
+                assignments.increment();
+                break;
+            case UNASSIGNED:
+                assignments.decrement();
+                break;
+            // Entities may already carry enrollments when they are added
+            case STUDENT_ADDED:
+                bucket(((Student) person).getEnrolledCoursesCount()).increment();
+                break;
+            case COURSE_ADDED:
+                enrollments.add(course.getCurrentEnrollment());
+                if (course.isFull()) {
+                    fullCourses.increment();
+                }
+                break;
+            case INSTRUCTOR_ADDED:
+                assignments.add(((Instructor) person).getAssignedCoursesCount());
+                break;
+            default:
+                break;
+        }
+    }
+    
+    private LongAdder bucket(int courses) {
+        return coursesPerStudent[Math.min(courses, HISTOGRAM_BUCKETS - 1)];
+    }
+    
+    /**
+     * @return Number of student-course enrollments in the system
+     */
+    public long getTotalEnrollments() {
+        return enrollments.sum();
+    }
+    
+    /**
+     * @return Number of instructor-course assignments in the system
+     */
+    public long getTotalAssignments() {
+        return assignments.sum();
+    }
+    
+    /**
+     * @return Number of courses with no seat left
+     */
+    public long getFullCourseCount() {
+        return fullCourses.sum();
+    }
+    
+    /**
+     * Get how full a course is
+     * @param course The course to check
+     * @return Enrolled students divided by capacity; above 1 if capacity was lowered
+     */
+    public double getFillRatio(Course course) {
+        if (course == null) {
+            throw new IllegalArgumentException("Course cannot be null");
+        }
+        return (double) course.getCurrentEnrollment() / course.getMaxStudents();
+    }
+    
+    /**
+     * Get the number of students enrolled in a given number of courses
+     * @param courses Number of courses; values from HISTOGRAM_BUCKETS - 1 up share a bucket
+     * @return Number of students in that bucket
+     */
+    public long getStudentsWithCourseCount(int courses) {
+        if (courses < 0) {
+            throw new IllegalArgumentException("Course count cannot be negative");
+        }
+        return bucket(courses).sum();
+    }
+    
+    /**
+     * Get the courses-per-student histogram
+     * @return Students per course count, indexed by count; the last bucket is open-ended
+     */
+    public long[] getCoursesPerStudentHistogram() {
+        long[] histogram = new long[HISTOGRAM_BUCKETS];
+        for (int i = 0; i < HISTOGRAM_BUCKETS; i++) {
+            histogram[i] = coursesPerStudent[i].sum();
+        }
+        return histogram;
+    }
+    
+    @Override
+    public String toString() {
+        return "RegistrationStatistics{" +
+                "enrollments=" + getTotalEnrollments() +
+                ", assignments=" + getTotalAssignments() +
+                ", fullCourses=" + getFullCourseCount() +
+                '}';
+    }
+}
@@ -1,25 +1,272 @@
 package com.registration.system;
 
+import com.registration.event.RegistrationEvent;
+import com.registration.event.RegistrationListener;
+import com.registration.export.RegistrationExporter;
+import com.registration.metrics.RegistrationMetrics;
+import com.registration.metrics.RegistrationMetrics.Operation;
 import com.registration.model.*;
+import com.registration.search.OpenSeatIndex;
+import com.registration.search.SearchIndex;
+import java.io.IOException;
+import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
 
 /**
  * RegistrationSystem class that orchestrates the entire registration process.
  * Demonstrates abstraction by exposing high-level operations while hiding internal complexity.
+ *
+ * All operations are safe to call from many threads at once. Lookups are
+ * lock-free, and registering or dropping only locks the student and the
+ * course involved (always in that order), so unrelated registrations run
+ * in parallel and can never deadlock each other.
+ *
+ * Outcomes are reported to a RegistrationListener rather than printed;
+ * install a ConsoleListener to get the classic console messages.
  */
 public class RegistrationSystem {
-    private List<Student> students;
-    private List<Instructor> instructors;
-    private List<Course> courses;
+    /**
+     * Most distinct students an all-or-nothing batch may involve. Each one
+     * stays locked for the whole batch, through one nested monitor apiece.
+     */
+    public static final int MAX_CART_STUDENTS = 256;
+    
+    private final EntityIndex<Student> students;
+    private final EntityIndex<Instructor> instructors;
+    private final EntityIndex<Course> courses;
+    private volatile RegistrationListener listener;
+    private volatile RegistrationListener[] observers;
+    private final RegistrationStatistics statistics;
+    private final RegistrationMetrics metrics = new RegistrationMetrics();
+    private volatile SearchIndex searchIndex; // Built on first use
+    private volatile OpenSeatIndex openSeatIndex; // Built on first use
+    
+    // Installed on every entity added to this system; forwards to observers and the listener
+    private final RegistrationListener dispatcher = this::dispatch;
+    
+    // Installed on every student added to this system; forwards to the current policy
+    private volatile EnrollmentPolicy policy = EnrollmentPolicy.UNRESTRICTED;
+    private final EnrollmentPolicy policyHook =
+            (student, course, resultingCredits) -> policy.permits(student, course, resultingCredits);
     
     /**
      * Constructor for RegistrationSystem
      */
     public RegistrationSystem() {
-        this.students = new ArrayList<>();
-        this.instructors = new ArrayList<>();
-        this.courses = new ArrayList<>();
+        this(null);
+    }
+    
+    // Entities in the snapshot, if any, are loaded on first access
+    private RegistrationSystem(CompactSnapshot snapshot) {
+        if (snapshot == null) {
+            this.students = new EntityIndex<>(Student::getId);
+            this.instructors = new EntityIndex<>(Instructor::getId);
+            this.courses = new EntityIndex<>(Course::getCourseCode);
+        } else {
+            this.students = new EntityIndex<>(Student::getId, new StoredStudents(snapshot));
+            this.instructors = new EntityIndex<>(Instructor::getId, new StoredInstructors(snapshot));
+            this.courses = new EntityIndex<>(Course::getCourseCode, new StoredCourses(snapshot));
+        }
+        this.listener = RegistrationListener.NO_OP;
+        this.observers = new RegistrationListener[0];
+        this.statistics = new RegistrationStatistics();
+        if (snapshot != null) {
+            statistics.seed(snapshot);
+        }
+    }
+    
+    /**
+     * Open a system from a compact snapshot. The file is memory-mapped and
+     * each student, course and instructor is only built when it is first
+     * looked up or listed, so opening takes the same time at any size.
+     * @param path A file written by writeCompactSnapshot
+     * @return The system holding the stored state
+     */
+    public static RegistrationSystem openCompactSnapshot(Path path) throws IOException {
+        if (path == null) {
+            throw new IllegalArgumentException("Path cannot be null");
+        }
+        return new RegistrationSystem(CompactSnapshot.open(path));
+    }
+    
+    /**
+     * Write the current state as a compact snapshot that openCompactSnapshot can map.
+     * Registrations may continue while the snapshot is written.
+     * @param path Where to store the snapshot; an existing file is replaced atomically
+     */
+    public void writeCompactSnapshot(Path path) throws IOException {
+        if (path == null) {
+            throw new IllegalArgumentException("Path cannot be null");
+        }
+        CompactSnapshot.write(this, path);
+    }
+    
+    public RegistrationListener getEventListener() {
+        return listener;
+    }
+    
+    /**
+     * Get the live statistics of this system. They are updated on every
+     * operation and can be polled at any rate without locking.
+     * @return The statistics, always the same instance
+     */
+    public RegistrationStatistics getStatistics() {
+        return statistics;
+    }
+    
+    /**
+     * Get the outcome counters and latency histograms of this system.
+     * They are disabled until getMetrics().setEnabled(true) is called.
+     * @return The metrics, always the same instance
+     */
+    public RegistrationMetrics getMetrics() {
+        return metrics;
+    }
+    
+    /**
+     * Get the search index over this system's students, instructors and
+     * courses. It is built on the first call, which loads every stored
+     * entity, and kept up to date as entities are added or renamed.
+     * @return The index, always the same instance
+     */
+    public SearchIndex getSearchIndex() {
+        SearchIndex index = searchIndex;
+        if (index != null) {
+            return index;
+        }
+        synchronized (this) {
+            if (searchIndex == null) {
+                index = new SearchIndex();
+                addObserver(index); // First, so entities added meanwhile are not missed
+                for (Student student : getStudentsView()) {
+                    index.add(student);
+                }
+                for (Instructor instructor : getInstructorsView()) {
+                    index.add(instructor);
+                }
+                for (Course course : getCoursesView()) {
+                    index.add(course);
+                }
+                searchIndex = index;
+            }
+            return searchIndex;
+        }
+    }
+    
+    /**
+     * Get the index of courses with open seats by department. It is built
+     * on the first call, which loads every stored course, and from then on
+     * updated by every registration and drop.
+     * @return The index, always the same instance
+     */
+    public OpenSeatIndex getOpenSeatIndex() {
+        OpenSeatIndex index = openSeatIndex;
+        if (index != null) {
+            return index;
+        }
+        synchronized (this) {
+            if (openSeatIndex == null) {
+                index = new OpenSeatIndex();
+                addObserver(index); // First, so changes made meanwhile are not missed
+                for (Course course : getCoursesView()) {
+                    index.add(course);
+                }
+                openSeatIndex = index;
+            }
+            return openSeatIndex;
+        }
+    }
+    
+    /**
+     * Set the listener notified of every operation outcome in this system
+     * @param listener The listener to notify, e.g. a ConsoleListener or AsyncListener
+     */
+    public void setEventListener(RegistrationListener listener) {
+        if (listener == null) {
+            throw new IllegalArgumentException("Listener cannot be null");
+        }
+        this.listener = listener;
+    }
+    
+    /**
+     * Set the policy every student of this system is checked against before
+     * enrolling, e.g. EnrollmentPolicy.maxCredits(18). Applies to students
+     * already added as well, in addition to any policy set on a student.
+     * @param policy The policy to apply
+     */
+    public void setEnrollmentPolicy(EnrollmentPolicy policy) {
+        if (policy == null) {
+            throw new IllegalArgumentException("Policy cannot be null");
+        }
+        this.policy = policy;
+    }
+    
+    /**
+     * Register an observer that receives every event before the event listener.
+     * Observers are meant for components keeping state derived from the
+     * registration data, such as a journal, and stay attached when the
+     * event listener is replaced.
+     * @param observer The observer to add
+     */
+    public synchronized void addObserver(RegistrationListener observer) {
+        if (observer == null) {
+            throw new IllegalArgumentException("Observer cannot be null");
+        }
+        RegistrationListener[] current = observers;
+        RegistrationListener[] updated = Arrays.copyOf(current, current.length + 1);
+        updated[current.length] = observer;
+        observers = updated;
+    }
+    
+    /**
+     * Detach an observer added with addObserver
+     * @param observer The observer to remove
+     * @return true if the observer was attached
+     */
+    public synchronized boolean removeObserver(RegistrationListener observer) {
+        RegistrationListener[] current = observers;
+        for (int i = 0; i < current.length; i++) {
+            if (current[i] == observer) {
+                RegistrationListener[] updated = new RegistrationListener[current.length - 1];
+                System.arraycopy(current, 0, updated, 0, i);
+                System.arraycopy(current, i + 1, updated, i, current.length - i - 1);
+                observers = updated;
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    private void dispatch(RegistrationEvent event, Person person, Course course, String key) {
+        if (key != null && (event == RegistrationEvent.COURSE_RENAMED || event == RegistrationEvent.PERSON_RENAMED)) {
+            rekey(person, course, key); // Before anyone sees the new key, since it may be refused
+        }
+        statistics.onEvent(event, person, course, key);
+        for (RegistrationListener observer : observers) {
+            observer.onEvent(event, person, course, key);
+        }
+        listener.onEvent(event, person, course, key);
+    }
+    
+    // Keeps a renamed entity findable by its new code or ID, and only by that
+    private void rekey(Person person, Course course, String previousKey) {
+        if (course != null) {
+            if (!courses.rekey(previousKey, course)) {
+                throw new IllegalArgumentException("Course with code " + course.getCourseCode() + " already exists");
+            }
+        } else if (person instanceof Student) {
+            if (!students.rekey(previousKey, (Student) person)) {
+                throw new IllegalArgumentException("Student with ID " + person.getId() + " already exists");
+            }
+        } else if (!instructors.rekey(previousKey, (Instructor) person)) {
+            throw new IllegalArgumentException("Instructor with ID " + person.getId() + " already exists");
+        }
     }
     
     // Student Management Methods
@@ -34,14 +281,16 @@ public class RegistrationSystem {
             throw new IllegalArgumentException("Student cannot be null");
         }
         
-        if (students.contains(student)) {
-            System.out.println("Student with ID " + student.getId() + " already exists");
-            return false;
+        // Reported before the student becomes visible, so no later event can precede it
+        boolean added = students.add(student, s -> {
+            s.setEventListener(dispatcher);
+            s.setSystemEnrollmentPolicy(policyHook);
+            dispatch(RegistrationEvent.STUDENT_ADDED, s, null, null);
+        });
+        if (!added) {
+            dispatch(RegistrationEvent.DUPLICATE_STUDENT, student, null, null);
         }
-        
-        students.add(student);
-        System.out.println("Student " + student.getName() + " added to the system");
-        return true;
+        return added;
     }
     
     /**
@@ -50,12 +299,24 @@ public class RegistrationSystem {
      * @return Student object if found, null otherwise
      */
     public Student findStudentById(String studentId) {
-        for (Student student : students) {
-            if (student.getId().equals(studentId)) {
-                return student;
-            }
-        }
-        return null;
+        long start = metrics.start();
+        Student student = students.find(studentId);
+        metrics.stop(Operation.FIND_STUDENT,
+                student != null ? EnrollmentResult.SUCCESS : EnrollmentResult.NOT_FOUND, start);
+        return student;
+    }
+    
+    /**
+     * Add many students at once; cheaper than calling addStudent for each
+     * @param batch The students to add
+     * @return SUCCESS or DUPLICATE for every student, in order
+     */
+    public BatchResult addStudents(Collection<Student> batch) {
+        return addAll(students, batch, s -> {
+            s.setEventListener(dispatcher);
+            s.setSystemEnrollmentPolicy(policyHook);
+            dispatch(RegistrationEvent.STUDENT_ADDED, s, null, null);
+        }, s -> dispatch(RegistrationEvent.DUPLICATE_STUDENT, s, null, null));
     }
     
     // Instructor Management Methods
@@ -70,14 +331,14 @@ public class RegistrationSystem {
             throw new IllegalArgumentException("Instructor cannot be null");
         }
         
-        if (instructors.contains(instructor)) {
-            System.out.println("Instructor with ID " + instructor.getId() + " already exists");
-            return false;
+        boolean added = instructors.add(instructor, i -> {
+            i.setEventListener(dispatcher);
+            dispatch(RegistrationEvent.INSTRUCTOR_ADDED, i, null, null);
+        });
+        if (!added) {
+            dispatch(RegistrationEvent.DUPLICATE_INSTRUCTOR, instructor, null, null);
         }
-        
-        instructors.add(instructor);
-        System.out.println("Instructor " + instructor.getName() + " added to the system");
-        return true;
+        return added;
     }
     
     /**
@@ -86,12 +347,19 @@ public class RegistrationSystem {
      * @return Instructor object if found, null otherwise
      */
     public Instructor findInstructorById(String instructorId) {
-        for (Instructor instructor : instructors) {
-            if (instructor.getId().equals(instructorId)) {
-                return instructor;
-            }
-        }
-        return null;
+        return instructors.find(instructorId);
+    }
+    
+    /**
+     * Add many instructors at once; cheaper than calling addInstructor for each
+     * @param batch The instructors to add
+     * @return SUCCESS or DUPLICATE for every instructor, in order
+     */
+    public BatchResult addInstructors(Collection<Instructor> batch) {
+        return addAll(instructors, batch, i -> {
+            i.setEventListener(dispatcher);
+            dispatch(RegistrationEvent.INSTRUCTOR_ADDED, i, null, null);
+        }, i -> dispatch(RegistrationEvent.DUPLICATE_INSTRUCTOR, i, null, null));
     }
     
     // Course Management Methods
@@ -106,14 +374,15 @@ public class RegistrationSystem {
             throw new IllegalArgumentException("Course cannot be null");
         }
         
-        if (courses.contains(course)) {
-            System.out.println("Course with code " + course.getCourseCode() + " already exists");
-            return false;
+        boolean added = courses.add(course, c -> {
+            c.setEventListener(dispatcher);
+            c.setMetrics(metrics);
+            dispatch(RegistrationEvent.COURSE_ADDED, null, c, null);
+        });
+        if (!added) {
+            dispatch(RegistrationEvent.DUPLICATE_COURSE, null, course, null);
         }
-        
-        courses.add(course);
-        System.out.println("Course " + course.getCourseCode() + " added to the system");
-        return true;
+        return added;
     }
     
     /**
@@ -122,58 +391,261 @@ public class RegistrationSystem {
      * @return Course object if found, null otherwise
      */
     public Course findCourseByCode(String courseCode) {
-        for (Course course : courses) {
-            if (course.getCourseCode().equals(courseCode)) {
-                return course;
+        long start = metrics.start();
+        Course course = courses.find(courseCode);
+        metrics.stop(Operation.FIND_COURSE,
+                course != null ? EnrollmentResult.SUCCESS : EnrollmentResult.NOT_FOUND, start);
+        return course;
+    }
+    
+    /**
+     * Add many courses at once; cheaper than calling addCourse for each
+     * @param batch The courses to add
+     * @return SUCCESS or DUPLICATE for every course, in order
+     */
+    public BatchResult addCourses(Collection<Course> batch) {
+        return addAll(courses, batch, c -> {
+            c.setEventListener(dispatcher);
+            c.setMetrics(metrics);
+            dispatch(RegistrationEvent.COURSE_ADDED, null, c, null);
+        }, c -> dispatch(RegistrationEvent.DUPLICATE_COURSE, null, c, null));
+    }
+    
+    private static <T> BatchResult addAll(EntityIndex<T> index, Collection<T> batch,
+                                          Consumer<T> onAdded, Consumer<T> onDuplicate) {
+        if (batch == null) {
+            throw new IllegalArgumentException("Batch cannot be null");
+        }
+        List<T> items = new ArrayList<>(batch);
+        if (items.contains(null)) {
+            throw new IllegalArgumentException("Batch cannot contain null entries");
+        }
+        
+        boolean[] added = index.addAll(items, onAdded);
+        byte[] codes = new byte[added.length];
+        for (int i = 0; i < added.length; i++) {
+            if (added[i]) {
+                codes[i] = (byte) EnrollmentResult.SUCCESS.ordinal();
+            } else {
+                codes[i] = (byte) EnrollmentResult.DUPLICATE.ordinal();
+                onDuplicate.accept(items.get(i));
             }
         }
-        return null;
+        return new BatchResult(codes, true);
     }
     
     // High-level Registration Operations (Abstraction)
     
     /**
-     * Register a student to a course by their IDs
+     * Register a student to a course by their IDs. The student has to meet
+     * the course's prerequisites and corequisites.
      * @param studentId The student's ID
      * @param courseCode The course code
      * @return true if registration successful, false otherwise
      */
     public boolean registerStudentToCourse(String studentId, String courseCode) {
+        return register(studentId, courseCode).isSuccess();
+    }
+    
+    /**
+     * Register a student to a course by their IDs and report why it failed
+     * @param studentId The student's ID
+     * @param courseCode The course code
+     * @return SUCCESS, or the reason the registration was refused
+     */
+    public EnrollmentResult register(String studentId, String courseCode) {
+        long start = metrics.start();
+        return metrics.stop(Operation.REGISTER, registerUntimed(studentId, courseCode), start);
+    }
+    
+    private EnrollmentResult registerUntimed(String studentId, String courseCode) {
+        Student student = students.find(studentId);
+        if (student == null) {
+            dispatch(RegistrationEvent.STUDENT_NOT_FOUND, null, null, studentId);
+            return EnrollmentResult.NOT_FOUND;
+        }
+        
+        Course course = courses.find(courseCode);
+        if (course == null) {
+            dispatch(RegistrationEvent.COURSE_NOT_FOUND, null, null, courseCode);
+            return EnrollmentResult.NOT_FOUND;
+        }
+        
+        return student.enroll(course);
+    }
+    
+    /**
+     * Drop a student from a course by their IDs
+     * @param studentId The student's ID
+     * @param courseCode The course code
+     * @return true if drop successful, false otherwise
+     */
+    public boolean dropStudentFromCourse(String studentId, String courseCode) {
+        return drop(studentId, courseCode).isSuccess();
+    }
+    
+    /**
+     * Drop a student from a course by their IDs and report why it failed
+     * @param studentId The student's ID
+     * @param courseCode The course code
+     * @return SUCCESS, NOT_ENROLLED or NOT_FOUND
+     */
+    public EnrollmentResult drop(String studentId, String courseCode) {
+        long start = metrics.start();
+        return metrics.stop(Operation.DROP, dropUntimed(studentId, courseCode), start);
+    }
+    
+    private EnrollmentResult dropUntimed(String studentId, String courseCode) {
+        Student student = students.find(studentId);
+        if (student == null) {
+            dispatch(RegistrationEvent.STUDENT_NOT_FOUND, null, null, studentId);
+            return EnrollmentResult.NOT_FOUND;
+        }
+        
+        Course course = courses.find(courseCode);
+        if (course == null) {
+            dispatch(RegistrationEvent.COURSE_NOT_FOUND, null, null, courseCode);
+            return EnrollmentResult.NOT_FOUND;
+        }
+        
+        return student.drop(course);
+    }
+    
+    /**
+     * Register a student to a course, or put them on its waitlist if it is full
+     * @param studentId The student's ID
+     * @param courseCode The course code
+     * @return SUCCESS, WAITLISTED, DUPLICATE or NOT_FOUND
+     */
+    public EnrollmentResult registerOrWaitlist(String studentId, String courseCode) {
+        return registerOrWaitlist(studentId, courseCode, 0);
+    }
+    
+    /**
+     * Register a student to a course, or put them on its waitlist if it is full.
+     * Waitlisted students are enrolled automatically, highest priority first and
+     * then in the order they joined, as seats are freed by drops or capacity increases.
+     * @param studentId The student's ID
+     * @param courseCode The course code
+     * @param priority Waitlist priority; higher values are served first
+     * @return SUCCESS, WAITLISTED, DUPLICATE or NOT_FOUND
+     */
+    public EnrollmentResult registerOrWaitlist(String studentId, String courseCode, int priority) {
+        long start = metrics.start();
+        return metrics.stop(Operation.REGISTER_OR_WAITLIST,
+                registerOrWaitlistUntimed(studentId, courseCode, priority), start);
+    }
+    
+    private EnrollmentResult registerOrWaitlistUntimed(String studentId, String courseCode, int priority) {
+        Student student = students.find(studentId);
+        if (student == null) {
+            dispatch(RegistrationEvent.STUDENT_NOT_FOUND, null, null, studentId);
+            return EnrollmentResult.NOT_FOUND;
+        }
+        
+        Course course = courses.find(courseCode);
+        if (course == null) {
+            dispatch(RegistrationEvent.COURSE_NOT_FOUND, null, null, courseCode);
+            return EnrollmentResult.NOT_FOUND;
+        }
+        
+        return student.enrollOrWaitlist(course, priority);
+    }
+    
+    /**
+     * Find the courses a student could add without a schedule conflict
+     * @param studentId The student's ID
+     * @return Courses that do not overlap the student's schedule and are not taken
+     *         yet, in the order they were added; empty if the student is unknown
+     */
+    public List<Course> findNonConflictingSections(String studentId) {
+        Student student = findStudentById(studentId);
+        if (student == null) {
+            dispatch(RegistrationEvent.STUDENT_NOT_FOUND, null, null, studentId);
+            return new ArrayList<>();
+        }
+        return student.findNonConflicting(courses.values());
+    }
+    
+    /**
+     * Require one course to be completed before another can be taken
+     * @param courseCode The course gaining the requirement
+     * @param prerequisiteCode The course that has to be completed first
+     * @return true if both courses exist
+     * @throws IllegalArgumentException if the requirement would create a cycle
+     */
+    public boolean addPrerequisite(String courseCode, String prerequisiteCode) {
+        Course course = findCourseByCode(courseCode);
+        Course prerequisite = findCourseByCode(prerequisiteCode);
+        if (course == null || prerequisite == null) {
+            dispatch(RegistrationEvent.COURSE_NOT_FOUND, null, null, course == null ? courseCode : prerequisiteCode);
+            return false;
+        }
+        course.addPrerequisite(prerequisite);
+        return true;
+    }
+    
+    /**
+     * Require one course to be completed before, or taken with, another
+     * @param courseCode The course gaining the requirement
+     * @param corequisiteCode The course that has to be completed or registered first
+     * @return true if both courses exist
+     * @throws IllegalArgumentException if the requirement would create a cycle
+     */
+    public boolean addCorequisite(String courseCode, String corequisiteCode) {
+        Course course = findCourseByCode(courseCode);
+        Course corequisite = findCourseByCode(corequisiteCode);
+        if (course == null || corequisite == null) {
+            dispatch(RegistrationEvent.COURSE_NOT_FOUND, null, null, course == null ? courseCode : corequisiteCode);
+            return false;
+        }
+        course.addCorequisite(corequisite);
+        return true;
+    }
+    
+    /**
+     * Record that a student has passed a course
+     * @param studentId The student's ID
+     * @param courseCode The course code
+     * @return true if the completion was recorded, false if either is unknown
+     */
+    public boolean recordCompletion(String studentId, String courseCode) {
         Student student = findStudentById(studentId);
         if (student == null) {
-            System.out.println("Student with ID " + studentId + " not found");
+            dispatch(RegistrationEvent.STUDENT_NOT_FOUND, null, null, studentId);
             return false;
         }
         
         Course course = findCourseByCode(courseCode);
         if (course == null) {
-            System.out.println("Course with code " + courseCode + " not found");
+            dispatch(RegistrationEvent.COURSE_NOT_FOUND, null, null, courseCode);
             return false;
         }
         
-        return student.enrollInCourse(course);
+        student.completeCourse(course);
+        return true;
     }
     
     /**
-     * Drop a student from a course by their IDs
+     * Take a student off a course's waitlist
      * @param studentId The student's ID
      * @param courseCode The course code
-     * @return true if drop successful, false otherwise
+     * @return true if the student was waiting, false otherwise
      */
-    public boolean dropStudentFromCourse(String studentId, String courseCode) {
+    public boolean leaveWaitlist(String studentId, String courseCode) {
         Student student = findStudentById(studentId);
         if (student == null) {
-            System.out.println("Student with ID " + studentId + " not found");
+            dispatch(RegistrationEvent.STUDENT_NOT_FOUND, null, null, studentId);
             return false;
         }
         
         Course course = findCourseByCode(courseCode);
         if (course == null) {
-            System.out.println("Course with code " + courseCode + " not found");
+            dispatch(RegistrationEvent.COURSE_NOT_FOUND, null, null, courseCode);
             return false;
         }
         
-        return student.dropCourse(course);
+        return course.leaveWaitlist(student);
     }
     
     /**
@@ -185,64 +657,219 @@ public class RegistrationSystem {
     public boolean assignInstructorToCourse(String instructorId, String courseCode) {
         Instructor instructor = findInstructorById(instructorId);
         if (instructor == null) {
-            System.out.println("Instructor with ID " + instructorId + " not found");
+            dispatch(RegistrationEvent.INSTRUCTOR_NOT_FOUND, null, null, instructorId);
             return false;
         }
         
         Course course = findCourseByCode(courseCode);
         if (course == null) {
-            System.out.println("Course with code " + courseCode + " not found");
+            dispatch(RegistrationEvent.COURSE_NOT_FOUND, null, null, courseCode);
             return false;
         }
         
         return instructor.assignCourse(course);
     }
     
+    // Batch Operations
+    
+    /**
+     * Apply a batch of register/drop operations on a best-effort basis.
+     * The outcome of every operation is returned rather than printed.
+     * @param operations The operations to apply
+     * @return Outcome of every operation, in submission order
+     */
+    public BatchResult processBatch(Collection<BatchOperation> operations) {
+        return processBatch(operations, false);
+    }
+    
+    /**
+     * Apply a batch of register/drop operations.
+     * Student IDs and course codes are resolved once up front, and operations are
+     * grouped by course so each course is processed in a single pass; operations on
+     * the same course keep their submitted order.
+     *
+     * In all-or-nothing (cart) mode every student in the batch is locked for the
+     * duration of the batch, all registrations are attempted first and drops are
+     * applied only once every registration succeeded, so swapping a section never
+     * gives up the old seat unless the new one is secured. If any operation fails,
+     * the registrations already made are rolled back and the remaining successful
+     * items are reported as ROLLED_BACK.
+     * @param operations The operations to apply
+     * @param allOrNothing true to apply the batch atomically as a cart
+     * @return Outcome of every operation, in submission order
+     * @throws IllegalArgumentException if a cart involves more than MAX_CART_STUDENTS students
+     */
+    public BatchResult processBatch(Collection<BatchOperation> operations, boolean allOrNothing) {
+        if (operations == null) {
+            throw new IllegalArgumentException("Operations cannot be null");
+        }
+        
+        BatchOperation[] ops = operations.toArray(new BatchOperation[0]);
+        Student[] batchStudents = new Student[ops.length];
+        Course[] batchCourses = new Course[ops.length];
+        byte[] codes = new byte[ops.length];
+        boolean allResolved = true;
+        
+        for (int i = 0; i < ops.length; i++) {
+            batchStudents[i] = findStudentById(ops[i].getStudentId());
+            batchCourses[i] = findCourseByCode(ops[i].getCourseCode());
+            if (batchStudents[i] == null || batchCourses[i] == null) {
+                codes[i] = (byte) EnrollmentResult.NOT_FOUND.ordinal();
+                allResolved = false;
+            }
+        }
+        
+        if (allOrNothing) {
+            if (!allResolved) {
+                markRolledBack(codes, ops.length);
+                return new BatchResult(codes, false);
+            }
+            return processCart(ops, batchStudents, batchCourses, codes);
+        }
+        
+        for (int i : groupByCourse(batchCourses)) {
+            if (batchStudents[i] != null) {
+                codes[i] = (byte) apply(ops[i], batchStudents[i], batchCourses[i]).ordinal();
+            }
+        }
+        return new BatchResult(codes, true);
+    }
+    
+    /**
+     * Order operation indices so that operations on the same course are adjacent.
+     * Stable counting sort over course groups; unresolved operations are left out.
+     */
+    private static int[] groupByCourse(Course[] batchCourses) {
+        Map<Course, Integer> groups = new IdentityHashMap<>();
+        int[] groupOf = new int[batchCourses.length];
+        int resolved = 0;
+        for (int i = 0; i < batchCourses.length; i++) {
+            if (batchCourses[i] == null) {
+                groupOf[i] = -1;
+                continue;
+            }
+            Integer group = groups.get(batchCourses[i]);
+            if (group == null) {
+                group = groups.size();
+                groups.put(batchCourses[i], group);
+            }
+            groupOf[i] = group;
+            resolved++;
+        }
+        
+        int[] starts = new int[groups.size() + 1];
+        for (int group : groupOf) {
+            if (group >= 0) {
+                starts[group + 1]++;
+            }
+        }
+        for (int g = 0; g < groups.size(); g++) {
+            starts[g + 1] += starts[g];
+        }
+        
+        int[] order = new int[resolved];
+        for (int i = 0; i < groupOf.length; i++) {
+            if (groupOf[i] >= 0) {
+                order[starts[groupOf[i]]++] = i;
+            }
+        }
+        return order;
+    }
+    
+    private BatchResult processCart(BatchOperation[] ops, Student[] batchStudents,
+                                    Course[] batchCourses, byte[] codes) {
+        // Lock students in ID order so concurrent carts cannot deadlock
+        Student[] distinct = Arrays.stream(batchStudents).distinct().toArray(Student[]::new);
+        if (distinct.length > MAX_CART_STUDENTS) {
+            // Refused before any lock is taken, rather than running out of stack while holding them
+            throw new IllegalArgumentException("An all-or-nothing batch can involve at most "
+                    + MAX_CART_STUDENTS + " students, not " + distinct.length);
+        }
+        Arrays.sort(distinct, (a, b) -> a.getId().compareTo(b.getId()));
+        return lockStudentsAndApply(distinct, 0, ops, batchStudents, batchCourses, codes);
+    }
+    
+    // Monitors can only be nested, so each student is locked one frame deeper
+    private BatchResult lockStudentsAndApply(Student[] locked, int next, BatchOperation[] ops,
+                                             Student[] batchStudents, Course[] batchCourses, byte[] codes) {
+        if (next < locked.length) {
+            synchronized (locked[next]) {
+                return lockStudentsAndApply(locked, next + 1, ops, batchStudents, batchCourses, codes);
+            }
+        }
+        
+        // Drops are checked first but only applied once all registrations succeeded
+        for (int i = 0; i < ops.length; i++) {
+            if (ops[i].getType() == BatchOperation.Type.DROP
+                    && !batchStudents[i].isEnrolledIn(batchCourses[i])) {
+                codes[i] = (byte) EnrollmentResult.NOT_ENROLLED.ordinal();
+                markRolledBack(codes, ops.length);
+                return new BatchResult(codes, false);
+            }
+        }
+        
+        for (int i = 0; i < ops.length; i++) {
+            if (ops[i].getType() != BatchOperation.Type.REGISTER) {
+                continue;
+            }
+            EnrollmentResult result = batchStudents[i].enroll(batchCourses[i]);
+            codes[i] = (byte) result.ordinal();
+            if (!result.isSuccess()) {
+                for (int j = 0; j < i; j++) {
+                    if (ops[j].getType() == BatchOperation.Type.REGISTER) {
+                        batchStudents[j].drop(batchCourses[j]);
+                    }
+                }
+                markRolledBack(codes, ops.length);
+                return new BatchResult(codes, false);
+            }
+        }
+        
+        for (int i = 0; i < ops.length; i++) {
+            if (ops[i].getType() == BatchOperation.Type.DROP) {
+                codes[i] = (byte) batchStudents[i].drop(batchCourses[i]).ordinal();
+            }
+        }
+        return new BatchResult(codes, true);
+    }
+    
+    // Items that did not fail themselves are reported as rolled back
+    private static void markRolledBack(byte[] codes, int length) {
+        for (int i = 0; i < length; i++) {
+            if (codes[i] == EnrollmentResult.SUCCESS.ordinal()) {
+                codes[i] = (byte) EnrollmentResult.ROLLED_BACK.ordinal();
+            }
+        }
+    }
+    
+    private static EnrollmentResult apply(BatchOperation op, Student student, Course course) {
+        if (op.getType() == BatchOperation.Type.REGISTER) {
+            return student.enroll(course);
+        }
+        return student.drop(course);
+    }
+    
     // Display Methods
     
     /**
      * Display all students and their details
      */
     public void displayAllStudents() {
-        System.out.println("\n========== ALL STUDENTS ==========");
-        if (students.isEmpty()) {
-            System.out.println("No students in the system.");
-        } else {
-            for (Student student : students) {
-                student.displayDetails();
-            }
-        }
-        System.out.println("==================================");
+        RegistrationExporter.print(out -> RegistrationExporter.TEXT.writeSchedules(students.values(), out));
     }
     
     /**
      * Display all instructors and their details
      */
     public void displayAllInstructors() {
-        System.out.println("\n========== ALL INSTRUCTORS ==========");
-        if (instructors.isEmpty()) {
-            System.out.println("No instructors in the system.");
-        } else {
-            for (Instructor instructor : instructors) {
-                instructor.displayDetails();
-            }
-        }
-        System.out.println("=====================================");
+        RegistrationExporter.print(out -> RegistrationExporter.TEXT.writeLoads(instructors.values(), out));
     }
     
     /**
      * Display all courses and their information
      */
     public void displayAllCourses() {
-        System.out.println("\n========== ALL COURSES ==========");
-        if (courses.isEmpty()) {
-            System.out.println("No courses in the system.");
-        } else {
-            for (Course course : courses) {
-                course.displayCourseInfo();
-            }
-        }
-        System.out.println("=================================");
+        RegistrationExporter.print(out -> RegistrationExporter.TEXT.writeRosters(courses.values(), out));
     }
     
     /**
@@ -254,24 +881,165 @@ public class RegistrationSystem {
         System.out.println("Total Instructors: " + instructors.size());
         System.out.println("Total Courses: " + courses.size());
         
-        int totalEnrollments = 0;
-        for (Course course : courses) {
-            totalEnrollments += course.getCurrentEnrollment();
-        }
-        System.out.println("Total Enrollments: " + totalEnrollments);
+        System.out.println("Total Enrollments: " + statistics.getTotalEnrollments());
         System.out.println("====================================");
     }
     
+    // Read-only views, for callers that read often and must not allocate
+    
+    /**
+     * Get all students without copying. The view is live: it grows as students
+     * are added, and iterating it is safe while other threads keep registering.
+     * @return Read-only view of the students in the order they were added
+     */
+    public List<Student> getStudentsView() {
+        return students.values();
+    }
+    
+    /**
+     * Get all instructors without copying; see getStudentsView
+     * @return Read-only view of the instructors in the order they were added
+     */
+    public List<Instructor> getInstructorsView() {
+        return instructors.values();
+    }
+    
+    /**
+     * Get all courses without copying; see getStudentsView
+     * @return Read-only view of the courses in the order they were added
+     */
+    public List<Course> getCoursesView() {
+        return courses.values();
+    }
+    
+    public void forEachStudent(Consumer<? super Student> action) {
+        if (action == null) {
+            throw new IllegalArgumentException("Action cannot be null");
+        }
+        students.forEach(action);
+    }
+    
+    public void forEachInstructor(Consumer<? super Instructor> action) {
+        if (action == null) {
+            throw new IllegalArgumentException("Action cannot be null");
+        }
+        instructors.forEach(action);
+    }
+    
+    public void forEachCourse(Consumer<? super Course> action) {
+        if (action == null) {
+            throw new IllegalArgumentException("Action cannot be null");
+        }
+        courses.forEach(action);
+    }
+    
     // Getters for lists (returning copies for encapsulation)
     public List<Student> getAllStudents() {
-        return new ArrayList<>(students);
+        return students.toList();
     }
     
     public List<Instructor> getAllInstructors() {
-        return new ArrayList<>(instructors);
+        return instructors.toList();
     }
     
     public List<Course> getAllCourses() {
-        return new ArrayList<>(courses);
+        return courses.toList();
+    }
+    
+    // Sources building entities from a compact snapshot. Loading a student or
+    // instructor also loads its courses; a course defers its roster until used.
+    
+    private class StoredStudents implements EntityIndex.Source<Student> {
+        private final CompactSnapshot snapshot;
+        
+        StoredStudents(CompactSnapshot snapshot) {
+            this.snapshot = snapshot;
+        }
+        
+        @Override
+        public int size() {
+            return snapshot.studentCount();
+        }
+        
+        @Override
+        public int indexOf(String key) {
+            return snapshot.findStudent(key);
+        }
+        
+        @Override
+        public Student load(int index) {
+            Student student = Student.ofValidated(snapshot.studentName(index),
+                    snapshot.studentEmail(index), snapshot.studentId(index));
+            for (int course : snapshot.coursesOfStudent(index)) {
+                student.restoreEnrollment(courses.load(course));
+            }
+            student.setEventListener(dispatcher);
+            student.setSystemEnrollmentPolicy(policyHook);
+            return student;
+        }
+    }
+    
+    private class StoredCourses implements EntityIndex.Source<Course> {
+        private final CompactSnapshot snapshot;
+        
+        StoredCourses(CompactSnapshot snapshot) {
+            this.snapshot = snapshot;
+        }
+        
+        @Override
+        public int size() {
+            return snapshot.courseCount();
+        }
+        
+        @Override
+        public int indexOf(String key) {
+            return snapshot.findCourse(key);
+        }
+        
+        @Override
+        public Course load(int index) {
+            Course course = Course.ofValidated(snapshot.courseCode(index), snapshot.courseName(index),
+                    snapshot.courseMaxStudents(index), snapshot.courseCredits(index));
+            course.deferRoster(snapshot.rosterSize(index), () -> {
+                int[] roster = snapshot.studentsOfCourse(index);
+                List<Student> loaded = new ArrayList<>(roster.length);
+                for (int student : roster) {
+                    loaded.add(students.load(student));
+                }
+                return loaded;
+            });
+            course.setEventListener(dispatcher);
+            course.setMetrics(metrics);
+            return course;
+        }
+    }
+    
+    private class StoredInstructors implements EntityIndex.Source<Instructor> {
+        private final CompactSnapshot snapshot;
+        
+        StoredInstructors(CompactSnapshot snapshot) {
+            this.snapshot = snapshot;
+        }
+        
+        @Override
+        public int size() {
+            return snapshot.instructorCount();
+        }
+        
+        @Override
+        public int indexOf(String key) {
+            return snapshot.findInstructor(key);
+        }
+        
+        @Override
+        public Instructor load(int index) {
+            Instructor instructor = Instructor.ofValidated(snapshot.instructorName(index),
+                    snapshot.instructorEmail(index), snapshot.instructorId(index));
+            for (int course : snapshot.coursesOfInstructor(index)) {
+                instructor.assignCourse(courses.load(course));
+            }
+            instructor.setEventListener(dispatcher);
+            return instructor;
+        }
     }
 }
\ No newline at end of file